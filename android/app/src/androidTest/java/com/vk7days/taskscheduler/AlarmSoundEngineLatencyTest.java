@@ -0,0 +1,111 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures how long the alarm takes to become audible on a real device, cold (nothing
+ * prepared) and warm (after {@link AlarmSoundEngine#warmUp}, as the service does on create).
+ * Audible means the engine's {@code onStarted} callback has fired.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AlarmSoundEngineLatencyTest {
+    private static final String TAG = "VK7Days_SoundLatency";
+
+    // Budgets for an emulator or low-end phone; real devices are typically well under these
+    private static final long WARM_START_BUDGET_MS = 50;
+    private static final long COLD_START_BUDGET_MS = 250;
+
+    // Long enough for any device to finish an asynchronous prepare of a short local file
+    private static final long PREPARE_WAIT_MS = 1000;
+
+    private Context context;
+    private AlarmSoundEngine engine;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        engine = new AlarmSoundEngine(context);
+    }
+
+    @After
+    public void tearDown() {
+        engine.release();
+    }
+
+    @Test
+    public void bundledRingtoneIsResolvedFirst() {
+        List<AlarmSoundEngine.Source> sources = AlarmSoundEngine.resolveSources(context);
+        assumeTrue("web assets not synced into this build", !sources.isEmpty());
+        assertEquals(AlarmSoundEngine.Source.asset(AlarmSoundEngine.BUNDLED_RINGTONE), sources.get(0));
+    }
+
+    @Test
+    public void coldStartIsAudibleWithinBudget() throws InterruptedException {
+        long elapsedMs = timeToAudible();
+
+        assumeTrue("no playable alarm sound on this device", elapsedMs >= 0);
+        Log.d(TAG, "Cold start audible after " + elapsedMs + "ms");
+        assertTrue(engine.isPlaying());
+        assertTrue("cold start took " + elapsedMs + "ms", elapsedMs <= COLD_START_BUDGET_MS);
+    }
+
+    @Test
+    public void warmStartIsAudibleWithinBudget() throws InterruptedException {
+        engine.warmUp(null);
+        SystemClock.sleep(PREPARE_WAIT_MS);
+
+        long elapsedMs = timeToAudible();
+
+        assumeTrue("no playable alarm sound on this device", elapsedMs >= 0);
+        Log.d(TAG, "Warm start audible after " + elapsedMs + "ms");
+        assertTrue(engine.isPlaying());
+        assertTrue("warm start took " + elapsedMs + "ms", elapsedMs <= WARM_START_BUDGET_MS);
+
+        // A second alarm in the same service lifetime reuses the prepared player
+        engine.stop();
+        long restartMs = timeToAudible();
+        Log.d(TAG, "Restart audible after " + restartMs + "ms");
+        assertTrue("restart took " + restartMs + "ms", restartMs >= 0 && restartMs <= WARM_START_BUDGET_MS);
+    }
+
+    /** Milliseconds from {@code start} to the started callback, or -1 if nothing could play. */
+    private long timeToAudible() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicBoolean started = new AtomicBoolean();
+        long startedAt = SystemClock.elapsedRealtimeNanos();
+        long[] audibleAt = new long[1];
+        engine.start(null, new AlarmSoundEngine.Listener() {
+            @Override
+            public void onStarted(AlarmSoundEngine.Source source) {
+                audibleAt[0] = SystemClock.elapsedRealtimeNanos();
+                started.set(true);
+                done.countDown();
+            }
+
+            @Override
+            public void onUnavailable() {
+                done.countDown();
+            }
+        });
+
+        assertTrue("engine never reported back", done.await(PREPARE_WAIT_MS * 5, TimeUnit.MILLISECONDS));
+        return started.get() ? (audibleAt[0] - startedAt) / 1_000_000 : -1;
+    }
+}
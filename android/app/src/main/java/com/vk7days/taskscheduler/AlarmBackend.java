@@ -0,0 +1,25 @@
+package com.vk7days.taskscheduler;
+
+/**
+ * Where exact wake-up alarms are registered. In the app this is AlarmManager
+ * ({@link AndroidAlarmBackend}); off-device a fake driven by a virtual clock stands in, so the
+ * scheduling logic can be tested and load-tested on a plain JVM.
+ *
+ * A request code identifies one registration: setting it again replaces the pending alarm.
+ */
+public interface AlarmBackend {
+    /** Registers, or moves, the exact alarm for {@code requestCode} to wall-clock {@code triggerTime}. */
+    void setExact(int requestCode, long triggerTime);
+
+    /**
+     * Registers, or moves, an inexact alarm for {@code requestCode} that may be delivered
+     * anywhere from {@code windowStart} to {@code windowStart + windowLength}. Needs no
+     * exact-alarm permission and lets the system fold it into other wake-ups.
+     */
+    void setWindow(int requestCode, long windowStart, long windowLength);
+
+    /** The shortest window {@link #setWindow} honours; shorter ones are stretched to this. */
+    long minWindowLength();
+
+    void cancel(int requestCode);
+}
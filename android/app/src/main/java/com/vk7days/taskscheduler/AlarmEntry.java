@@ -0,0 +1,254 @@
+package com.vk7days.taskscheduler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import org.json.JSONObject;
+
+/**
+ * One scheduled occurrence of a task: weekly from its day and time, or from a
+ * {@link RecurrenceRule} when the task has one. Immutable so it can be shared between
+ * the queue, the receiver and the sound service without copying.
+ */
+public final class AlarmEntry {
+    // Snoozed occurrences are queued under their own key so the task's weekly slot stays put
+    private static final String SNOOZE_PREFIX = "snooze:";
+
+    public final String taskId;
+    public final String taskTitle;
+    public final String taskTime;
+    public final String dayKey;
+    public final boolean hasCustomVoice;
+    public final long triggerTime;
+
+    // Parsed once from dayKey/taskTime; null for one-shot entries without a weekly slot and
+    // for entries with a rule
+    private final WeeklyRecurrence recurrence;
+    // Set for tasks with a richer schedule than one weekly slot; takes precedence over dayKey/taskTime
+    private final RecurrenceRule rule;
+
+    public AlarmEntry(String taskId, String taskTitle, String taskTime, String dayKey,
+                      boolean hasCustomVoice, long triggerTime) {
+        this(taskId, taskTitle, taskTime, dayKey, hasCustomVoice, triggerTime, null);
+    }
+
+    public AlarmEntry(String taskId, String taskTitle, String taskTime, String dayKey,
+                      boolean hasCustomVoice, long triggerTime, RecurrenceRule rule) {
+        this(taskId, taskTitle, taskTime, dayKey, hasCustomVoice, triggerTime,
+            rule == null ? WeeklyRecurrence.of(dayKey, taskTime) : null, rule);
+    }
+
+    private AlarmEntry(String taskId, String taskTitle, String taskTime, String dayKey,
+                       boolean hasCustomVoice, long triggerTime, WeeklyRecurrence recurrence, RecurrenceRule rule) {
+        if (taskId == null) {
+            throw new IllegalArgumentException("taskId is required");
+        }
+        this.taskId = taskId;
+        this.taskTitle = taskTitle;
+        this.taskTime = taskTime;
+        this.dayKey = dayKey;
+        this.hasCustomVoice = hasCustomVoice;
+        this.triggerTime = triggerTime;
+        this.recurrence = recurrence;
+        this.rule = rule;
+    }
+
+    public WeeklyRecurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public RecurrenceRule getRule() {
+        return rule;
+    }
+
+    /** The task's schedule as a rule: its own, or its weekly slot as a one-day weekly rule. */
+    public RecurrenceRule asRule() {
+        if (rule != null) return rule;
+        return recurrence != null ? RecurrenceRule.weekly(recurrence) : null;
+    }
+
+    public AlarmEntry withTriggerTime(long triggerTime) {
+        return new AlarmEntry(taskId, taskTitle, taskTime, dayKey, hasCustomVoice, triggerTime, recurrence, rule);
+    }
+
+    /**
+     * A one-shot copy of this alarm ringing again at {@code triggerTime}. It is queued beside
+     * the task's weekly occurrence, fires once and is then dropped.
+     */
+    public AlarmEntry snoozedUntil(long triggerTime) {
+        return new AlarmEntry(snoozeIdOf(getBaseTaskId()), taskTitle, taskTime, dayKey, hasCustomVoice, triggerTime, null, null);
+    }
+
+    /** Queue key of the pending snooze for {@code taskId}, if it has one. */
+    public static String snoozeIdOf(String taskId) {
+        return SNOOZE_PREFIX + taskId;
+    }
+
+    public boolean isSnooze() {
+        return taskId.startsWith(SNOOZE_PREFIX);
+    }
+
+    /** The task this alarm belongs to; differs from {@link #taskId} only for a snooze. */
+    public String getBaseTaskId() {
+        return isSnooze() ? taskId.substring(SNOOZE_PREFIX.length()) : taskId;
+    }
+
+    /**
+     * Returns the next occurrence of this entry strictly after {@code now}, resolved from the
+     * task's rule, or its day and local time, in {@code zone}. Entries without either repeat
+     * in whole wall-clock weeks from their current trigger time. Returns null when the rule
+     * has no occurrences left.
+     */
+    public AlarmEntry nextAfter(long now, ZoneId zone) {
+        if (rule != null) {
+            long next = rule.nextAfter(now, zone);
+            return next == 0 ? null : withTriggerTime(next);
+        }
+        if (recurrence != null) {
+            return withTriggerTime(recurrence.nextAfter(now, zone));
+        }
+
+        ZonedDateTime next = Instant.ofEpochMilli(triggerTime).atZone(zone);
+        do {
+            next = next.plusWeeks(1);
+        } while (next.toInstant().toEpochMilli() <= now);
+        return withTriggerTime(next.toInstant().toEpochMilli());
+    }
+
+    /**
+     * Recomputes the next occurrence strictly after {@code now} in {@code zone}, e.g. after
+     * a clock or time zone change. Returns this same instance when the trigger time is still
+     * correct so callers can cheaply detect which entries moved.
+     */
+    public AlarmEntry recomputeAfter(long now, ZoneId zone) {
+        if (isSnooze()) {
+            // A snooze missed while the device was off fires right away, not a week later
+            return this;
+        }
+        if (recurrence == null && rule == null) {
+            return triggerTime > now ? this : nextAfter(now, zone);
+        }
+
+        long next = rule != null ? rule.nextAfter(now, zone) : recurrence.nextAfter(now, zone);
+        if (next == 0) {
+            // The rule's last occurrence was missed: ring it now, then it is gone
+            return this;
+        }
+        return next == triggerTime ? this : withTriggerTime(next);
+    }
+
+    /**
+     * True when {@code other} describes the same alarm: same day, time, rule, title and voice flag.
+     * These fields are the fingerprint used by {@link AlarmQueue#reconcile}; the trigger time
+     * is derived from them and is not compared.
+     */
+    public boolean hasSameSchedule(AlarmEntry other) {
+        return taskId.equals(other.taskId)
+            && Objects.equals(dayKey, other.dayKey)
+            && Objects.equals(taskTime, other.taskTime)
+            && Objects.equals(rule, other.rule)
+            && Objects.equals(taskTitle, other.taskTitle)
+            && hasCustomVoice == other.hasCustomVoice;
+    }
+
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeUTF(taskId);
+        writeNullable(out, taskTitle);
+        writeNullable(out, taskTime);
+        writeNullable(out, dayKey);
+        out.writeBoolean(hasCustomVoice);
+        out.writeLong(triggerTime);
+        writeNullable(out, rule != null ? rule.toJson() : null);
+        return buffer.toByteArray();
+    }
+
+    public static AlarmEntry fromBytes(byte[] bytes) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(bytes)), bytes.length);
+    }
+
+    /** Reads one record of {@code length} bytes; records written before rules existed end after the trigger time. */
+    private static AlarmEntry read(DataInputStream in, int length) throws IOException {
+        int end = in.available() - length;
+        String taskId = in.readUTF();
+        String taskTitle = readNullable(in);
+        String taskTime = readNullable(in);
+        String dayKey = readNullable(in);
+        boolean hasCustomVoice = in.readBoolean();
+        long triggerTime = in.readLong();
+        String rule = in.available() > end ? readNullable(in) : null;
+        return new AlarmEntry(taskId, taskTitle, taskTime, dayKey, hasCustomVoice, triggerTime, RecurrenceRule.fromJson(rule));
+    }
+
+    /**
+     * Parses one alarm from a plugin call payload, or null when it has no task id. A missing
+     * trigger time reads as 0, which leaves resolving it to the scheduler.
+     */
+    public static AlarmEntry fromJson(JSONObject alarm) {
+        String taskId = alarm != null ? alarm.optString("taskId", null) : null;
+        if (taskId == null) return null;
+        RecurrenceRule rule = RecurrenceRule.fromJson(alarm.optJSONObject("rule"));
+        return new AlarmEntry(
+            taskId,
+            alarm.optString("taskTitle", null),
+            alarm.optString("taskTime", null),
+            alarm.optString("dayKey", null),
+            alarm.optBoolean("hasCustomVoice", false),
+            alarm.optLong("triggerTime", 0L),
+            // A rule that does not compile leaves nothing to resolve, so the task is reported invalid
+            rule == null ? WeeklyRecurrence.of(alarm.optString("dayKey", null), alarm.optString("taskTime", null)) : null,
+            rule
+        );
+    }
+
+    /** Packs several entries into one byte array, e.g. for a notification action extra. */
+    public static byte[] toBytes(Collection<AlarmEntry> entries) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * entries.size() + 4);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(entries.size());
+        for (AlarmEntry entry : entries) {
+            byte[] bytes = entry.toBytes();
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+        return buffer.toByteArray();
+    }
+
+    public static List<AlarmEntry> listFromBytes(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int count = in.readInt();
+        List<AlarmEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Entries are length-prefixed but read in place, without a copy or stream each
+            entries.add(read(in, in.readUnsignedShort()));
+        }
+        return entries;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "AlarmEntry{" + taskId + " @" + triggerTime + "}";
+    }
+}
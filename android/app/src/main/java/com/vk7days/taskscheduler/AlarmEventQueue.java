@@ -0,0 +1,48 @@
+package com.vk7days.taskscheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded FIFO of native events waiting for the web layer. Events are held until a listener
+ * takes them with {@link #drain}; once full, the oldest event is dropped to make room, since
+ * the newest alarms are the ones the user is looking at.
+ */
+public class AlarmEventQueue<T> {
+    private final int capacity;
+    private final ArrayDeque<T> events;
+    private long dropped;
+
+    public AlarmEventQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.events = new ArrayDeque<>(capacity);
+    }
+
+    public synchronized void offer(T event) {
+        if (events.size() == capacity) {
+            events.pollFirst();
+            dropped++;
+        }
+        events.addLast(event);
+    }
+
+    /** Removes and returns every queued event, oldest first. */
+    public synchronized List<T> drain() {
+        List<T> batch = new ArrayList<>(events);
+        events.clear();
+        return batch;
+    }
+
+    public synchronized int size() {
+        return events.size();
+    }
+
+    /** Events dropped because the queue was full, since the process started. */
+    public synchronized long droppedCount() {
+        return dropped;
+    }
+}
@@ -0,0 +1,51 @@
+package com.vk7days.taskscheduler;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+/**
+ * The one background thread for native alarm work: journal IO, notifications, audio setup
+ * and metrics. Receivers hand work to it after {@code goAsync()}, and the sound service runs
+ * everything except {@code startForeground} on it, so the main thread only ever does the
+ * minimum Android requires of it.
+ *
+ * Work runs in submission order. It is a HandlerThread rather than a plain executor so that
+ * MediaPlayer instances created here deliver their callbacks back to this thread.
+ */
+public final class AlarmExecutor {
+    private static final Object LOCK = new Object();
+    private static Handler handler;
+
+    private AlarmExecutor() {}
+
+    public static void execute(Runnable task) {
+        getHandler().post(task);
+    }
+
+    public static void executeDelayed(Runnable task, long delayMs) {
+        getHandler().postDelayed(task, delayMs);
+    }
+
+    /** Drops {@code task} if it is still waiting to run. */
+    public static void cancel(Runnable task) {
+        getHandler().removeCallbacks(task);
+    }
+
+    public static Looper getLooper() {
+        return getHandler().getLooper();
+    }
+
+    private static Handler getHandler() {
+        synchronized (LOCK) {
+            if (handler == null) {
+                // Foreground priority: this thread is on the path from alarm broadcast to audible sound
+                HandlerThread thread = new HandlerThread("VK7Days-Alarm", Process.THREAD_PRIORITY_FOREGROUND);
+                thread.start();
+                handler = new Handler(thread.getLooper());
+            }
+            return handler;
+        }
+    }
+}
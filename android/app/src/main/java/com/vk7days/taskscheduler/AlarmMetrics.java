@@ -0,0 +1,212 @@
+package com.vk7days.taskscheduler;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * How late each alarm reaches the user, measured from the trigger time it was scheduled for
+ * to every stage of the firing path. Each stage has a {@link LatencyHistogram}, and the most
+ * recent samples are kept in a fixed-size ring. Recording is lock-free so it is safe from
+ * receivers and the sound service alike.
+ *
+ * Everything is written to a small snapshot in app storage after each sample, so the numbers
+ * survive the process being killed between alarms.
+ */
+public class AlarmMetrics {
+    private static final String TAG = "VK7Days_AlarmMetrics";
+
+    // Ring samples store the ordinal; reordering stages needs a snapshot VERSION bump
+    public enum Stage {
+        /** AlarmReceiver.onReceive */
+        RECEIVED,
+        /** AlarmSoundService is in the foreground */
+        FOREGROUND,
+        /** The full alarm notification was posted */
+        NOTIFIED,
+        /** MediaPlayer.start() returned */
+        AUDIBLE,
+        /** Dismissed through AlarmStopReceiver */
+        DISMISSED
+    }
+
+    // An alarm delivered this late is counted as missed
+    public static final long MISSED_THRESHOLD_MS = TimeUnit.MINUTES.toMillis(5);
+    public static final int RING_CAPACITY = 256;
+
+    private static final int MAGIC = 0x564B374D; // "VK7M"
+    private static final int VERSION = 2;
+    private static final String SNAPSHOT_FILE = "alarm_metrics.bin";
+
+    // Ring slot layout: [stage + 1:8][unused:8][delay ms:48]; 0 marks an empty slot
+    private static final int STAGE_SHIFT = 56;
+    private static final long DELAY_MASK = (1L << 48) - 1;
+
+    private static AlarmMetrics instance;
+
+    private final File snapshot;
+    private final LongSupplier clock;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private final AtomicLong missed = new AtomicLong();
+    private final AtomicLongArray ring = new AtomicLongArray(RING_CAPACITY);
+    private final AtomicLong ringCursor = new AtomicLong();
+
+    public static synchronized AlarmMetrics getInstance(Context context) {
+        if (instance == null) {
+            File snapshot = new File(context.getFilesDir(), SNAPSHOT_FILE);
+            instance = new AlarmMetrics(snapshot, System::currentTimeMillis);
+            try {
+                instance.load();
+            } catch (IOException e) {
+                Log.e(TAG, "Discarding unreadable metrics snapshot", e);
+                instance = new AlarmMetrics(snapshot, System::currentTimeMillis);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Records that {@code stage} was reached for an alarm scheduled at {@code triggerTime} and
+     * persists the snapshot. Failures are logged, never thrown: metrics must not break alarms.
+     */
+    public static void record(Context context, Stage stage, long triggerTime) {
+        record(context, stage, triggerTime, System.currentTimeMillis());
+    }
+
+    /** As {@link #record(Context, Stage, long)}, for a stage reached at {@code reachedAt}. */
+    public static void record(Context context, Stage stage, long triggerTime, long reachedAt) {
+        if (triggerTime <= 0) return;
+        try {
+            AlarmMetrics metrics = getInstance(context);
+            long delay = metrics.record(stage, triggerTime, reachedAt);
+            metrics.save();
+            if (AlarmTrace.ENABLED) {
+                AlarmTrace.d(TAG, "%s %dms after trigger time", stage, delay);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error saving alarm metrics", e);
+        }
+    }
+
+    public AlarmMetrics(File snapshot, LongSupplier clock) {
+        this.snapshot = snapshot;
+        this.clock = clock;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /** Records one sample and returns its delay in ms. Early deliveries count as 0. */
+    public long record(Stage stage, long triggerTime) {
+        return record(stage, triggerTime, clock.getAsLong());
+    }
+
+    public long record(Stage stage, long triggerTime, long reachedAt) {
+        long delay = Math.max(0, reachedAt - triggerTime);
+        histograms[stage.ordinal()].record(delay);
+        if (stage == Stage.RECEIVED && delay > MISSED_THRESHOLD_MS) {
+            missed.incrementAndGet();
+        }
+
+        int slot = (int) (ringCursor.getAndIncrement() % RING_CAPACITY);
+        ring.set(slot, ((long) (stage.ordinal() + 1) << STAGE_SHIFT) | Math.min(delay, DELAY_MASK));
+        return delay;
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    public long missedCount() {
+        return missed.get();
+    }
+
+    /** Up to {@link #RING_CAPACITY} most recent samples, oldest first. */
+    public List<Sample> recentSamples() {
+        long end = ringCursor.get();
+        long start = Math.max(0, end - RING_CAPACITY);
+        List<Sample> samples = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            long packed = ring.get((int) (i % RING_CAPACITY));
+            if (packed != 0) {
+                samples.add(new Sample(Stage.values()[(int) (packed >>> STAGE_SHIFT) - 1], packed & DELAY_MASK));
+            }
+        }
+        return samples;
+    }
+
+    public synchronized void save() throws IOException {
+        File tmp = new File(snapshot.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(missed.get());
+            // Histograms are keyed by stage name so stages can be added without a format change
+            out.writeByte(histograms.length);
+            for (Stage stage : Stage.values()) {
+                out.writeUTF(stage.name());
+                histograms[stage.ordinal()].writeTo(out);
+            }
+            long cursor = ringCursor.get();
+            out.writeLong(cursor);
+            for (int i = 0; i < RING_CAPACITY; i++) {
+                out.writeLong(ring.get(i));
+            }
+            out.flush();
+        }
+        if (!tmp.renameTo(snapshot)) {
+            throw new IOException("Failed to replace " + snapshot);
+        }
+    }
+
+    /** Loads the saved snapshot, if any. Call before the instance is shared. */
+    public synchronized void load() throws IOException {
+        if (!snapshot.exists()) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unknown metrics snapshot format");
+            }
+            missed.addAndGet(in.readLong());
+            int stages = in.readUnsignedByte();
+            for (int i = 0; i < stages; i++) {
+                String name = in.readUTF();
+                LatencyHistogram histogram = new LatencyHistogram();
+                histogram.readFrom(in);
+                for (Stage stage : Stage.values()) {
+                    if (stage.name().equals(name)) {
+                        histograms[stage.ordinal()] = histogram;
+                    }
+                }
+            }
+            ringCursor.set(in.readLong());
+            for (int i = 0; i < RING_CAPACITY; i++) {
+                ring.set(i, in.readLong());
+            }
+        }
+    }
+
+    public static final class Sample {
+        public final Stage stage;
+        public final long delayMs;
+
+        Sample(Stage stage, long delayMs) {
+            this.stage = stage;
+            this.delayMs = delayMs;
+        }
+    }
+}
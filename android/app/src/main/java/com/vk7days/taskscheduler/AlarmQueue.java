@@ -0,0 +1,283 @@
+package com.vk7days.taskscheduler;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process timeline of every pending alarm, kept as an indexed binary min-heap on
+ * trigger time. Only the head needs to be registered with AlarmManager; when it fires
+ * {@link #fireDue()} pops everything that is due and re-queues each task's next weekly
+ * occurrence.
+ *
+ * Pure Java (no Android types) so it can be driven by a fake clock in JVM unit tests.
+ */
+public class AlarmQueue {
+    // Alarms due within this window of "now" are fired in the same tick
+    public static final long FIRE_WINDOW_MS = 1000;
+
+    private final LongSupplier clock;
+    private ZoneId zone;
+
+    private AlarmEntry[] heap = new AlarmEntry[16];
+    private int size = 0;
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    public AlarmQueue(LongSupplier clock, ZoneId zone) {
+        this.clock = clock;
+        this.zone = zone;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Earliest pending alarm, or null when nothing is scheduled. */
+    public synchronized AlarmEntry peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    public synchronized AlarmEntry get(String taskId) {
+        Integer index = positions.get(taskId);
+        return index == null ? null : heap[index];
+    }
+
+    /** Adds or replaces the alarm for {@code entry.taskId}. Returns the replaced entry, if any. */
+    public synchronized AlarmEntry put(AlarmEntry entry) {
+        Integer index = positions.get(entry.taskId);
+        if (index != null) {
+            AlarmEntry previous = heap[index];
+            heap[index] = entry;
+            if (!siftUp(index)) {
+                siftDown(index);
+            }
+            return previous;
+        }
+
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = entry;
+        positions.put(entry.taskId, size);
+        siftUp(size++);
+        return null;
+    }
+
+    public synchronized AlarmEntry remove(String taskId) {
+        Integer index = positions.remove(taskId);
+        if (index == null) {
+            return null;
+        }
+
+        AlarmEntry removed = heap[index];
+        int last = --size;
+        if (index != last) {
+            heap[index] = heap[last];
+            positions.put(heap[index].taskId, index);
+            heap[last] = null;
+            if (!siftUp(index)) {
+                siftDown(index);
+            }
+        } else {
+            heap[last] = null;
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(heap, 0, size, null);
+        positions.clear();
+        size = 0;
+    }
+
+    /** Snapshot of all pending alarms in no particular order. */
+    public synchronized List<AlarmEntry> entries() {
+        return new ArrayList<>(Arrays.asList(heap).subList(0, size));
+    }
+
+    /**
+     * The latest trigger time among alarms due no later than {@code limit}, or 0 when none is.
+     * Only heap nodes within the limit are visited, so this costs the size of the batch rather
+     * than the queue.
+     */
+    public synchronized long latestDueBy(long limit) {
+        return latestDueBy(0, limit);
+    }
+
+    private long latestDueBy(int index, long limit) {
+        if (index >= size || heap[index].triggerTime > limit) {
+            // Everything below a node fires no earlier than the node itself
+            return 0;
+        }
+        long latest = heap[index].triggerTime;
+        latest = Math.max(latest, latestDueBy(2 * index + 1, limit));
+        return Math.max(latest, latestDueBy(2 * index + 2, limit));
+    }
+
+    /**
+     * Pops every alarm due at the current clock time (within {@link #FIRE_WINDOW_MS}),
+     * re-queues its next occurrence and returns the popped entries in trigger order.
+     * Snoozes are one-shot and are simply removed, as are rules with no occurrences left.
+     */
+    public synchronized List<AlarmEntry> fireDue() {
+        long now = clock.getAsLong();
+        List<AlarmEntry> due = new ArrayList<>();
+
+        while (size > 0 && heap[0].triggerTime <= now + FIRE_WINDOW_MS) {
+            AlarmEntry entry = heap[0];
+            due.add(entry);
+            AlarmEntry next = entry.isSnooze() ? null : entry.nextAfter(Math.max(now, entry.triggerTime), zone);
+            if (next == null) {
+                remove(entry.taskId);
+            } else {
+                put(next);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Re-derives every occurrence from its day and wall-clock time after a clock or time zone
+     * change and replaces only the ones whose trigger time moved. Returns the replaced entries.
+     */
+    public synchronized List<AlarmEntry> recompute(ZoneId zone) {
+        this.zone = zone;
+        long now = clock.getAsLong();
+        List<AlarmEntry> changed = new ArrayList<>();
+
+        for (AlarmEntry entry : entries()) {
+            AlarmEntry recomputed = entry.recomputeAfter(now, zone);
+            if (recomputed != entry) {
+                put(recomputed);
+                changed.add(recomputed);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Makes the queue match {@code desired}, the complete set of enabled tasks, and returns
+     * what changed. A task whose {@link AlarmEntry#hasSameSchedule fingerprint} is unchanged
+     * keeps its pending occurrence untouched; new and edited tasks get their next occurrence
+     * resolved; tasks missing from {@code desired} (deleted or disabled) are removed, along
+     * with their pending snoozes.
+     *
+     * Entries with a trigger time of 0 are resolved from their rule, or day and time; a non-zero
+     * trigger time is taken as pinned by the caller. A rule with no future occurrence is invalid.
+     */
+    public synchronized Delta reconcile(Collection<AlarmEntry> desired) {
+        long now = clock.getAsLong();
+        Delta delta = new Delta();
+        Set<String> keep = new HashSet<>();
+        List<AlarmEntry> changed = new ArrayList<>();
+        List<WeeklyRecurrence> recurrences = new ArrayList<>();
+
+        for (AlarmEntry entry : desired) {
+            AlarmEntry current = get(entry.taskId);
+            if (current != null && current.hasSameSchedule(entry)
+                    && (entry.triggerTime == 0 || entry.triggerTime == current.triggerTime)) {
+                keep.add(entry.taskId);
+                delta.unchanged.add(current);
+                continue;
+            }
+            changed.add(entry);
+            recurrences.add(entry.triggerTime == 0 ? entry.getRecurrence() : null);
+        }
+
+        // Only new and edited tasks pay for trigger resolution
+        long[] resolved = WeeklyRecurrence.resolveAll(recurrences, now, zone);
+        for (int i = 0; i < changed.size(); i++) {
+            RecurrenceRule rule = changed.get(i).getRule();
+            if (rule != null && changed.get(i).triggerTime == 0) {
+                resolved[i] = rule.nextAfter(now, zone);
+            }
+        }
+        for (int i = 0; i < changed.size(); i++) {
+            AlarmEntry entry = changed.get(i);
+            if (entry.triggerTime == 0) {
+                if (resolved[i] == 0) {
+                    delta.invalid.add(entry.taskId);
+                    continue;
+                }
+                entry = entry.withTriggerTime(resolved[i]);
+            }
+            keep.add(entry.taskId);
+            (put(entry) == null ? delta.added : delta.updated).add(entry);
+        }
+
+        for (AlarmEntry entry : entries()) {
+            if (!keep.contains(entry.getBaseTaskId())) {
+                remove(entry.taskId);
+                delta.removed.add(entry.taskId);
+            }
+        }
+        return delta;
+    }
+
+    /** The changes applied by {@link #reconcile}. */
+    public static final class Delta {
+        public final List<AlarmEntry> added = new ArrayList<>();
+        public final List<AlarmEntry> updated = new ArrayList<>();
+        public final List<AlarmEntry> unchanged = new ArrayList<>();
+        public final List<String> removed = new ArrayList<>();
+        public final List<String> invalid = new ArrayList<>();
+
+        public boolean isEmpty() {
+            return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    private boolean siftUp(int index) {
+        AlarmEntry entry = heap[index];
+        int start = index;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (compare(entry, heap[parent]) >= 0) {
+                break;
+            }
+            move(heap[parent], index);
+            index = parent;
+        }
+        move(entry, index);
+        return index != start;
+    }
+
+    private void siftDown(int index) {
+        AlarmEntry entry = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && compare(heap[right], heap[child]) < 0) {
+                child = right;
+            }
+            if (compare(entry, heap[child]) <= 0) {
+                break;
+            }
+            move(heap[child], index);
+            index = child;
+        }
+        move(entry, index);
+    }
+
+    private void move(AlarmEntry entry, int index) {
+        heap[index] = entry;
+        positions.put(entry.taskId, index);
+    }
+
+    private static int compare(AlarmEntry a, AlarmEntry b) {
+        int byTime = Long.compare(a.triggerTime, b.triggerTime);
+        return byTime != 0 ? byTime : a.taskId.compareTo(b.taskId);
+    }
+}
@@ -6,43 +6,78 @@ import android.content.Intent;
 import android.os.PowerManager;
 import android.util.Log;
 
+import java.util.List;
+
 public class AlarmReceiver extends BroadcastReceiver {
     private static final String TAG = "VK7Days_AlarmReceiver";
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        Log.d(TAG, "Alarm received!");
+        AlarmTrace.d(TAG, "Alarm received");
+        long receivedAt = System.currentTimeMillis();
         
-        // Wake up the device
-        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
-        PowerManager.WakeLock wakeLock = powerManager.newWakeLock(
-            PowerManager.PARTIAL_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP, 
-            "VK7Days::AlarmWakeLock"
-        );
-        wakeLock.acquire(30000); // Hold for 30 seconds max
-
-        try {
-            // Get task details from intent
-            String taskTitle = intent.getStringExtra("taskTitle");
-            String taskTime = intent.getStringExtra("taskTime");
-            String taskId = intent.getStringExtra("taskId");
-            String dayKey = intent.getStringExtra("dayKey");
-            boolean hasCustomVoice = intent.getBooleanExtra("hasCustomVoice", false);
-
-            if (taskTitle == null) taskTitle = "Task Reminder";
-            if (taskTime == null) taskTime = "";
-
-            Log.d(TAG, "Task: " + taskTitle + " at " + taskTime);
-
-            // Start the alarm sound service (plays ringtone continuously)
-            AlarmSoundService.startAlarmService(context, taskId, taskTitle, taskTime, dayKey, hasCustomVoice);
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error in alarm receiver", e);
-        } finally {
-            if (wakeLock.isHeld()) {
-                wakeLock.release();
+        // Journal IO, metrics and starting the service all happen on the alarm thread
+        final PendingResult result = goAsync();
+        final Context appContext = context.getApplicationContext();
+        AlarmExecutor.execute(() -> {
+            // Wake up the device
+            PowerManager powerManager = (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+            PowerManager.WakeLock wakeLock = powerManager.newWakeLock(
+                PowerManager.PARTIAL_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP, 
+                "VK7Days::AlarmWakeLock"
+            );
+            wakeLock.acquire(30000); // Hold for 30 seconds max
+
+            AlarmTrace.begin("AlarmReceiver.receive");
+            try {
+                String taskId = intent.getStringExtra("taskId");
+                if (taskId != null) {
+                    // Per-task alarm registered by an older build before the scheduler migration
+                    AlarmTrace.event(AlarmTrace.RECEIVED, taskId, 0);
+                    fireTask(appContext, taskId, intent.getStringExtra("taskTitle"), intent.getStringExtra("taskTime"),
+                        intent.getStringExtra("dayKey"), intent.getBooleanExtra("hasCustomVoice", false), 0);
+                } else {
+                    // Single armed alarm: fire everything due in this tick, the scheduler re-arms the next one
+                    AlarmScheduler scheduler = AlarmScheduler.getInstance(appContext);
+                    List<AlarmEntry> due = scheduler.fireDue();
+                    if (AlarmTrace.ENABLED) {
+                        AlarmTrace.d(TAG, "%d alarm(s) due", due.size());
+                    }
+                    for (AlarmEntry entry : due) {
+                        if (!scheduler.claimOccurrence(entry.getBaseTaskId(), entry.triggerTime)) {
+                            AlarmTrace.event(AlarmTrace.DUPLICATE, entry.taskId, entry.triggerTime);
+                            continue;
+                        }
+                        AlarmTrace.event(AlarmTrace.RECEIVED, entry.taskId, entry.triggerTime);
+                        AlarmMetrics.record(appContext, AlarmMetrics.Stage.RECEIVED, entry.triggerTime, receivedAt);
+                        fireTask(appContext, entry.getBaseTaskId(), entry.taskTitle, entry.taskTime, entry.dayKey, entry.hasCustomVoice,
+                            entry.triggerTime);
+                    }
+                }
+
+            } catch (Exception e) {
+                Log.e(TAG, "Error in alarm receiver", e);
+            } finally {
+                AlarmTrace.end();
+                if (wakeLock.isHeld()) {
+                    wakeLock.release();
+                }
+                result.finish();
             }
-        }
+        });
+    }
+
+    private void fireTask(Context context, String taskId, String taskTitle, String taskTime,
+                          String dayKey, boolean hasCustomVoice, long triggerTime) {
+        if (taskTitle == null) taskTitle = "Task Reminder";
+        if (taskTime == null) taskTime = "";
+
+        AlarmTrace.d(TAG, "Task: %s at %s", taskTitle, taskTime);
+
+        // Start the alarm sound service (plays ringtone continuously)
+        AlarmSoundService.startAlarmService(context, taskId, taskTitle, taskTime, dayKey, hasCustomVoice, triggerTime);
+
+        // Foreground delivery: an open app hears about the alarm right away instead of polling
+        MainActivity.AlarmSchedulerPlugin.postFiredEvent(taskId, taskTitle, taskTime, dayKey, hasCustomVoice, triggerTime);
     }
 }
\ No newline at end of file
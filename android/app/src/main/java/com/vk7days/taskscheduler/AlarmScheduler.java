@@ -0,0 +1,498 @@
+package com.vk7days.taskscheduler;
+
+import android.Manifest;
+import android.app.AlarmManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.PowerManager;
+import android.util.Log;
+import androidx.core.content.ContextCompat;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the process-wide {@link AlarmQueue} and keeps exactly one alarm registered with
+ * AlarmManager: the earliest pending occurrence, see {@link ArmedAlarm}. Without the exact
+ * alarm permission, or with the battery saver on, that alarm is an inexact window covering
+ * every occurrence due within the batch tolerance instead. Every mutation is journaled to a
+ * {@link RecordLog} in app storage, so a fresh process started by the alarm broadcast or
+ * by {@link BootReceiver} can rebuild the queue without starting the WebView.
+ */
+public class AlarmScheduler {
+    private static final String TAG = "VK7Days_AlarmScheduler";
+    public static final String ACTION_ALARM = "com.vk7days.taskscheduler.ALARM_ACTION";
+
+    private static final String PREFS_NAME = "vk7days_alarm_scheduler";
+    private static final String JOURNAL_FILE = "alarm_schedule.log";
+    private static final String LEDGER_FILE = "fired_ledger.bin";
+    private static final String COMPLETIONS_FILE = "completions.log";
+    private static final String KEY_LEGACY_CLEARED = "legacy_alarms_cleared";
+    private static final String KEY_BATCHED_WAKE_UPS = "batched_wake_ups";
+    private static final String KEY_BATCHED_ALARMS = "batched_alarms";
+    private static final String KEY_BATCHED_MAX_LATENESS = "batched_max_lateness_ms";
+
+    private static AlarmScheduler instance;
+
+    private final Context context;
+    private final AndroidAlarmBackend backend;
+    private final ArmedAlarm armed;
+    private final SharedPreferences prefs;
+    private final AlarmQueue queue;
+    private RecordLog journal;
+    private final FiredLedger ledger;
+    // Done and skipped days from the notification actions, until JS merges them
+    private CompletionJournal completions;
+    // Next occurrences of every task for the UI; dropped on every change and rebuilt on demand
+    private OccurrenceIndex upcomingIndex;
+    // Last snapshot written for the home-screen widget
+    private UpcomingSnapshot publishedSnapshot;
+    // Permission snapshot read by every scheduling call; refreshed only when it may change
+    private final PermissionCache permissionCache = new PermissionCache();
+
+    public static synchronized AlarmScheduler getInstance(Context context) {
+        if (instance == null) {
+            instance = new AlarmScheduler(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AlarmScheduler(Context context) {
+        AlarmTrace.install(context);
+        this.context = context;
+        this.backend = new AndroidAlarmBackend(context);
+        this.armed = new ArmedAlarm(backend);
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.queue = new AlarmQueue(System::currentTimeMillis, ZoneId.systemDefault());
+        this.ledger = new FiredLedger(new File(context.getFilesDir(), LEDGER_FILE));
+        restoreJournal();
+        try {
+            ledger.load();
+        } catch (IOException e) {
+            Log.e(TAG, "Error loading fired ledger", e);
+        }
+        try {
+            completions = new CompletionJournal(new File(context.getFilesDir(), COMPLETIONS_FILE));
+        } catch (IOException e) {
+            Log.e(TAG, "Error opening completion journal", e);
+        }
+    }
+
+    public synchronized void schedule(AlarmEntry entry) {
+        queue.put(entry);
+        record(entry);
+        commit();
+    }
+
+    /**
+     * Applies only the difference between {@code desired} and the current schedule. Unchanged
+     * tasks are not rewritten, and AlarmManager is only called when the earliest alarm moved.
+     */
+    public synchronized AlarmQueue.Delta reconcile(Collection<AlarmEntry> desired) {
+        AlarmTrace.begin("AlarmScheduler.reconcile");
+        try {
+            clearLegacyAlarms(desired);
+            AlarmQueue.Delta delta = queue.reconcile(desired);
+            for (AlarmEntry entry : delta.added) {
+                record(entry);
+            }
+            for (AlarmEntry entry : delta.updated) {
+                record(entry);
+            }
+            for (String taskId : delta.removed) {
+                forget(taskId);
+            }
+            if (!delta.isEmpty()) {
+                commit();
+            }
+            AlarmTrace.event(AlarmTrace.SCHEDULED, null, desired.size());
+            return delta;
+        } finally {
+            AlarmTrace.end();
+        }
+    }
+
+    /**
+     * Rings {@code alarms} again {@code delayMs} from now as one-shot snoozes, journaled and
+     * armed like any other alarm so they survive the process being killed.
+     */
+    public synchronized List<AlarmEntry> snooze(Collection<AlarmEntry> alarms, long delayMs) {
+        long triggerTime = System.currentTimeMillis() + delayMs;
+        List<AlarmEntry> snoozed = new ArrayList<>(alarms.size());
+        for (AlarmEntry alarm : alarms) {
+            AlarmEntry entry = alarm.snoozedUntil(triggerTime);
+            queue.put(entry);
+            record(entry);
+            snoozed.add(entry);
+        }
+        commit();
+        return snoozed;
+    }
+
+    public synchronized void cancel(String taskId) {
+        if (remove(taskId)) {
+            commit();
+        }
+    }
+
+    /**
+     * Records {@code taskId}'s occurrence at {@code triggerTime} as done or skipped from the
+     * notification. Either way a pending snooze of it is dropped; skipping also moves the
+     * task's next occurrence past that day when it would still ring on it.
+     */
+    public synchronized void complete(String taskId, CompletionJournal.Status status, long triggerTime) {
+        ZoneId zone = ZoneId.systemDefault();
+        if (completions != null) {
+            try {
+                completions.record(taskId, status, triggerTime, System.currentTimeMillis(), zone);
+            } catch (IOException e) {
+                Log.e(TAG, "Error journaling completion for task: " + taskId, e);
+            }
+        }
+
+        boolean changed = false;
+        String snoozeId = AlarmEntry.snoozeIdOf(taskId);
+        if (queue.remove(snoozeId) != null) {
+            forget(snoozeId);
+            changed = true;
+        }
+        if (status == CompletionJournal.Status.SKIPPED) {
+            changed |= skipDay(taskId, CompletionJournal.dayOf(triggerTime, zone), zone);
+        }
+        if (changed) {
+            commit();
+        }
+    }
+
+    /** Done and skipped days JS has not merged yet. */
+    public synchronized List<CompletionJournal.Record> pendingCompletions() {
+        if (completions == null) return new ArrayList<>();
+        try {
+            return completions.pending();
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading completion journal", e);
+            return new ArrayList<>();
+        }
+    }
+
+    public synchronized void acknowledgeCompletions(Collection<String> keys) {
+        if (completions == null) return;
+        try {
+            completions.acknowledge(keys, CompletionJournal.dayOf(System.currentTimeMillis(), ZoneId.systemDefault()));
+        } catch (IOException e) {
+            Log.e(TAG, "Error acknowledging completions", e);
+        }
+    }
+
+    /** Moves {@code taskId}'s pending occurrence to its first one after local day {@code day}. */
+    private boolean skipDay(String taskId, long day, ZoneId zone) {
+        AlarmEntry entry = queue.get(taskId);
+        long nextDay = LocalDate.ofEpochDay(day + 1).atStartOfDay(zone).toInstant().toEpochMilli();
+        if (entry == null || entry.triggerTime >= nextDay) {
+            return false;
+        }
+        AlarmEntry next = entry.nextAfter(nextDay - 1, zone);
+        if (next == null) {
+            queue.remove(taskId);
+            forget(taskId);
+        } else {
+            queue.put(next);
+            record(next);
+        }
+        if (AlarmTrace.ENABLED) {
+            AlarmTrace.d(TAG, "Skipped the rest of day %d for task: %s", day, taskId);
+        }
+        return true;
+    }
+
+    /** Drops a task's weekly alarm and any pending snooze of it. */
+    private boolean remove(String taskId) {
+        boolean changed = false;
+        for (String key : new String[]{taskId, AlarmEntry.snoozeIdOf(taskId)}) {
+            if (queue.remove(key) != null) {
+                forget(key);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    /** Number of AlarmManager set/cancel calls made by this process, for diagnostics. */
+    public synchronized int getAlarmManagerCalls() {
+        return armed.backendCalls();
+    }
+
+    /** Pops every alarm due now, re-queues the next occurrences and re-arms. */
+    public synchronized List<AlarmEntry> fireDue() {
+        List<AlarmEntry> due = queue.fireDue();
+        if (!due.isEmpty() && batchToleranceMs() > 0) {
+            recordBatch(due, System.currentTimeMillis());
+        }
+        for (AlarmEntry entry : due) {
+            AlarmEntry next = queue.get(entry.taskId);
+            if (next == null) {
+                // A snooze, or a rule with no occurrences left
+                forget(entry.taskId);
+            } else {
+                record(next);
+            }
+        }
+        // The alarm that woke us is consumed, so the head must be registered again
+        armed.invalidate();
+        commit();
+        return due;
+    }
+
+    /**
+     * Claims the occurrence of {@code taskId} at {@code triggerTime} for ringing. The receiver
+     * calls this before firing, so an occurrence delivered again, e.g. re-armed by a restore
+     * after it already rang, sees false and stays quiet.
+     */
+    public synchronized boolean claimOccurrence(String taskId, long triggerTime) {
+        if (!ledger.claim(taskId, triggerTime)) {
+            return false;
+        }
+        try {
+            ledger.save();
+        } catch (IOException e) {
+            // The claim still holds for this process; only a restart could ring it twice
+            Log.e(TAG, "Error saving fired ledger", e);
+        }
+        return true;
+    }
+
+    /**
+     * Re-arms after a reboot or a wall-clock/time zone change, when AlarmManager has dropped
+     * or shifted our registration. Only occurrences whose trigger time actually moved are
+     * rewritten. Returns the number of occurrences that changed.
+     */
+    public synchronized int restore(ZoneId zone) {
+        List<AlarmEntry> changed = queue.recompute(zone);
+        for (AlarmEntry entry : changed) {
+            record(entry);
+            // Re-deriving may bring back an occurrence on a day the user skipped
+            long day = CompletionJournal.dayOf(entry.triggerTime, zone);
+            if (completions != null && !entry.isSnooze() && completions.isSkipped(entry.taskId, day)) {
+                skipDay(entry.taskId, day, zone);
+            }
+        }
+        armed.invalidate();
+        commit();
+        return changed.size();
+    }
+
+    /**
+     * Up to {@code count} occurrences after {@code after} across all tasks, earliest first, each
+     * as its entry with the occurrence as trigger time. Limited to {@link OccurrenceIndex#HORIZON_MS}.
+     */
+    public synchronized List<AlarmEntry> upcoming(long after, int count) {
+        long now = System.currentTimeMillis();
+        if (upcomingIndex == null || now - upcomingIndex.builtAt() > OccurrenceIndex.HORIZON_MS / 2) {
+            upcomingIndex = OccurrenceIndex.build(queue.entries(), now, ZoneId.systemDefault());
+            if (AlarmTrace.ENABLED) {
+                AlarmTrace.d(TAG, "Indexed %d upcoming occurrences of %d alarms", upcomingIndex.size(), queue.size());
+            }
+        }
+        return upcomingIndex.nextAfter(after, count);
+    }
+
+    /** Registers the head again, after the batching mode or tolerance may have changed. */
+    public synchronized void rearm() {
+        armed.invalidate();
+        arm();
+    }
+
+    /** The cached permission state, probing the system only on first use. */
+    public PermissionCache.State permissions() {
+        return permissionCache.get(this::probePermissions);
+    }
+
+    /**
+     * Re-reads permissions after something may have changed them. Returns the new state if it
+     * changed, having re-armed for it, else null. Makes binder calls: keep it off the main thread.
+     */
+    public PermissionCache.State refreshPermissions() {
+        PermissionCache.State changed = permissionCache.refresh(this::probePermissions);
+        if (changed != null) {
+            // Losing or gaining exact alarms switches between exact and batched arming
+            rearm();
+        }
+        return changed;
+    }
+
+    /** Number of permission probes made by this process. */
+    public int permissionProbeCount() {
+        return permissionCache.probeCount();
+    }
+
+    private PermissionCache.State probePermissions() {
+        boolean hasNotificationPermission = true;
+        boolean hasExactAlarmPermission = true;
+        boolean isBatteryOptimized = true;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            hasNotificationPermission = ContextCompat.checkSelfPermission(
+                context, Manifest.permission.POST_NOTIFICATIONS) == PackageManager.PERMISSION_GRANTED;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+            hasExactAlarmPermission = alarmManager.canScheduleExactAlarms();
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+            isBatteryOptimized = !powerManager.isIgnoringBatteryOptimizations(context.getPackageName());
+        }
+
+        return new PermissionCache.State(hasNotificationPermission, hasExactAlarmPermission, isBatteryOptimized);
+    }
+
+    /**
+     * How late a batched alarm may ring, or 0 when alarms are armed exactly. Batching is on
+     * whenever exact alarms are not allowed, so reminders still ring, and when the user picked
+     * the battery saver.
+     */
+    public long batchToleranceMs() {
+        if (!AlarmSettings.isBatterySaver(context)
+                && permissions().exactAlarms) {
+            return 0;
+        }
+        return TimeUnit.MINUTES.toMillis(AlarmSettings.getBatchToleranceMinutes(context));
+    }
+
+    /** Wake-ups made in batched mode, alarms they rang and the latest any rang, since install. */
+    public synchronized long[] batchStats() {
+        return new long[]{
+            prefs.getLong(KEY_BATCHED_WAKE_UPS, 0),
+            prefs.getLong(KEY_BATCHED_ALARMS, 0),
+            prefs.getLong(KEY_BATCHED_MAX_LATENESS, 0)
+        };
+    }
+
+    private void recordBatch(List<AlarmEntry> due, long now) {
+        long lateness = 0;
+        for (AlarmEntry entry : due) {
+            lateness = Math.max(lateness, now - entry.triggerTime);
+        }
+        if (AlarmTrace.ENABLED) {
+            AlarmTrace.d(TAG, "Batched wake-up rang %d alarms, at most %dms late", due.size(), lateness);
+        }
+        prefs.edit()
+            .putLong(KEY_BATCHED_WAKE_UPS, prefs.getLong(KEY_BATCHED_WAKE_UPS, 0) + 1)
+            .putLong(KEY_BATCHED_ALARMS, prefs.getLong(KEY_BATCHED_ALARMS, 0) + due.size())
+            .putLong(KEY_BATCHED_MAX_LATENESS, Math.max(prefs.getLong(KEY_BATCHED_MAX_LATENESS, 0), lateness))
+            .apply();
+    }
+
+    /**
+     * Saves the next few occurrences for {@link UpcomingWidgetProvider} and redraws it, unless
+     * they are the ones already saved. Only called while a widget is on the home screen.
+     */
+    public synchronized void publishUpcoming() {
+        UpcomingSnapshot snapshot = UpcomingSnapshot.of(upcoming(System.currentTimeMillis(), UpcomingSnapshot.CAPACITY));
+        if (snapshot.equals(publishedSnapshot)) {
+            return;
+        }
+        try {
+            snapshot.save(UpcomingWidgetProvider.snapshotFile(context));
+            publishedSnapshot = snapshot;
+        } catch (IOException e) {
+            Log.e(TAG, "Error saving upcoming snapshot", e);
+            return;
+        }
+        UpcomingWidgetProvider.refresh(context);
+    }
+
+    private void commit() {
+        upcomingIndex = null;
+        flushJournal();
+        arm();
+        if (UpcomingWidgetProvider.hasWidgets(context)) {
+            publishUpcoming();
+        }
+    }
+
+    private void arm() {
+        AlarmEntry next = queue.peek();
+        long toleranceMs = batchToleranceMs();
+        if (!(toleranceMs > 0 ? armed.armBatch(queue, toleranceMs) : armed.arm(next))) {
+            // The registered alarm already fires at the right moment
+            return;
+        }
+        AlarmTrace.event(AlarmTrace.ARMED, next != null ? next.taskId : null, next != null ? next.triggerTime : 0);
+        if (next == null) {
+            AlarmTrace.d(TAG, "No pending alarms, disarmed");
+        } else if (AlarmTrace.ENABLED) {
+            AlarmTrace.d(TAG, "Armed next alarm for task: %s at %d within %dms (%d pending)",
+                next.taskId, next.triggerTime, toleranceMs, queue.size());
+        }
+    }
+
+    /**
+     * Older builds registered one PendingIntent per task keyed by the task id hash. Those are
+     * cancelled once, the first time the full schedule is handed to the new scheduler.
+     */
+    private void clearLegacyAlarms(Collection<AlarmEntry> entries) {
+        if (prefs.getBoolean(KEY_LEGACY_CLEARED, false)) {
+            return;
+        }
+
+        for (AlarmEntry entry : entries) {
+            backend.cancelLegacy(Math.abs(entry.taskId.hashCode()));
+        }
+        prefs.edit().putBoolean(KEY_LEGACY_CLEARED, true).apply();
+    }
+
+    private void record(AlarmEntry entry) {
+        if (journal == null) return;
+        try {
+            journal.put(entry.taskId, entry.toBytes());
+        } catch (IOException e) {
+            Log.e(TAG, "Error journaling alarm for task: " + entry.taskId, e);
+        }
+    }
+
+    private void forget(String taskId) {
+        if (journal == null) return;
+        try {
+            journal.delete(taskId);
+        } catch (IOException e) {
+            Log.e(TAG, "Error journaling cancel for task: " + taskId, e);
+        }
+    }
+
+    private void flushJournal() {
+        if (journal == null) return;
+        try {
+            journal.flush();
+        } catch (IOException e) {
+            Log.e(TAG, "Error flushing alarm journal", e);
+        }
+    }
+
+    private void restoreJournal() {
+        try {
+            journal = new RecordLog(new File(context.getFilesDir(), JOURNAL_FILE));
+            for (byte[] bytes : journal.entries().values()) {
+                queue.put(AlarmEntry.fromBytes(bytes));
+            }
+            if (AlarmTrace.ENABLED) {
+                AlarmTrace.d(TAG, "Restored %d pending alarms", queue.size());
+            }
+        } catch (IOException e) {
+            // Keep scheduling in memory; JS resyncs the full schedule on next launch
+            Log.e(TAG, "Error opening alarm journal", e);
+        }
+    }
+}
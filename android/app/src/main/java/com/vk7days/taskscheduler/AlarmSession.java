@@ -0,0 +1,130 @@
+package com.vk7days.taskscheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The alarms currently ringing in {@link AlarmSoundService}, in the order they fired.
+ *
+ * Every alarm that fires while a session is active joins it instead of restarting the
+ * player, so tasks sharing a minute ring as one session with one grouped notification.
+ * Alarms joining within {@link #COALESCE_WINDOW_MS} of the session start are merged quietly;
+ * later ones still join but re-alert. The session ends when its last alarm is dismissed.
+ *
+ * Not thread-safe: the service only touches it from the alarm thread.
+ */
+public class AlarmSession {
+    public static final long COALESCE_WINDOW_MS = 60 * 1000;
+
+    public enum Result {
+        /** First alarm of a new session: start sound and vibration */
+        STARTED,
+        /** Joined the ringing session within the coalescing window */
+        MERGED,
+        /** Joined the ringing session after the window: re-alert */
+        JOINED_LATE,
+        /** The task is already ringing in this session */
+        DUPLICATE
+    }
+
+    private final long windowMs;
+    private final Map<String, AlarmEntry> alarms = new LinkedHashMap<>();
+    private final Map<String, Integer> slots = new LinkedHashMap<>();
+    private long startedAt;
+    private int nextSlot;
+    // The task whose own recording or spoken title is the session sound; null for the ringtone
+    private String voiceTaskId;
+    // Set when that task was dismissed while others still ring, so the sound must change
+    private boolean voiceDismissed;
+
+    public AlarmSession() {
+        this(COALESCE_WINDOW_MS);
+    }
+
+    public AlarmSession(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    /** Adds an alarm that fired at {@code now} and says how the service should react. */
+    public Result add(AlarmEntry entry, long now) {
+        if (alarms.containsKey(entry.taskId)) {
+            return Result.DUPLICATE;
+        }
+        boolean started = alarms.isEmpty();
+        if (started) {
+            startedAt = now;
+            nextSlot = 0;
+        }
+        alarms.put(entry.taskId, entry);
+        slots.put(entry.taskId, nextSlot++);
+
+        if (started) return Result.STARTED;
+        return now - startedAt <= windowMs ? Result.MERGED : Result.JOINED_LATE;
+    }
+
+    /** Removes one alarm and returns it, or null if the task is not ringing. */
+    public AlarmEntry dismiss(String taskId) {
+        slots.remove(taskId);
+        AlarmEntry dismissed = alarms.remove(taskId);
+        if (dismissed != null && taskId.equals(voiceTaskId)) {
+            voiceTaskId = null;
+            voiceDismissed = !alarms.isEmpty();
+        }
+        return dismissed;
+    }
+
+    /** Ends the session and returns every alarm that was still ringing. */
+    public List<AlarmEntry> dismissAll() {
+        List<AlarmEntry> dismissed = new ArrayList<>(alarms.values());
+        alarms.clear();
+        slots.clear();
+        voiceTaskId = null;
+        voiceDismissed = false;
+        return dismissed;
+    }
+
+    /** Records whose voice the session is playing; null when it plays the shared ringtone. */
+    public void setVoiceTask(String taskId) {
+        voiceTaskId = taskId;
+        voiceDismissed = false;
+    }
+
+    public String voiceTaskId() {
+        return voiceTaskId;
+    }
+
+    /**
+     * The alarm whose sound should replace a dismissed task's own voice, once: the first one
+     * still ringing. Null when the session sound does not need to change.
+     */
+    public AlarmEntry takeSoundHandover() {
+        if (!voiceDismissed) return null;
+        voiceDismissed = false;
+        return alarms.isEmpty() ? null : alarms.values().iterator().next();
+    }
+
+    public boolean isEmpty() {
+        return alarms.isEmpty();
+    }
+
+    public int size() {
+        return alarms.size();
+    }
+
+    /** Ringing alarms, first fired first. */
+    public List<AlarmEntry> alarms() {
+        return Collections.unmodifiableList(new ArrayList<>(alarms.values()));
+    }
+
+    /**
+     * A small index for the task, stable for as long as it rings, so each alarm can have its
+     * own notification and request codes. -1 if the task is not ringing.
+     */
+    public int slotOf(String taskId) {
+        Integer slot = slots.get(taskId);
+        return slot != null ? slot : -1;
+    }
+}
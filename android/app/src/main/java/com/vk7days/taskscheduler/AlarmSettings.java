@@ -0,0 +1,115 @@
+package com.vk7days.taskscheduler;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User-adjustable alarm behaviour that native code needs without the WebView: snooze length,
+ * how long an unanswered alarm rings before it silences itself, the battery saver that
+ * batches nearby alarms into one wake-up, and whether tasks without a recording speak their
+ * title instead of ringing. Set from JS through
+ * {@code AlarmScheduler.setAlarmOptions}.
+ */
+public final class AlarmSettings {
+    private static final String PREFS_NAME = "vk7days_alarm_settings";
+    private static final String KEY_SNOOZE_MINUTES = "snooze_minutes";
+    private static final String KEY_AUTO_SILENCE_MINUTES = "auto_silence_minutes";
+    private static final String KEY_BATTERY_SAVER = "battery_saver";
+    private static final String KEY_BATCH_TOLERANCE_MINUTES = "batch_tolerance_minutes";
+    private static final String KEY_SPEECH_VOICE = "speech_voice";
+    private static final String KEY_SPOKEN_REMINDERS = "spoken_reminders";
+
+    public static final int[] SNOOZE_CHOICES = {5, 10, 15};
+    public static final int DEFAULT_SNOOZE_MINUTES = 10;
+    public static final int DEFAULT_AUTO_SILENCE_MINUTES = 5;
+    public static final int MAX_AUTO_SILENCE_MINUTES = 30;
+    public static final int DEFAULT_BATCH_TOLERANCE_MINUTES = 10;
+    public static final int MAX_BATCH_TOLERANCE_MINUTES = 60;
+
+    private AlarmSettings() {}
+
+    public static int getSnoozeMinutes(Context context) {
+        return prefs(context).getInt(KEY_SNOOZE_MINUTES, DEFAULT_SNOOZE_MINUTES);
+    }
+
+    public static int getAutoSilenceMinutes(Context context) {
+        return prefs(context).getInt(KEY_AUTO_SILENCE_MINUTES, DEFAULT_AUTO_SILENCE_MINUTES);
+    }
+
+    /** Stores the snooze length; only the {@link #SNOOZE_CHOICES} are accepted. */
+    public static boolean setSnoozeMinutes(Context context, int minutes) {
+        for (int choice : SNOOZE_CHOICES) {
+            if (choice == minutes) {
+                prefs(context).edit().putInt(KEY_SNOOZE_MINUTES, minutes).apply();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static boolean setAutoSilenceMinutes(Context context, int minutes) {
+        if (minutes < 1 || minutes > MAX_AUTO_SILENCE_MINUTES) {
+            return false;
+        }
+        prefs(context).edit().putInt(KEY_AUTO_SILENCE_MINUTES, minutes).apply();
+        return true;
+    }
+
+    /** True when alarms are batched even though exact alarms are allowed. */
+    public static boolean isBatterySaver(Context context) {
+        return prefs(context).getBoolean(KEY_BATTERY_SAVER, false);
+    }
+
+    public static void setBatterySaver(Context context, boolean enabled) {
+        prefs(context).edit().putBoolean(KEY_BATTERY_SAVER, enabled).apply();
+    }
+
+    /**
+     * The smallest batch tolerance this device can keep: Android 12+ stretches alarm windows
+     * shorter than {@link AndroidAlarmBackend#MIN_WINDOW_LENGTH_S}.
+     */
+    public static int minBatchToleranceMinutes() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+            ? (int) TimeUnit.MILLISECONDS.toMinutes(AndroidAlarmBackend.MIN_WINDOW_LENGTH_S) : 1;
+    }
+
+    /** How late a batched alarm may ring, at most. */
+    public static int getBatchToleranceMinutes(Context context) {
+        int minutes = prefs(context).getInt(KEY_BATCH_TOLERANCE_MINUTES, DEFAULT_BATCH_TOLERANCE_MINUTES);
+        // Saved before an OS upgrade raised the minimum
+        return Math.max(minutes, minBatchToleranceMinutes());
+    }
+
+    public static boolean setBatchToleranceMinutes(Context context, int minutes) {
+        if (minutes < minBatchToleranceMinutes() || minutes > MAX_BATCH_TOLERANCE_MINUTES) {
+            return false;
+        }
+        prefs(context).edit().putInt(KEY_BATCH_TOLERANCE_MINUTES, minutes).apply();
+        return true;
+    }
+
+    /** True when a task without its own recording speaks its title instead of the ringtone. */
+    public static boolean isSpokenReminders(Context context) {
+        return prefs(context).getBoolean(KEY_SPOKEN_REMINDERS, false);
+    }
+
+    public static void setSpokenReminders(Context context, boolean enabled) {
+        prefs(context).edit().putBoolean(KEY_SPOKEN_REMINDERS, enabled).apply();
+    }
+
+    /** The voice spoken reminders were last rendered in; the alarm looks its clip up with it. */
+    public static String getSpeechVoice(Context context) {
+        return prefs(context).getString(KEY_SPEECH_VOICE, SpeechCache.DEFAULT_VOICE);
+    }
+
+    public static void setSpeechVoice(Context context, String voice) {
+        prefs(context).edit().putString(KEY_SPEECH_VOICE, voice).apply();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
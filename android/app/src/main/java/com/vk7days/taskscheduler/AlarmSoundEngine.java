@@ -0,0 +1,309 @@
+package com.vk7days.taskscheduler;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.MediaPlayer;
+import android.media.RingtoneManager;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Plays the alarm sound with as little work as possible at fire time.
+ *
+ * Sound sources are resolved and validated once per process ({@link #resolveSources}) so the
+ * alarm path never walks RingtoneManager fallbacks. The service calls {@link #warmUp} as soon
+ * as it is created, which prepares a looping MediaPlayer asynchronously; {@link #start} then
+ * only has to seek and start it, or starts it from the prepared callback if it is still
+ * preparing. A source that fails to open or errors falls through to the next one. Between
+ * alarms the player is paused rather than released, so back-to-back alarms in one service
+ * lifetime reuse it.
+ *
+ * The bundled ringtone is played straight out of the APK through an AssetFileDescriptor;
+ * mp3 assets are stored uncompressed so no copy is needed.
+ */
+public class AlarmSoundEngine {
+    private static final String TAG = "VK7Days_SoundEngine";
+
+    // Copied into the APK by `cap sync` from public/ringtone; the web build plays the same file
+    public static final String BUNDLED_RINGTONE = "public/ringtone/Dholida.mp3";
+
+    private static volatile List<Source> resolvedSources;
+
+    private final Context context;
+    private final AudioAttributes attributes;
+    private MediaPlayer player;
+    private Source playerSource;
+    private boolean prepared;
+    private boolean startRequested;
+    private Listener listener;
+
+    // Sources to try, in order, for the current prepare; a failing one falls through to the next
+    private List<Source> candidates;
+    private int nextCandidate;
+
+    public AlarmSoundEngine(Context context) {
+        this.context = context.getApplicationContext();
+        this.attributes = new AudioAttributes.Builder()
+            .setUsage(AudioAttributes.USAGE_ALARM)
+            .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+            .build();
+    }
+
+    /**
+     * The playable fallback sources in preference order: the bundled ringtone, then the user's
+     * alarm, notification and ringtone sounds. Resolved once per process and cached.
+     */
+    public static List<Source> resolveSources(Context context) {
+        List<Source> sources = resolvedSources;
+        if (sources != null) {
+            return sources;
+        }
+
+        long startedAt = SystemClock.elapsedRealtime();
+        sources = new ArrayList<>();
+        Source bundled = Source.asset(BUNDLED_RINGTONE);
+        if (bundled.isAvailable(context)) {
+            sources.add(bundled);
+        }
+        for (int type : new int[]{RingtoneManager.TYPE_ALARM, RingtoneManager.TYPE_NOTIFICATION, RingtoneManager.TYPE_RINGTONE}) {
+            // Play the settings alias (readable without media permissions), but only when the
+            // user actually picked a sound; "None" resolves to null here
+            if (RingtoneManager.getActualDefaultRingtoneUri(context, type) != null) {
+                sources.add(Source.uri(RingtoneManager.getDefaultUri(type)));
+            }
+        }
+
+        resolvedSources = sources = Collections.unmodifiableList(sources);
+        if (AlarmTrace.ENABLED) {
+            AlarmTrace.d(TAG, "Resolved %d sound sources in %dms", sources.size(), SystemClock.elapsedRealtime() - startedAt);
+        }
+        return sources;
+    }
+
+    /**
+     * Starts preparing a looping player for {@code preferred}, or the first resolved fallback
+     * that prepares successfully, without blocking. Does nothing if that source is already
+     * prepared or being prepared.
+     */
+    public synchronized void warmUp(Source preferred) {
+        if (hasPlayerFor(preferred)) {
+            return;
+        }
+        begin(preferred);
+    }
+
+    /**
+     * Starts the alarm sound from the beginning. If the player is still preparing, playback
+     * starts from the prepared callback; {@code listener} hears about it either way.
+     */
+    public synchronized void start(Source preferred, Listener listener) {
+        this.listener = listener;
+        startRequested = true;
+        if (hasPlayerFor(preferred)) {
+            if (prepared) {
+                play();
+            }
+            return;
+        }
+        begin(preferred);
+    }
+
+    /** Silences the alarm but keeps the prepared player for the next one. */
+    public synchronized void stop() {
+        startRequested = false;
+        if (player != null && prepared && player.isPlaying()) {
+            player.pause();
+        }
+    }
+
+    public synchronized boolean isPlaying() {
+        return player != null && prepared && player.isPlaying();
+    }
+
+    public synchronized void release() {
+        startRequested = false;
+        releasePlayer();
+    }
+
+    /**
+     * True when the current player already plays {@code preferred}. With no preference, any
+     * resolved fallback will do, but not a task's recording or spoken title left over from
+     * an earlier start.
+     */
+    private boolean hasPlayerFor(Source preferred) {
+        if (player == null) return false;
+        return preferred != null ? preferred.equals(playerSource) : resolveSources(context).contains(playerSource);
+    }
+
+    private void begin(Source preferred) {
+        candidates = new ArrayList<>();
+        if (preferred != null) {
+            candidates.add(preferred);
+        }
+        candidates.addAll(resolveSources(context));
+        nextCandidate = 0;
+        prepareNext();
+    }
+
+    private void prepareNext() {
+        releasePlayer();
+        while (nextCandidate < candidates.size()) {
+            Source source = candidates.get(nextCandidate++);
+            long startedAt = SystemClock.elapsedRealtime();
+            MediaPlayer candidate = new MediaPlayer();
+            try {
+                candidate.setAudioAttributes(attributes);
+                source.setDataSource(context, candidate);
+                candidate.setLooping(true);
+                // Callbacks arrive on the creating thread's looper (the alarm thread in the service)
+                candidate.setOnPreparedListener(mp -> onPrepared(mp, startedAt));
+                candidate.setOnErrorListener((mp, what, extra) -> onError(mp, what, extra));
+                candidate.prepareAsync();
+
+                player = candidate;
+                playerSource = source;
+                prepared = false;
+                return;
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Could not open " + source, e);
+                candidate.release();
+            }
+        }
+
+        Log.w(TAG, "No playable alarm sound");
+        if (startRequested && listener != null) {
+            startRequested = false;
+            listener.onUnavailable();
+        }
+    }
+
+    private synchronized void onPrepared(MediaPlayer mp, long startedAt) {
+        if (mp != player) return;
+        prepared = true;
+        if (AlarmTrace.ENABLED) {
+            AlarmTrace.d(TAG, "Prepared %s in %dms", playerSource, SystemClock.elapsedRealtime() - startedAt);
+        }
+        if (startRequested) {
+            play();
+        }
+    }
+
+    private synchronized boolean onError(MediaPlayer mp, int what, int extra) {
+        if (mp != player) return true;
+        Log.w(TAG, "Player error " + what + "/" + extra + " on " + playerSource + ", trying next source");
+        prepareNext();
+        return true;
+    }
+
+    private void play() {
+        if (!player.isPlaying()) {
+            player.seekTo(0);
+            player.start();
+        }
+        if (startRequested && listener != null) {
+            listener.onStarted(playerSource);
+        }
+        startRequested = false;
+    }
+
+    private void releasePlayer() {
+        if (player != null) {
+            try {
+                player.release();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error releasing player", e);
+            }
+            player = null;
+            playerSource = null;
+            prepared = false;
+        }
+    }
+
+    /** Hears whether a requested {@link #start} produced sound. */
+    public interface Listener {
+        void onStarted(Source source);
+
+        void onUnavailable();
+    }
+
+    /** Something the engine can play: an APK asset, a file in app storage or a content URI. */
+    public static final class Source {
+        private final String assetPath;
+        private final File file;
+        private final Uri uri;
+
+        private Source(String assetPath, File file, Uri uri) {
+            this.assetPath = assetPath;
+            this.file = file;
+            this.uri = uri;
+        }
+
+        public static Source asset(String path) {
+            return new Source(path, null, null);
+        }
+
+        public static Source file(File file) {
+            return new Source(null, file, null);
+        }
+
+        public static Source uri(Uri uri) {
+            return new Source(null, null, uri);
+        }
+
+        boolean isAvailable(Context context) {
+            if (assetPath != null) {
+                try (AssetFileDescriptor afd = context.getAssets().openFd(assetPath)) {
+                    return afd.getLength() > 0;
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+            if (file != null) {
+                return file.isFile() && file.length() > 0;
+            }
+            return true;
+        }
+
+        void setDataSource(Context context, MediaPlayer player) throws IOException {
+            if (assetPath != null) {
+                try (AssetFileDescriptor afd = context.getAssets().openFd(assetPath)) {
+                    player.setDataSource(afd);
+                }
+            } else if (file != null) {
+                player.setDataSource(file.getAbsolutePath());
+            } else {
+                player.setDataSource(context, uri);
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Source)) return false;
+            Source that = (Source) other;
+            return Objects.equals(assetPath, that.assetPath)
+                && Objects.equals(file, that.file)
+                && Objects.equals(uri, that.uri);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(assetPath, file, uri);
+        }
+
+        @Override
+        public String toString() {
+            if (assetPath != null) return "asset:" + assetPath;
+            if (file != null) return "file:" + file;
+            return String.valueOf(uri);
+        }
+    }
+}
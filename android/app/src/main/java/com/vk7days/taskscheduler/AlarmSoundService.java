@@ -9,7 +9,6 @@ import android.content.Context;
 import android.content.Intent;
 import android.media.AudioAttributes;
 import android.media.AudioManager;
-import android.media.MediaPlayer;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Build;
@@ -19,75 +18,215 @@ import android.os.Vibrator;
 import android.util.Log;
 import androidx.core.app.NotificationCompat;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
 public class AlarmSoundService extends Service {
     private static final String TAG = "VK7Days_AlarmSound";
     private static final String CHANNEL_ID = "vk7days_alarm_sound";
     private static final int NOTIFICATION_ID = 12346;
     private static final int FOREGROUND_NOTIFICATION_ID = 12347;
+    // Per-task notifications in the alarm group take ids from here, one per session slot
+    private static final int TASK_NOTIFICATION_BASE_ID = 12400;
+    private static final String ALARM_GROUP = "vk7days_alarm_session";
+    
+    static final String ACTION_DISMISS = "com.vk7days.taskscheduler.DISMISS";
     
-    private MediaPlayer mediaPlayer;
+    private AlarmSoundEngine soundEngine;
     private Vibrator vibrator;
     private PowerManager.WakeLock wakeLock;
     private boolean isPlaying = false;
     
-    // Task details for notification
-    private String taskTitle;
-    private String taskTime;
-    private String taskId;
-    private String dayKey;
-    private boolean hasCustomVoice;
+    // Alarms ringing right now; only touched on the alarm thread
+    private final AlarmSession session = new AlarmSession();
+    // Latest start command handled on the alarm thread; a newer one keeps the service alive
+    private int handledStartId;
+    // True while a session is ringing; read by MainActivity to skip alarm-only work
+    private static volatile boolean ringing;
+    // Silences a session nobody answers, so it cannot ring and hold the wake lock indefinitely
+    private final Runnable autoSilence = this::silenceUnanswered;
 
     @Override
     public void onCreate() {
         super.onCreate();
-        Log.d(TAG, "AlarmSoundService created");
+        AlarmTrace.install(this);
+        AlarmTrace.d(TAG, "AlarmSoundService created");
         
-        // Create notification channel
-        createNotificationChannel();
-        
-        // Acquire wake lock to keep device awake
-        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
-        wakeLock = powerManager.newWakeLock(
-            PowerManager.PARTIAL_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP,
-            "VK7Days::AlarmSoundWakeLock"
-        );
-        wakeLock.acquire(5 * 60 * 1000); // Hold for 5 minutes max
+        // Only the channel startForeground needs is created on the main thread
+        createServiceChannel();
         
         // Get vibrator service
         vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
+        
+        soundEngine = new AlarmSoundEngine(this);
+        AlarmExecutor.execute(() -> {
+            createAlarmChannel();
+            
+            // Acquire wake lock to keep device awake
+            PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+            wakeLock = powerManager.newWakeLock(
+                PowerManager.PARTIAL_WAKE_LOCK | PowerManager.ACQUIRE_CAUSES_WAKEUP,
+                "VK7Days::AlarmSoundWakeLock"
+            );
+            // Not reference counted: each acquire just moves the timeout, one release ends it
+            wakeLock.setReferenceCounted(false);
+            holdWakeLock();
+            
+            // Prepare the sound now so onStartCommand only has to start it
+            soundEngine.warmUp(null);
+        });
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
-        Log.d(TAG, "AlarmSoundService started");
+        AlarmTrace.d(TAG, "AlarmSoundService started");
         
-        if (intent != null) {
-            taskTitle = intent.getStringExtra("taskTitle");
-            taskTime = intent.getStringExtra("taskTime");
-            taskId = intent.getStringExtra("taskId");
-            dayKey = intent.getStringExtra("dayKey");
-            hasCustomVoice = intent.getBooleanExtra("hasCustomVoice", false);
-            
-            if (taskTitle == null) taskTitle = "Task Reminder";
-            if (taskTime == null) taskTime = "";
+        if (intent != null && ACTION_DISMISS.equals(intent.getAction())) {
+            String taskId = intent.getStringExtra("taskId");
+            long dismissedAt = intent.getLongExtra("dismissedAt", System.currentTimeMillis());
+            boolean snoozed = intent.getBooleanExtra("snoozed", false);
+            AlarmExecutor.execute(() -> {
+                handledStartId = startId;
+                AlarmTrace.begin("AlarmSoundService.dismiss");
+                try {
+                    dismiss(taskId, dismissedAt, snoozed);
+                } finally {
+                    AlarmTrace.end();
+                }
+            });
+            return START_NOT_STICKY;
         }
         
-        // Start foreground service
-        startForeground(FOREGROUND_NOTIFICATION_ID, createForegroundNotification());
-        
-        // Show the main alarm notification
-        showAlarmNotification();
+        long commandTriggerTime = intent != null ? intent.getLongExtra("triggerTime", 0L) : 0L;
         
-        // Start playing alarm sound
-        startAlarmSound();
+        // Start foreground service; this is the only alarm work that must stay on the main thread
+        startForeground(FOREGROUND_NOTIFICATION_ID, createForegroundNotification(commandTriggerTime));
+        long foregroundAt = System.currentTimeMillis();
         
-        // Start vibration
-        startVibration();
+        AlarmExecutor.execute(() -> {
+            handledStartId = startId;
+            if (intent == null) {
+                if (session.isEmpty()) finishSession();
+                return;
+            }
+            
+            String taskId = intent.getStringExtra("taskId");
+            String taskTitle = intent.getStringExtra("taskTitle");
+            String taskTime = intent.getStringExtra("taskTime");
+            AlarmEntry alarm = new AlarmEntry(
+                taskId != null ? taskId : "alarm-" + commandTriggerTime,
+                taskTitle != null ? taskTitle : "Task Reminder",
+                taskTime != null ? taskTime : "",
+                intent.getStringExtra("dayKey"),
+                intent.getBooleanExtra("hasCustomVoice", false),
+                commandTriggerTime
+            );
+            AlarmMetrics.record(this, AlarmMetrics.Stage.FOREGROUND, alarm.triggerTime, foregroundAt);
+            
+            // Alarms that fire while one is ringing join its session instead of restarting it
+            AlarmSession.Result result = session.add(alarm, foregroundAt);
+            if (AlarmTrace.ENABLED) {
+                AlarmTrace.d(TAG, "Alarm %s: %s, %d ringing", alarm.taskId, result, session.size());
+            }
+            if (result == AlarmSession.Result.DUPLICATE) {
+                return;
+            }
+            AlarmTrace.event(AlarmTrace.RINGING, alarm.taskId, alarm.triggerTime);
+            
+            // Show the grouped alarm notification; only a new or late alarm alerts again
+            showAlarmNotifications(result != AlarmSession.Result.MERGED);
+            AlarmMetrics.record(this, AlarmMetrics.Stage.NOTIFIED, alarm.triggerTime);
+            
+            ringing = true;
+            if (result == AlarmSession.Result.STARTED) {
+                // Start playing alarm sound
+                startAlarmSound(alarm);
+                
+                // Start vibration
+                startVibration();
+            }
+            
+            // A new or late alarm gets the full ringing time again, and the wake lock with it
+            AlarmExecutor.cancel(autoSilence);
+            AlarmExecutor.executeDelayed(autoSilence, autoSilenceMs());
+            holdWakeLock();
+        });
         
         return START_NOT_STICKY; // Don't restart if killed
     }
 
-    private void createNotificationChannel() {
+    private long autoSilenceMs() {
+        return AlarmSettings.getAutoSilenceMinutes(this) * 60 * 1000L;
+    }
+
+    /** Holds the wake lock until the auto-silence timeout at most, with a little slack for teardown. */
+    private void holdWakeLock() {
+        if (wakeLock != null) {
+            wakeLock.acquire(autoSilenceMs() + 10 * 1000);
+        }
+    }
+
+    private void silenceUnanswered() {
+        if (session.isEmpty()) return;
+        AlarmTrace.event(AlarmTrace.SILENCED, null, session.size());
+        if (AlarmTrace.ENABLED) {
+            AlarmTrace.d(TAG, "No answer after %d min, silencing %d alarm(s)",
+                AlarmSettings.getAutoSilenceMinutes(this), session.size());
+        }
+        stopAlarm();
+    }
+
+    /**
+     * Dismisses one task, or the whole session when {@code taskId} is null. A snoozed alarm is
+     * silenced the same way but not counted as dismissed. Alarm thread only.
+     */
+    private void dismiss(String taskId, long dismissedAt, boolean snoozed) {
+        if (taskId == null) {
+            if (!snoozed) {
+                for (AlarmEntry alarm : session.alarms()) {
+                    AlarmMetrics.record(this, AlarmMetrics.Stage.DISMISSED, alarm.triggerTime, dismissedAt);
+                }
+            }
+            AlarmTrace.event(AlarmTrace.DISMISSED, null, 0);
+            AlarmTrace.d(TAG, snoozed ? "All alarms snoozed" : "All alarms dismissed");
+            stopAlarm();
+            return;
+        }
+        
+        int slot = session.slotOf(taskId);
+        AlarmEntry alarm = session.dismiss(taskId);
+        if (alarm == null) {
+            AlarmTrace.d(TAG, "Task %s is not ringing", taskId);
+            if (session.isEmpty()) finishSession();
+            return;
+        }
+        if (!snoozed) {
+            AlarmMetrics.record(this, AlarmMetrics.Stage.DISMISSED, alarm.triggerTime, dismissedAt);
+        }
+        AlarmTrace.event(AlarmTrace.DISMISSED, taskId, session.size());
+        AlarmTrace.d(TAG, "Alarm %s for task: %s", snoozed ? "snoozed" : "dismissed", taskId);
+        
+        if (session.isEmpty()) {
+            stopAlarm();
+            return;
+        }
+        
+        NotificationManager notificationManager = 
+            (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        notificationManager.cancel(TASK_NOTIFICATION_BASE_ID + slot);
+        showAlarmNotifications(false);
+        
+        // Stop the dismissed task's own recording or spoken title; the rest of the session keeps ringing
+        AlarmEntry handover = session.takeSoundHandover();
+        if (handover != null) {
+            startAlarmSound(handover);
+        }
+    }
+
+    private void createServiceChannel() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             NotificationManager notificationManager = 
                 (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
@@ -101,6 +240,13 @@ public class AlarmSoundService extends Service {
             serviceChannel.setDescription("Background service for alarm sounds");
             serviceChannel.setSound(null, null); // No sound for service notification
             notificationManager.createNotificationChannel(serviceChannel);
+        }
+    }
+
+    private void createAlarmChannel() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationManager notificationManager = 
+                (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
             
             // Channel for alarm notifications (high importance with sound)
             NotificationChannel alarmChannel = new NotificationChannel(
@@ -132,10 +278,11 @@ public class AlarmSoundService extends Service {
         }
     }
 
-    private Notification createForegroundNotification() {
+    private Notification createForegroundNotification(long triggerTime) {
         // Intent to stop the service
         Intent stopIntent = new Intent(this, AlarmStopReceiver.class);
         stopIntent.setAction("STOP_ALARM");
+        stopIntent.putExtra("triggerTime", triggerTime);
         PendingIntent stopPendingIntent = PendingIntent.getBroadcast(
             this, 0, stopIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
         );
@@ -150,35 +297,64 @@ public class AlarmSoundService extends Service {
             .build();
     }
 
-    private void showAlarmNotification() {
-        // Intent to open the app
-        Intent openAppIntent = new Intent(this, MainActivity.class);
-        openAppIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-        openAppIntent.putExtra("taskId", taskId);
-        openAppIntent.putExtra("taskTitle", taskTitle);
-        openAppIntent.putExtra("taskTime", taskTime);
-        openAppIntent.putExtra("dayKey", dayKey);
-        openAppIntent.putExtra("hasCustomVoice", hasCustomVoice);
-        openAppIntent.putExtra("fromAlarm", true);
-
-        PendingIntent openPendingIntent = PendingIntent.getActivity(
-            this, 0, openAppIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        // Intent to dismiss the alarm
-        Intent dismissIntent = new Intent(this, AlarmStopReceiver.class);
-        dismissIntent.setAction("DISMISS_ALARM");
-        PendingIntent dismissPendingIntent = PendingIntent.getBroadcast(
-            this, 1, dismissIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
+    /**
+     * Posts the session as one notification group: a summary listing every ringing task, which
+     * carries the alert, the full-screen intent and "Dismiss all", plus one silent child per task
+     * with its own Done, Snooze and Skip today actions. Swiping a child away dismisses just that
+     * task, so it can be silenced without being marked done or skipped.
+     */
+    private void showAlarmNotifications(boolean alert) {
+        NotificationManager notificationManager = 
+            (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        List<AlarmEntry> alarms = session.alarms();
+        
+        int snoozeMinutes = AlarmSettings.getSnoozeMinutes(this);
+        String snoozeLabel = "Snooze " + snoozeMinutes + " min";
+        
+        for (AlarmEntry alarm : alarms) {
+            int slot = session.slotOf(alarm.taskId);
+            // Request codes: 0-2 for the summary, then four per task
+            int requestCode = 3 + 4 * slot;
+            PendingIntent openPendingIntent = openAppIntent(alarm, requestCode);
+            NotificationCompat.Builder child = new NotificationCompat.Builder(this, "vk7days_alarms")
+                .setSmallIcon(android.R.drawable.ic_dialog_alert)
+                .setContentTitle(alarm.taskTitle)
+                .setContentText("⏰ " + alarm.taskTime + (alarm.hasCustomVoice ? " 🎤" : ""))
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setCategory(NotificationCompat.CATEGORY_ALARM)
+                .setGroup(ALARM_GROUP)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY)
+                .setSortKey(String.format(Locale.ROOT, "%04d", slot))
+                .setAutoCancel(false)
+                .setContentIntent(openPendingIntent)
+                .setDeleteIntent(dismissIntent(alarm.taskId, alarm.triggerTime, requestCode + 3))
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                .addAction(android.R.drawable.checkbox_on_background, "Done",
+                    completeIntent(alarm, AlarmStopReceiver.ACTION_DONE, requestCode))
+                .addAction(android.R.drawable.ic_lock_idle_alarm, snoozeLabel,
+                    snoozeIntent(alarm.taskId, Collections.singletonList(alarm), snoozeMinutes, requestCode + 1))
+                .addAction(android.R.drawable.ic_menu_close_clear_cancel, "Skip today",
+                    completeIntent(alarm, AlarmStopReceiver.ACTION_SKIP, requestCode + 2));
+            notificationManager.notify(TASK_NOTIFICATION_BASE_ID + slot, child.build());
+        }
+        
+        AlarmEntry first = alarms.get(0);
+        PendingIntent openPendingIntent = openAppIntent(first, 0);
+        String title = alarms.size() == 1 ? first.taskTitle : alarms.size() + " tasks";
+        NotificationCompat.InboxStyle inbox = new NotificationCompat.InboxStyle();
+        for (AlarmEntry alarm : alarms) {
+            inbox.addLine(alarm.taskTitle + " (" + alarm.taskTime + ")" + (alarm.hasCustomVoice ? " 🎤" : ""));
+        }
+        
         // Build the main alarm notification
         NotificationCompat.Builder builder = new NotificationCompat.Builder(this, "vk7days_alarms")
             .setSmallIcon(android.R.drawable.ic_dialog_alert)
             .setContentTitle("🔔 VK7Days Reminder")
-            .setContentText(taskTitle + " (" + taskTime + ")" + (hasCustomVoice ? " 🎤" : ""))
-            .setStyle(new NotificationCompat.BigTextStyle()
-                .bigText(taskTitle + "\n⏰ " + taskTime + (hasCustomVoice ? "\n🎤 Custom voice recording available" : "")))
+            .setContentText(title + " (" + first.taskTime + ")")
+            .setStyle(inbox)
+            .setGroup(ALARM_GROUP)
+            .setGroupSummary(true)
+            .setOnlyAlertOnce(!alert)
             .setPriority(NotificationCompat.PRIORITY_HIGH)
             .setCategory(NotificationCompat.CATEGORY_ALARM)
             .setAutoCancel(false) // Don't auto-cancel
@@ -186,65 +362,130 @@ public class AlarmSoundService extends Service {
             .setContentIntent(openPendingIntent)
             .setFullScreenIntent(openPendingIntent, true)
             .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
-            .addAction(android.R.drawable.ic_menu_close_clear_cancel, "Dismiss", dismissPendingIntent)
+            .addAction(android.R.drawable.ic_menu_close_clear_cancel,
+                alarms.size() == 1 ? "Dismiss" : "Dismiss all", dismissIntent(null, first.triggerTime, 1))
+            .addAction(android.R.drawable.ic_lock_idle_alarm, alarms.size() == 1 ? snoozeLabel : "Snooze all",
+                snoozeIntent(null, alarms, snoozeMinutes, 2))
             .addAction(android.R.drawable.ic_menu_view, "Open", openPendingIntent);
 
         // Don't set sound here - we're playing it manually
-        NotificationManager notificationManager = 
-            (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        
         notificationManager.notify(NOTIFICATION_ID, builder.build());
-        Log.d(TAG, "Alarm notification shown");
+        if (AlarmTrace.ENABLED) {
+            AlarmTrace.d(TAG, "Alarm notification shown for %d task(s)", alarms.size());
+        }
     }
 
-    private void startAlarmSound() {
+    private PendingIntent openAppIntent(AlarmEntry alarm, int requestCode) {
+        // Intent to open the app
+        Intent openAppIntent = new Intent(this, MainActivity.class);
+        openAppIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        openAppIntent.putExtra("taskId", alarm.taskId);
+        openAppIntent.putExtra("taskTitle", alarm.taskTitle);
+        openAppIntent.putExtra("taskTime", alarm.taskTime);
+        openAppIntent.putExtra("dayKey", alarm.dayKey);
+        openAppIntent.putExtra("hasCustomVoice", alarm.hasCustomVoice);
+        openAppIntent.putExtra("triggerTime", alarm.triggerTime);
+        openAppIntent.putExtra("fromAlarm", true);
+        
+        return PendingIntent.getActivity(
+            this, requestCode, openAppIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    /**
+     * Snoozes {@code alarms}, then silences {@code taskId} or the whole session when it is null.
+     * The alarms travel with the intent so the receiver can reschedule them on its own.
+     */
+    private PendingIntent snoozeIntent(String taskId, List<AlarmEntry> alarms, int minutes, int requestCode) {
+        Intent snoozeIntent = new Intent(this, AlarmStopReceiver.class);
+        snoozeIntent.setAction("SNOOZE_ALARM");
+        snoozeIntent.putExtra("taskId", taskId);
+        snoozeIntent.putExtra("snoozeMinutes", minutes);
         try {
-            if (mediaPlayer != null) {
-                mediaPlayer.release();
-            }
+            snoozeIntent.putExtra("alarms", AlarmEntry.toBytes(alarms));
+        } catch (IOException e) {
+            Log.e(TAG, "Error packing alarms for snooze", e);
+        }
+        return PendingIntent.getBroadcast(
+            this, requestCode, snoozeIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
 
-            // Get default alarm ringtone
-            Uri alarmUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-            if (alarmUri == null) {
-                alarmUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-            }
-            if (alarmUri == null) {
-                alarmUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_RINGTONE);
-            }
+    /** Marks the task done or skipped for the day, natively, then silences it. */
+    private PendingIntent completeIntent(AlarmEntry alarm, String action, int requestCode) {
+        Intent completeIntent = new Intent(this, AlarmStopReceiver.class);
+        completeIntent.setAction(action);
+        completeIntent.putExtra("taskId", alarm.taskId);
+        completeIntent.putExtra("baseTaskId", alarm.getBaseTaskId());
+        completeIntent.putExtra("triggerTime", alarm.triggerTime);
+        return PendingIntent.getBroadcast(
+            this, requestCode, completeIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
 
-            if (alarmUri != null) {
-                mediaPlayer = new MediaPlayer();
-                mediaPlayer.setDataSource(this, alarmUri);
-                
-                // Set audio attributes for alarm
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                    AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                        .setUsage(AudioAttributes.USAGE_ALARM)
-                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                        .build();
-                    mediaPlayer.setAudioAttributes(audioAttributes);
+    /** Dismisses one task, or the whole session when {@code taskId} is null. */
+    private PendingIntent dismissIntent(String taskId, long triggerTime, int requestCode) {
+        Intent dismissIntent = new Intent(this, AlarmStopReceiver.class);
+        dismissIntent.setAction("DISMISS_ALARM");
+        dismissIntent.putExtra("taskId", taskId);
+        dismissIntent.putExtra("triggerTime", triggerTime);
+        return PendingIntent.getBroadcast(
+            this, requestCode, dismissIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    private void startAlarmSound(AlarmEntry alarm) {
+        AlarmTrace.begin("AlarmSoundService.startSound");
+        try {
+            // Keep the alarm stream audible
+            AudioManager audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
+            int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_ALARM);
+            audioManager.setStreamVolume(AudioManager.STREAM_ALARM, maxVolume, 0);
+            
+            // A task's own recording, saved natively by the web layer, takes precedence
+            AlarmSoundEngine.Source voice = null;
+            String voiceTaskId = null;
+            if (alarm.hasCustomVoice) {
+                File voiceFile = VoiceStore.getInstance(this).find(alarm.taskId);
+                if (voiceFile != null) {
+                    voice = AlarmSoundEngine.Source.file(voiceFile);
+                    voiceTaskId = alarm.taskId;
                 } else {
-                    mediaPlayer.setAudioStreamType(AudioManager.STREAM_ALARM);
+                    Log.w(TAG, "No native copy of the voice recording for task: " + alarm.taskId);
+                }
+            }
+            if (voice == null && AlarmSettings.isSpokenReminders(this)) {
+                // Otherwise, when enabled, the task's title, spoken ahead of time when the task was saved
+                File clip = SpeechCache.getInstance(this).find(alarm.taskTitle, AlarmSettings.getSpeechVoice(this));
+                if (clip != null) {
+                    voice = AlarmSoundEngine.Source.file(clip);
+                    voiceTaskId = alarm.taskId;
                 }
-                
-                // Set to loop continuously
-                mediaPlayer.setLooping(true);
-                
-                // Set volume to maximum
-                AudioManager audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
-                int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_ALARM);
-                audioManager.setStreamVolume(AudioManager.STREAM_ALARM, maxVolume, 0);
-                
-                mediaPlayer.prepare();
-                mediaPlayer.start();
-                isPlaying = true;
-                
-                Log.d(TAG, "Alarm sound started playing in loop");
-            } else {
-                Log.w(TAG, "No alarm ringtone available");
             }
+            
+            session.setVoiceTask(voiceTaskId);
+            
+            // Plays as soon as the player is prepared; callbacks arrive on the alarm thread
+            final String soundTaskId = alarm.taskId;
+            final long soundTriggerTime = alarm.triggerTime;
+            soundEngine.start(voice, new AlarmSoundEngine.Listener() {
+                @Override
+                public void onStarted(AlarmSoundEngine.Source source) {
+                    isPlaying = true;
+                    AlarmMetrics.record(AlarmSoundService.this, AlarmMetrics.Stage.AUDIBLE, soundTriggerTime);
+                    AlarmTrace.event(AlarmTrace.AUDIBLE, soundTaskId, soundTriggerTime);
+                    AlarmTrace.d(TAG, "Alarm sound started playing in loop: %s", source);
+                }
+                
+                @Override
+                public void onUnavailable() {
+                    Log.w(TAG, "No alarm ringtone available");
+                }
+            });
         } catch (Exception e) {
             Log.e(TAG, "Error starting alarm sound", e);
+        } finally {
+            AlarmTrace.end();
         }
     }
 
@@ -254,7 +495,7 @@ public class AlarmSoundService extends Service {
                 // Vibrate continuously: 1 second on, 0.5 seconds off, repeat
                 long[] pattern = {0, 1000, 500};
                 vibrator.vibrate(pattern, 0); // 0 means repeat indefinitely
-                Log.d(TAG, "Vibration started");
+                AlarmTrace.d(TAG, "Vibration started");
             }
         } catch (Exception e) {
             Log.e(TAG, "Error starting vibration", e);
@@ -262,54 +503,76 @@ public class AlarmSoundService extends Service {
     }
 
     public void stopAlarm() {
-        Log.d(TAG, "Stopping alarm sound and vibration");
+        AlarmTrace.d(TAG, "Stopping alarm sound and vibration");
         
-        // Stop media player
-        if (mediaPlayer != null) {
+        // Silence the player on the thread that owns it, and clear every task in the session;
+        // the player itself is released with the service
+        AlarmExecutor.cancel(autoSilence);
+        AlarmExecutor.execute(() -> {
             try {
-                if (mediaPlayer.isPlaying()) {
-                    mediaPlayer.stop();
+                if (soundEngine != null) {
+                    soundEngine.stop();
                 }
-                mediaPlayer.release();
-                mediaPlayer = null;
                 isPlaying = false;
-                Log.d(TAG, "Media player stopped and released");
+                AlarmTrace.d(TAG, "Alarm sound stopped");
             } catch (Exception e) {
-                Log.e(TAG, "Error stopping media player", e);
+                Log.e(TAG, "Error stopping alarm sound", e);
             }
-        }
+            
+            // Cancel notifications
+            NotificationManager notificationManager = 
+                (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+            for (AlarmEntry alarm : session.alarms()) {
+                notificationManager.cancel(TASK_NOTIFICATION_BASE_ID + session.slotOf(alarm.taskId));
+            }
+            session.dismissAll();
+            ringing = false;
+            notificationManager.cancel(NOTIFICATION_ID);
+            notificationManager.cancel(FOREGROUND_NOTIFICATION_ID);
+            
+            // The session is over: keep its trace in case the user reports a missed alarm
+            AlarmTrace.persist();
+            finishSession();
+        });
         
         // Stop vibration
         if (vibrator != null) {
             try {
                 vibrator.cancel();
-                Log.d(TAG, "Vibration stopped");
+                AlarmTrace.d(TAG, "Vibration stopped");
             } catch (Exception e) {
                 Log.e(TAG, "Error stopping vibration", e);
             }
         }
-        
-        // Cancel notifications
-        NotificationManager notificationManager = 
-            (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        notificationManager.cancel(NOTIFICATION_ID);
-        notificationManager.cancel(FOREGROUND_NOTIFICATION_ID);
-        
-        // Stop foreground service
-        stopForeground(true);
-        stopSelf();
+    }
+
+    /**
+     * Stops the service unless a newer alarm has been delivered since the last handled command;
+     * that alarm starts a fresh session when its work reaches the alarm thread.
+     */
+    private void finishSession() {
+        if (stopSelfResult(handledStartId)) {
+            stopForeground(true);
+        }
     }
 
     @Override
     public void onDestroy() {
-        Log.d(TAG, "AlarmSoundService destroyed");
+        AlarmTrace.d(TAG, "AlarmSoundService destroyed");
         
         stopAlarm();
         
-        // Release wake lock
-        if (wakeLock != null && wakeLock.isHeld()) {
-            wakeLock.release();
-        }
+        // Queued behind any pending start work, so nothing is prepared after this
+        AlarmExecutor.execute(() -> {
+            if (soundEngine != null) {
+                soundEngine.release();
+            }
+            
+            // Release wake lock
+            if (wakeLock != null && wakeLock.isHeld()) {
+                wakeLock.release();
+            }
+        });
         
         super.onDestroy();
     }
@@ -320,13 +583,15 @@ public class AlarmSoundService extends Service {
     }
 
     public static void startAlarmService(Context context, String taskId, String taskTitle, 
-                                       String taskTime, String dayKey, boolean hasCustomVoice) {
+                                       String taskTime, String dayKey, boolean hasCustomVoice,
+                                       long triggerTime) {
         Intent serviceIntent = new Intent(context, AlarmSoundService.class);
         serviceIntent.putExtra("taskId", taskId);
         serviceIntent.putExtra("taskTitle", taskTitle);
         serviceIntent.putExtra("taskTime", taskTime);
         serviceIntent.putExtra("dayKey", dayKey);
         serviceIntent.putExtra("hasCustomVoice", hasCustomVoice);
+        serviceIntent.putExtra("triggerTime", triggerTime);
         
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             context.startForegroundService(serviceIntent);
@@ -335,6 +600,23 @@ public class AlarmSoundService extends Service {
         }
     }
 
+    /**
+     * Silences one ringing task, or every task when {@code taskId} is null. Sent from
+     * notification actions, which may start the service.
+     */
+    public static void dismissAlarm(Context context, String taskId, long dismissedAt, boolean snoozed) {
+        Intent serviceIntent = new Intent(context, AlarmSoundService.class);
+        serviceIntent.setAction(ACTION_DISMISS);
+        serviceIntent.putExtra("taskId", taskId);
+        serviceIntent.putExtra("dismissedAt", dismissedAt);
+        serviceIntent.putExtra("snoozed", snoozed);
+        context.startService(serviceIntent);
+    }
+
+    public static boolean isRinging() {
+        return ringing;
+    }
+
     public static void stopAlarmService(Context context) {
         Intent serviceIntent = new Intent(context, AlarmSoundService.class);
         context.stopService(serviceIntent);
@@ -5,18 +5,103 @@ import android.content.Context;
 import android.content.Intent;
 import android.util.Log;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 public class AlarmStopReceiver extends BroadcastReceiver {
     private static final String TAG = "VK7Days_AlarmStop";
+    public static final String ACTION_DONE = "DONE_ALARM";
+    public static final String ACTION_SKIP = "SKIP_ALARM";
 
     @Override
     public void onReceive(Context context, Intent intent) {
         String action = intent.getAction();
-        Log.d(TAG, "Received action: " + action);
+        AlarmTrace.d(TAG, "Received action: %s", action);
+        
+        if (ACTION_DONE.equals(action) || ACTION_SKIP.equals(action)) {
+            complete(context, intent, ACTION_DONE.equals(action)
+                ? CompletionJournal.Status.DONE : CompletionJournal.Status.SKIPPED);
+            return;
+        }
+        
+        boolean snooze = "SNOOZE_ALARM".equals(action);
+        if (snooze || "STOP_ALARM".equals(action) || "DISMISS_ALARM".equals(action)) {
+            long dismissedAt = System.currentTimeMillis();
+            final PendingResult result = goAsync();
+            final Context appContext = context.getApplicationContext();
+            AlarmExecutor.execute(() -> {
+                try {
+                    if (snooze) {
+                        snooze(appContext, intent);
+                    }
+                    
+                    // The service silences the task, or the whole session when no task is given,
+                    // and records the dismissal for each alarm it silences
+                    AlarmSoundService.dismissAlarm(appContext, intent.getStringExtra("taskId"), dismissedAt, snooze);
+                    AlarmTrace.d(TAG, snooze ? "Alarm snoozed by user" : "Alarm dismissed by user");
+                } catch (IllegalStateException e) {
+                    // Not allowed to start the service from here; nothing is ringing to dismiss
+                    Log.w(TAG, "Could not reach alarm service", e);
+                } finally {
+                    result.finish();
+                }
+            });
+        }
+    }
+
+    /**
+     * Journals the task as done or skipped for the day and silences it. JS merges the journal
+     * on its next start, so the app is never launched for this.
+     */
+    private void complete(Context context, Intent intent, CompletionJournal.Status status) {
+        String taskId = intent.getStringExtra("taskId");
+        String baseTaskId = intent.getStringExtra("baseTaskId");
+        if (taskId == null || baseTaskId == null) {
+            Log.w(TAG, "Completion without a task");
+            return;
+        }
+        
+        long completedAt = System.currentTimeMillis();
+        long triggerTime = intent.getLongExtra("triggerTime", completedAt);
+        final PendingResult result = goAsync();
+        final Context appContext = context.getApplicationContext();
+        AlarmExecutor.execute(() -> {
+            try {
+                AlarmScheduler.getInstance(appContext).complete(baseTaskId, status, triggerTime);
+                AlarmTrace.event(status == CompletionJournal.Status.DONE ? AlarmTrace.DONE : AlarmTrace.SKIPPED,
+                    baseTaskId, triggerTime);
+                AlarmSoundService.dismissAlarm(appContext, taskId, completedAt, false);
+                AlarmTrace.d(TAG, "Task %s marked %s", baseTaskId, status);
+            } catch (IllegalStateException e) {
+                // Recorded, but nothing is ringing to silence
+                Log.w(TAG, "Could not reach alarm service", e);
+            } finally {
+                result.finish();
+            }
+        });
+    }
+
+    /** Reschedules the alarms carried by the action as one-shot snoozes; no WebView involved. */
+    private void snooze(Context context, Intent intent) {
+        byte[] alarms = intent.getByteArrayExtra("alarms");
+        if (alarms == null) {
+            Log.w(TAG, "Snooze without alarms");
+            return;
+        }
         
-        if ("STOP_ALARM".equals(action) || "DISMISS_ALARM".equals(action)) {
-            // Stop the alarm sound service
-            AlarmSoundService.stopAlarmService(context);
-            Log.d(TAG, "Alarm dismissed by user");
+        int minutes = intent.getIntExtra("snoozeMinutes", AlarmSettings.getSnoozeMinutes(context));
+        try {
+            List<AlarmEntry> snoozed = AlarmScheduler.getInstance(context)
+                .snooze(AlarmEntry.listFromBytes(alarms), TimeUnit.MINUTES.toMillis(minutes));
+            for (AlarmEntry entry : snoozed) {
+                AlarmTrace.event(AlarmTrace.SNOOZED, entry.getBaseTaskId(), minutes);
+            }
+            if (AlarmTrace.ENABLED) {
+                AlarmTrace.d(TAG, "Snoozed %d alarm(s) for %d min", snoozed.size(), minutes);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading snoozed alarms", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,138 @@
+package com.vk7days.taskscheduler;
+
+import android.content.Context;
+import android.os.Trace;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Tracing for the alarm pipeline, cheap enough for its hot paths:
+ *
+ * - {@link #event} records a structured event in a {@link TraceRing}, in every build. The
+ *   ring is saved to app storage when an alarm session ends and when the process crashes,
+ *   so the last few hundred events are still there when a user reports a missed alarm,
+ *   and the {@code exportTrace} plugin method hands them to JS.
+ * - {@link #d} is verbose logging, formatted only in debug builds ({@link #ENABLED}).
+ *   Release builds skip the formatting, but the caller still evaluates and boxes the
+ *   arguments, so calls that pass numbers check {@link #ENABLED} first.
+ * - {@link #begin}/{@link #end} mark systrace/Perfetto sections.
+ */
+public final class AlarmTrace {
+    private static final String TAG = "VK7Days_Trace";
+    private static final String TRACE_FILE = "alarm_trace.bin";
+    private static final int CAPACITY = 512;
+
+    /** Whether {@link #d} logs anything. */
+    public static final boolean ENABLED = BuildConfig.DEBUG;
+
+    // Event names; the value recorded with each is noted alongside
+    public static final String SCHEDULED = "scheduled";     // tasks reconciled
+    public static final String ARMED = "armed";             // trigger time armed, 0 when disarmed
+    public static final String RECEIVED = "received";       // trigger time
+    public static final String DUPLICATE = "duplicate";     // trigger time
+    public static final String RINGING = "ringing";         // trigger time
+    public static final String AUDIBLE = "audible";         // trigger time
+    public static final String DISMISSED = "dismissed";     // ringing tasks left
+    public static final String SNOOZED = "snoozed";         // snooze minutes
+    public static final String DONE = "done";               // trigger time
+    public static final String SKIPPED = "skipped";         // trigger time
+    public static final String SILENCED = "silenced";       // tasks left unanswered
+    public static final String RESTORED = "restored";       // occurrences recomputed
+    public static final String CRASH = "crash";             // 0
+
+    private static final TraceRing ring = new TraceRing(CAPACITY);
+    private static File file;
+    // Whether the previous process's events have been read back in front of this one's
+    private static boolean restored;
+
+    private AlarmTrace() {}
+
+    /**
+     * Enables saving the ring, and saves it if the process crashes. The previous process's
+     * events are read back on the first save or export. Idempotent; called wherever the
+     * pipeline starts.
+     */
+    public static synchronized void install(Context context) {
+        if (file != null) return;
+        file = new File(context.getApplicationContext().getFilesDir(), TRACE_FILE);
+
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, error) -> {
+            event(CRASH, error.getClass().getName(), 0);
+            persist();
+            if (previous != null) {
+                previous.uncaughtException(thread, error);
+            }
+        });
+    }
+
+    public static void event(String name, String subject, long value) {
+        ring.add(System.currentTimeMillis(), name, subject, value);
+    }
+
+    /** Saves the ring to app storage. Does file IO: alarm thread or crash handler only. */
+    public static synchronized void persist() {
+        if (file == null) return;
+        restore();
+        try {
+            ring.save(file);
+        } catch (IOException e) {
+            Log.e(TAG, "Error saving alarm trace", e);
+        }
+    }
+
+    /** The ring, including the saved events of earlier processes, as compact JSON. */
+    public static synchronized String export() {
+        restore();
+        return ring.toJson();
+    }
+
+    private static void restore() {
+        if (restored || file == null) return;
+        ring.prepend(TraceRing.load(file));
+        restored = true;
+    }
+
+    public static void begin(String section) {
+        Trace.beginSection(section);
+    }
+
+    public static void end() {
+        Trace.endSection();
+    }
+
+    // Fixed arities so a disabled call allocates no varargs array
+
+    public static void d(String tag, String message) {
+        if (ENABLED) {
+            Log.d(tag, message);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg) {
+        if (ENABLED) {
+            Log.d(tag, String.format(Locale.ROOT, format, arg));
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2) {
+        if (ENABLED) {
+            Log.d(tag, String.format(Locale.ROOT, format, arg1, arg2));
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (ENABLED) {
+            Log.d(tag, String.format(Locale.ROOT, format, arg1, arg2, arg3));
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if (ENABLED) {
+            Log.d(tag, String.format(Locale.ROOT, format, arg1, arg2, arg3, arg4));
+        }
+    }
+}
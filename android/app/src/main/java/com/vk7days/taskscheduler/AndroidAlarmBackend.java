@@ -0,0 +1,79 @@
+package com.vk7days.taskscheduler;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AlarmBackend} on AlarmManager. Every request code maps to a broadcast to
+ * {@link AlarmReceiver} with {@link AlarmScheduler#ACTION_ALARM}.
+ */
+public class AndroidAlarmBackend implements AlarmBackend {
+    // Android 12 stretches any setWindow() window shorter than this to this length
+    public static final long MIN_WINDOW_LENGTH_S = TimeUnit.MINUTES.toMillis(10);
+
+    private final Context context;
+    private final AlarmManager alarmManager;
+
+    public AndroidAlarmBackend(Context context) {
+        this.context = context;
+        this.alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+    }
+
+    @Override
+    public void setExact(int requestCode, long triggerTime) {
+        PendingIntent pendingIntent = alarmIntent(requestCode);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
+        } else {
+            alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
+        }
+    }
+
+    @Override
+    public void setWindow(int requestCode, long windowStart, long windowLength) {
+        alarmManager.setWindow(AlarmManager.RTC_WAKEUP, windowStart, windowLength, alarmIntent(requestCode));
+    }
+
+    @Override
+    public long minWindowLength() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.S ? MIN_WINDOW_LENGTH_S : 1;
+    }
+
+    @Override
+    public void cancel(int requestCode) {
+        alarmManager.cancel(alarmIntent(requestCode));
+    }
+
+    /**
+     * Cancels a per-task alarm registered by an older build, which used a bare intent without
+     * an action. Does nothing when no such alarm exists.
+     */
+    public void cancelLegacy(int requestCode) {
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+            context,
+            requestCode,
+            new Intent(context, AlarmReceiver.class),
+            PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE
+        );
+        if (pendingIntent != null) {
+            alarmManager.cancel(pendingIntent);
+            pendingIntent.cancel();
+        }
+    }
+
+    private PendingIntent alarmIntent(int requestCode) {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(AlarmScheduler.ACTION_ALARM);
+        return PendingIntent.getBroadcast(
+            context,
+            requestCode,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+}
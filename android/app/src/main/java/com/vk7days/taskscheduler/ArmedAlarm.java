@@ -0,0 +1,92 @@
+package com.vk7days.taskscheduler;
+
+/**
+ * The one alarm {@link AlarmScheduler} keeps registered: the head of its queue, exactly, or in
+ * batched mode one inexact window covering every alarm due soon after the head. Tracks what
+ * is armed so the backend is only called when the registration actually moves.
+ *
+ * Pure Java (no Android types) so the arming strategy can be tested and load-tested off-device.
+ */
+public class ArmedAlarm {
+    // Fixed request code for the single armed alarm, so it can never collide with another task
+    public static final int REQUEST_CODE = 7000;
+
+    // Armed-state markers: nothing registered, or unknown (fresh process or just fired)
+    private static final long NOT_ARMED = -1;
+    private static final long UNKNOWN = Long.MIN_VALUE;
+    // Window length marker for an exact registration
+    private static final long EXACT = -1;
+
+    private final AlarmBackend backend;
+    private long armedTime = UNKNOWN;
+    private long armedLength = EXACT;
+    private int backendCalls = 0;
+
+    public ArmedAlarm(AlarmBackend backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * Registers {@code next}, or disarms when it is null. Returns false without touching the
+     * backend when the registered alarm already fires at the right moment.
+     */
+    public boolean arm(AlarmEntry next) {
+        return register(next == null ? NOT_ARMED : next.triggerTime, EXACT);
+    }
+
+    /**
+     * Batched arming, for when exact alarms are not allowed or the user prefers battery life:
+     * one inexact wake-up for every alarm in {@code queue} due soon after the head. The window
+     * opens at the last alarm of that batch, so none rings early, and closes at the head's
+     * deadline, so none rings more than {@code toleranceMs} late.
+     *
+     * The window is never shorter than the backend's minimum (AlarmManager stretches shorter
+     * ones, and reads a length of 0 as exact), so the batch only takes alarms that leave that
+     * much room before the deadline. A tolerance below the minimum cannot be kept: the head
+     * then gets a minimum-length window of its own. Returns false when the same window is
+     * already registered.
+     */
+    public boolean armBatch(AlarmQueue queue, long toleranceMs) {
+        AlarmEntry head = queue.peek();
+        if (head == null) {
+            return register(NOT_ARMED, EXACT);
+        }
+        long minLength = Math.max(1, backend.minWindowLength());
+        long deadline = head.triggerTime + toleranceMs;
+        long windowStart = Math.max(head.triggerTime, queue.latestDueBy(deadline - minLength));
+        return register(windowStart, Math.max(deadline - windowStart, minLength));
+    }
+
+    private boolean register(long time, long length) {
+        if (time == armedTime && length == armedLength) {
+            return false;
+        }
+
+        backendCalls++;
+        if (time == NOT_ARMED) {
+            backend.cancel(REQUEST_CODE);
+        } else if (length == EXACT) {
+            // Re-setting the same request code replaces the previously armed alarm
+            backend.setExact(REQUEST_CODE, time);
+        } else {
+            backend.setWindow(REQUEST_CODE, time, length);
+        }
+        armedTime = time;
+        armedLength = time == NOT_ARMED ? EXACT : length;
+        return true;
+    }
+
+    /** Forgets what is armed, after it fired or the system may have dropped it. */
+    public void invalidate() {
+        armedTime = UNKNOWN;
+    }
+
+    public boolean isArmed() {
+        return armedTime != NOT_ARMED && armedTime != UNKNOWN;
+    }
+
+    /** Number of set/cancel calls made on the backend, for diagnostics. */
+    public int backendCalls() {
+        return backendCalls;
+    }
+}
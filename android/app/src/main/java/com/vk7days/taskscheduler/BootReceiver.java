@@ -3,25 +3,45 @@ package com.vk7days.taskscheduler;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.os.SystemClock;
 import android.util.Log;
 
+import java.time.ZoneId;
+
 public class BootReceiver extends BroadcastReceiver {
     private static final String TAG = "VK7Days_BootReceiver";
 
     @Override
     public void onReceive(Context context, Intent intent) {
         String action = intent.getAction();
-        Log.d(TAG, "Boot receiver triggered with action: " + action);
+        AlarmTrace.d(TAG, "Boot receiver triggered with action: %s", action);
 
-        if (Intent.ACTION_BOOT_COMPLETED.equals(action) || 
+        if (Intent.ACTION_BOOT_COMPLETED.equals(action) ||
             Intent.ACTION_MY_PACKAGE_REPLACED.equals(action) ||
-            Intent.ACTION_PACKAGE_REPLACED.equals(action)) {
-            
-            Log.d(TAG, "Device booted or app updated - alarms will be rescheduled when app opens");
-            
-            // Note: We don't reschedule alarms here because we need access to the app's data
-            // The app will reschedule all alarms when it's next opened
-            // This is the recommended approach for Capacitor apps
+            Intent.ACTION_PACKAGE_REPLACED.equals(action) ||
+            Intent.ACTION_TIME_CHANGED.equals(action) ||
+            Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+
+            // Re-arm straight from the native schedule journal on the alarm thread;
+            // no WebView or Capacitor needed
+            final PendingResult result = goAsync();
+            final Context appContext = context.getApplicationContext();
+            AlarmExecutor.execute(() -> {
+                long startedAt = SystemClock.elapsedRealtime();
+                try {
+                    AlarmScheduler scheduler = AlarmScheduler.getInstance(appContext);
+                    int changed = scheduler.restore(ZoneId.systemDefault());
+                    AlarmTrace.event(AlarmTrace.RESTORED, action, changed);
+                    if (AlarmTrace.ENABLED) {
+                        AlarmTrace.d(TAG, "Restored %d alarms (%d recomputed) in %dms", scheduler.size(), changed,
+                            SystemClock.elapsedRealtime() - startedAt);
+                    }
+                } catch (Exception e) {
+                    Log.e(TAG, "Error restoring alarms", e);
+                } finally {
+                    result.finish();
+                }
+            });
         }
     }
-}
\ No newline at end of file
+}
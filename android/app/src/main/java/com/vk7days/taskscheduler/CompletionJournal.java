@@ -0,0 +1,142 @@
+package com.vk7days.taskscheduler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tasks marked done or skipped from the alarm notification, recorded natively so the
+ * WebView never has to start for it. One record per task and local day, kept in a
+ * {@link RecordLog}: tapping twice just overwrites the day's record.
+ *
+ * JS pulls the unmerged records in one batch on its next start and acknowledges them. A
+ * skipped day's record outlives its acknowledgement until the day is over, because the
+ * scheduler still consults it when it re-derives occurrences after a reboot or clock change.
+ *
+ * Pure Java (no Android types) so it can be tested off-device.
+ */
+public class CompletionJournal {
+    public enum Status { DONE, SKIPPED }
+
+    /** One task's outcome on one local day. */
+    public static final class Record {
+        public final String key;
+        public final String taskId;
+        public final Status status;
+        // Epoch day of the occurrence, in the zone it was recorded in
+        public final long day;
+        public final long triggerTime;
+        public final long recordedAt;
+        final boolean merged;
+
+        Record(String key, String taskId, Status status, long day, long triggerTime, long recordedAt, boolean merged) {
+            this.key = key;
+            this.taskId = taskId;
+            this.status = status;
+            this.day = day;
+            this.triggerTime = triggerTime;
+            this.recordedAt = recordedAt;
+            this.merged = merged;
+        }
+    }
+
+    private final RecordLog log;
+
+    public CompletionJournal(File file) throws IOException {
+        this.log = new RecordLog(file);
+    }
+
+    static String keyOf(String taskId, long day) {
+        return taskId + "@" + day;
+    }
+
+    public static long dayOf(long time, ZoneId zone) {
+        return Instant.ofEpochMilli(time).atZone(zone).toLocalDate().toEpochDay();
+    }
+
+    /** Records {@code status} for the occurrence of {@code taskId} at {@code triggerTime}. */
+    public synchronized Record record(String taskId, Status status, long triggerTime, long recordedAt, ZoneId zone)
+            throws IOException {
+        long day = dayOf(triggerTime, zone);
+        Record record = new Record(keyOf(taskId, day), taskId, status, day, triggerTime, recordedAt, false);
+        log.put(record.key, encode(record));
+        log.flush();
+        return record;
+    }
+
+    /** True when {@code taskId} was skipped for the local day {@code day}. */
+    public synchronized boolean isSkipped(String taskId, long day) {
+        byte[] value = log.get(keyOf(taskId, day));
+        return value != null && value[0] == Status.SKIPPED.ordinal();
+    }
+
+    /** Records JS has not acknowledged yet, in the order they were first made. */
+    public synchronized List<Record> pending() throws IOException {
+        List<Record> records = new ArrayList<>();
+        for (Map.Entry<String, byte[]> entry : log.entries().entrySet()) {
+            Record record = decode(entry.getKey(), entry.getValue());
+            if (!record.merged) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Marks {@code keys} as merged by JS. Records from before {@code today} are dropped; the
+     * rest stay, hidden from {@link #pending}, until a later call finds their day over.
+     */
+    public synchronized void acknowledge(Collection<String> keys, long today) throws IOException {
+        for (String key : keys) {
+            byte[] value = log.get(key);
+            if (value != null && !decode(key, value).merged) {
+                value = value.clone();
+                value[1] = 1;
+                log.put(key, value);
+            }
+        }
+        for (Map.Entry<String, byte[]> entry : log.entries().entrySet()) {
+            Record record = decode(entry.getKey(), entry.getValue());
+            if (record.merged && record.day < today) {
+                log.delete(record.key);
+            }
+        }
+        log.flush();
+    }
+
+    public synchronized int size() {
+        return log.size();
+    }
+
+    // [status:1][merged:1][day:8][triggerTime:8][recordedAt:8][taskId]
+    private static byte[] encode(Record record) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(32 + record.taskId.length());
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(record.status.ordinal());
+        out.writeBoolean(record.merged);
+        out.writeLong(record.day);
+        out.writeLong(record.triggerTime);
+        out.writeLong(record.recordedAt);
+        out.writeUTF(record.taskId);
+        return buffer.toByteArray();
+    }
+
+    private static Record decode(String key, byte[] value) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+        Status status = Status.values()[in.readUnsignedByte()];
+        boolean merged = in.readBoolean();
+        long day = in.readLong();
+        long triggerTime = in.readLong();
+        long recordedAt = in.readLong();
+        return new Record(key, in.readUTF(), status, day, triggerTime, recordedAt, merged);
+    }
+}
@@ -0,0 +1,37 @@
+package com.vk7days.taskscheduler;
+
+import android.app.AlarmManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+/**
+ * Sent on Android 12+ when the user grants the exact-alarm permission. Refreshes the cached
+ * permission state, which re-arms exactly now that it is allowed and tells JS if it is
+ * listening. Revoking the permission kills the app instead,
+ * and the next launch probes afresh.
+ */
+public class ExactAlarmPermissionReceiver extends BroadcastReceiver {
+    private static final String TAG = "VK7Days_PermissionReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!AlarmManager.ACTION_SCHEDULE_EXACT_ALARM_PERMISSION_STATE_CHANGED.equals(intent.getAction())) {
+            return;
+        }
+        AlarmTrace.d(TAG, "Exact alarm permission changed");
+
+        final PendingResult result = goAsync();
+        final Context appContext = context.getApplicationContext();
+        AlarmExecutor.execute(() -> {
+            try {
+                MainActivity.AlarmSchedulerPlugin.refreshPermissions(appContext);
+            } catch (Exception e) {
+                Log.e(TAG, "Error re-arming after permission change", e);
+            } finally {
+                result.finish();
+            }
+        });
+    }
+}
@@ -0,0 +1,143 @@
+package com.vk7days.taskscheduler;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Which alarm occurrences have already rung, so a task fires once per occurrence even when
+ * {@link AlarmReceiver} is handed the same occurrence more than once.
+ *
+ * An occurrence is a task id plus its trigger minute, folded into one 64-bit fingerprint.
+ * Fingerprints are bucketed by day; only the newest day and the one before it are kept, so
+ * lookups are O(1) and the ledger stays the size of two days of alarms however long the app
+ * runs. The ledger is small enough to rewrite whole on every claim.
+ *
+ * Pure Java (no Android types) so it can be tested off-device.
+ */
+public class FiredLedger {
+    private static final int MAGIC = 0x564B3746; // "VK7F"
+    private static final int VERSION = 1;
+
+    private static final long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+    // Buckets kept: the newest day and the previous one, so occurrences around midnight match
+    private static final int DAYS_KEPT = 2;
+
+    private final File snapshot;
+    private final long[] bucketDays = new long[DAYS_KEPT];
+    private final List<Set<Long>> buckets = new ArrayList<>(DAYS_KEPT);
+
+    public FiredLedger(File snapshot) {
+        this.snapshot = snapshot;
+        for (int i = 0; i < DAYS_KEPT; i++) {
+            bucketDays[i] = Long.MIN_VALUE;
+            buckets.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Records that the occurrence of {@code taskId} at {@code triggerTime} is ringing. Returns
+     * true for the first claim and false if it has already been claimed, or is so old that
+     * its day has expired.
+     */
+    public synchronized boolean claim(String taskId, long triggerTime) {
+        long minute = Math.floorDiv(triggerTime, MINUTE_MS);
+        long day = Math.floorDiv(triggerTime, DAY_MS);
+        Set<Long> bucket = bucketFor(day, true);
+        return bucket != null && bucket.add(fingerprint(taskId, minute));
+    }
+
+    public synchronized boolean hasFired(String taskId, long triggerTime) {
+        Set<Long> bucket = bucketFor(Math.floorDiv(triggerTime, DAY_MS), false);
+        return bucket != null && bucket.contains(fingerprint(taskId, Math.floorDiv(triggerTime, MINUTE_MS)));
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (Set<Long> bucket : buckets) {
+            size += bucket.size();
+        }
+        return size;
+    }
+
+    /**
+     * The bucket for {@code day}. When {@code create} is set a newer day takes over the oldest
+     * slot, expiring it; days older than everything kept have no bucket.
+     */
+    private Set<Long> bucketFor(long day, boolean create) {
+        int slot = (int) Math.floorMod(day, (long) DAYS_KEPT);
+        if (bucketDays[slot] == day) {
+            return buckets.get(slot);
+        }
+        if (!create || day < bucketDays[slot]) {
+            return null;
+        }
+        for (long kept : bucketDays) {
+            if (kept != Long.MIN_VALUE && day <= kept - DAYS_KEPT) {
+                return null; // expired: newer days already own the slots
+            }
+        }
+        bucketDays[slot] = day;
+        Set<Long> bucket = buckets.get(slot);
+        bucket.clear();
+        return bucket;
+    }
+
+    /** FNV-1a over the task id, mixed with the trigger minute. */
+    static long fingerprint(String taskId, long minute) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < taskId.length(); i++) {
+            hash ^= taskId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= minute * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 31);
+    }
+
+    public synchronized void save() throws IOException {
+        File tmp = new File(snapshot.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeByte(DAYS_KEPT);
+            for (int i = 0; i < DAYS_KEPT; i++) {
+                out.writeLong(bucketDays[i]);
+                out.writeInt(buckets.get(i).size());
+                for (long fingerprint : buckets.get(i)) {
+                    out.writeLong(fingerprint);
+                }
+            }
+        }
+        if (!tmp.renameTo(snapshot)) {
+            throw new IOException("Failed to replace " + snapshot);
+        }
+    }
+
+    /** Loads the saved ledger, if any; an unreadable snapshot leaves the ledger empty. */
+    public synchronized void load() throws IOException {
+        if (!snapshot.exists()) return;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(snapshot))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readByte() != DAYS_KEPT) {
+                return;
+            }
+            for (int i = 0; i < DAYS_KEPT; i++) {
+                bucketDays[i] = in.readLong();
+                Set<Long> bucket = buckets.get(i);
+                bucket.clear();
+                int count = in.readInt();
+                for (int j = 0; j < count; j++) {
+                    bucket.add(in.readLong());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.vk7days.taskscheduler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of non-negative millisecond delays, in the style of HdrHistogram:
+ * values below 16 get exact buckets, and every power of two above that is split into
+ * {@link #SUB_BUCKETS} linear sub-buckets, so any recorded value is reported within
+ * 12.5% of its true value. Recording is a single atomic increment, no locks.
+ *
+ * Covers 0 to roughly 2^44 ms (over 500 years); larger values land in the top bucket.
+ *
+ * Pure Java so it can be exercised off-device.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int MAX_EXPONENT = 44;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long valueMs) {
+        counts.incrementAndGet(indexOf(Math.max(0, valueMs)));
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Value at {@code percentile} (0-100], reported as the upper bound of the bucket it falls
+     * in. Returns 0 when nothing has been recorded.
+     */
+    public long percentile(double percentile) {
+        long total = count();
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(BUCKET_COUNT - 1);
+    }
+
+    public long max() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) {
+                return upperBoundOf(i);
+            }
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /** Writes the non-empty buckets as (index, count) pairs. */
+    public void writeTo(DataOutput out) throws IOException {
+        int used = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts.get(i) > 0) used++;
+        }
+        out.writeShort(used);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            if (count > 0) {
+                out.writeShort(i);
+                out.writeLong(count);
+            }
+        }
+    }
+
+    /** Adds the buckets written by {@link #writeTo} to this histogram. */
+    public void readFrom(DataInput in) throws IOException {
+        int used = in.readUnsignedShort();
+        for (int i = 0; i < used; i++) {
+            int index = in.readUnsignedShort();
+            long count = in.readLong();
+            if (index >= BUCKET_COUNT || count < 0) {
+                throw new IOException("Corrupt histogram bucket " + index);
+            }
+            counts.addAndGet(index, count);
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int sub = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+}
@@ -0,0 +1,88 @@
+package com.vk7days.taskscheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decides what {@link MainActivity} does on create and resume, and which of it may wait until
+ * after the first frame. Only work the launch genuinely depends on is critical; everything else
+ * is deferred to the alarm thread. Alarm-only work (screen-on, stopping the sound service) is
+ * skipped entirely unless an alarm is actually involved.
+ *
+ * Pure Java so the launch path can be asserted in JVM tests.
+ */
+public final class LaunchPlan {
+    public enum Step {
+        /** registerPlugin, before super.onCreate so the bridge sees the plugin */
+        REGISTER_PLUGINS,
+        /** FLAG_KEEP_SCREEN_ON while an alarm is showing */
+        KEEP_SCREEN_ON,
+        /** Queue the "opened" event for JS */
+        HANDLE_ALARM_INTENT,
+        /** Silence the ringing alarm now that the user is in the app */
+        STOP_ALARM_SERVICE,
+        /** The app's reminder notification channel */
+        CREATE_CHANNELS,
+        /** Re-read permissions the user may have changed in Settings while we were away */
+        REFRESH_PERMISSIONS
+    }
+
+    private final List<Step> critical;
+    private final List<Step> deferred;
+
+    private LaunchPlan(List<Step> critical, List<Step> deferred) {
+        this.critical = Collections.unmodifiableList(critical);
+        this.deferred = Collections.unmodifiableList(deferred);
+    }
+
+    /**
+     * @param fromAlarm the activity was opened from an alarm notification
+     * @param alarmRinging the alarm sound service has a ringing session
+     */
+    public static LaunchPlan forCreate(boolean fromAlarm, boolean alarmRinging) {
+        List<Step> critical = new ArrayList<>();
+        critical.add(Step.REGISTER_PLUGINS);
+        if (fromAlarm || alarmRinging) {
+            critical.add(Step.KEEP_SCREEN_ON);
+        }
+        if (fromAlarm) {
+            critical.add(Step.HANDLE_ALARM_INTENT);
+        }
+
+        List<Step> deferred = new ArrayList<>();
+        deferred.add(Step.CREATE_CHANNELS);
+        return new LaunchPlan(critical, deferred);
+    }
+
+    /** onNewIntent: a notification tap while the activity already exists. */
+    public static LaunchPlan forNewIntent(boolean fromAlarm) {
+        List<Step> critical = new ArrayList<>();
+        if (fromAlarm) {
+            critical.add(Step.KEEP_SCREEN_ON);
+            critical.add(Step.HANDLE_ALARM_INTENT);
+        }
+        return new LaunchPlan(critical, new ArrayList<>());
+    }
+
+    public static LaunchPlan forResume(boolean alarmRinging) {
+        List<Step> critical = new ArrayList<>();
+        if (alarmRinging) {
+            critical.add(Step.KEEP_SCREEN_ON);
+            critical.add(Step.STOP_ALARM_SERVICE);
+        }
+        List<Step> deferred = new ArrayList<>();
+        deferred.add(Step.REFRESH_PERMISSIONS);
+        return new LaunchPlan(critical, deferred);
+    }
+
+    /** Steps to run inline, in order. */
+    public List<Step> critical() {
+        return critical;
+    }
+
+    /** Steps that can run off the main thread once the launch is under way. */
+    public List<Step> deferred() {
+        return deferred;
+    }
+}
@@ -4,7 +4,6 @@ import android.Manifest;
 import android.app.AlarmManager;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
@@ -12,12 +11,32 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.provider.Settings;
+import android.util.Base64;
 import android.util.Log;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+
 import com.getcapacitor.BridgeActivity;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
@@ -29,54 +48,121 @@ public class MainActivity extends BridgeActivity {
     private static final int BATTERY_OPTIMIZATION_REQUEST_CODE = 1002;
     private static final int EXACT_ALARM_PERMISSION_REQUEST_CODE = 1003;
     
+    // Launch timings on the uptime clock, for getLaunchMetrics
+    private static volatile long createStartedAt;
+    private static volatile long createFinishedAt;
+    private static volatile long fullyDrawnAt;
+    
     @Override
     public void onCreate(Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        
-        // Keep screen on for alarms
-        getWindow().addFlags(android.view.WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
-        
-        // Create notification channel for Android 8.0+
-        createNotificationChannel();
-        
-        // Handle intent from alarm notification
-        handleAlarmIntent(getIntent());
-        
-        // Register the alarm scheduling plugin
-        registerPlugin(AlarmSchedulerPlugin.class);
+        createStartedAt = SystemClock.uptimeMillis();
+        Trace.beginSection("VK7Days:onCreate");
+        try {
+            Intent intent = getIntent();
+            LaunchPlan plan = LaunchPlan.forCreate(isFromAlarm(intent), AlarmSoundService.isRinging());
+            
+            // Critical steps run before super.onCreate: registerPlugin must, the rest are cheap
+            // and independent of the bridge
+            runSteps(plan, intent);
+            
+            Trace.beginSection("VK7Days:BridgeActivity.onCreate");
+            try {
+                super.onCreate(savedInstanceState);
+            } finally {
+                Trace.endSection();
+            }
+        } finally {
+            Trace.endSection();
+            createFinishedAt = SystemClock.uptimeMillis();
+        }
     }
     
     @Override
     protected void onNewIntent(Intent intent) {
         super.onNewIntent(intent);
-        handleAlarmIntent(intent);
+        runSteps(LaunchPlan.forNewIntent(isFromAlarm(intent)), intent);
     }
     
     @Override
     public void onResume() {
         super.onResume();
-        // Stop any playing alarm when app becomes active
-        AlarmSoundService.stopAlarmService(this);
+        // Stop the alarm when the app becomes active, if one is ringing
+        runSteps(LaunchPlan.forResume(AlarmSoundService.isRinging()), getIntent());
+    }
+    
+    private static boolean isFromAlarm(Intent intent) {
+        return intent != null && intent.getBooleanExtra("fromAlarm", false);
+    }
+    
+    /** Runs the plan's critical steps inline and hands the deferred ones to the alarm thread. */
+    private void runSteps(LaunchPlan plan, Intent intent) {
+        for (LaunchPlan.Step step : plan.critical()) {
+            runStep(step, intent);
+        }
+        for (LaunchPlan.Step step : plan.deferred()) {
+            AlarmExecutor.execute(() -> runStep(step, intent));
+        }
+    }
+    
+    private void runStep(LaunchPlan.Step step, Intent intent) {
+        Trace.beginSection("VK7Days:" + step);
+        try {
+            switch (step) {
+                case REGISTER_PLUGINS:
+                    // Register the alarm scheduling and schedule storage plugins
+                    registerPlugin(AlarmSchedulerPlugin.class);
+                    registerPlugin(ScheduleStorePlugin.class);
+                    break;
+                case KEEP_SCREEN_ON:
+                    // Keep screen on for alarms
+                    getWindow().addFlags(android.view.WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+                    break;
+                case HANDLE_ALARM_INTENT:
+                    // Handle intent from alarm notification
+                    handleAlarmIntent(intent);
+                    break;
+                case STOP_ALARM_SERVICE:
+                    AlarmSoundService.stopAlarmService(this);
+                    break;
+                case CREATE_CHANNELS:
+                    // Create notification channel for Android 8.0+
+                    createNotificationChannel();
+                    break;
+                case REFRESH_PERMISSIONS:
+                    AlarmSchedulerPlugin.refreshPermissions(getApplicationContext());
+                    break;
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
+    
+    /** Called once the web UI has rendered; marks the end of the launch for the system and us. */
+    void onFullyDrawn() {
+        if (fullyDrawnAt != 0) return;
+        fullyDrawnAt = SystemClock.uptimeMillis();
+        reportFullyDrawn();
+        if (AlarmTrace.ENABLED) {
+            AlarmTrace.d(TAG, "Fully drawn %dms after process start, onCreate took %dms",
+                fullyDrawnAt - Process.getStartUptimeMillis(), createFinishedAt - createStartedAt);
+        }
     }
     
     private void handleAlarmIntent(Intent intent) {
         if (intent != null && intent.getBooleanExtra("fromAlarm", false)) {
-            Log.d(TAG, "App opened from alarm notification");
-            
-            String taskId = intent.getStringExtra("taskId");
-            String taskTitle = intent.getStringExtra("taskTitle");
-            String taskTime = intent.getStringExtra("taskTime");
-            String dayKey = intent.getStringExtra("dayKey");
-            boolean hasCustomVoice = intent.getBooleanExtra("hasCustomVoice", false);
+            AlarmTrace.d(TAG, "App opened from alarm notification");
             
-            // Send data to JavaScript
-            if (getBridge() != null) {
-                getBridge().eval(
-                    "window.handleAlarmFromBackground && window.handleAlarmFromBackground(" +
-                    "'" + taskId + "', '" + taskTitle + "', '" + taskTime + "', '" + dayKey + "', " + hasCustomVoice +
-                    ");", null
-                );
-            }
+            // Queued natively and delivered once the web layer is listening
+            JSObject event = new JSObject();
+            event.put("type", "opened");
+            event.put("taskId", intent.getStringExtra("taskId"));
+            event.put("taskTitle", intent.getStringExtra("taskTitle"));
+            event.put("taskTime", intent.getStringExtra("taskTime"));
+            event.put("dayKey", intent.getStringExtra("dayKey"));
+            event.put("hasCustomVoice", intent.getBooleanExtra("hasCustomVoice", false));
+            event.put("triggerTime", intent.getLongExtra("triggerTime", 0L));
+            event.put("at", System.currentTimeMillis());
+            AlarmSchedulerPlugin.postEvent(event);
         }
     }
     
@@ -106,10 +192,11 @@ public class MainActivity extends BridgeActivity {
         
         if (requestCode == NOTIFICATION_PERMISSION_REQUEST_CODE) {
             if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
-                Log.d(TAG, "Notification permission granted");
+                AlarmTrace.d(TAG, "Notification permission granted");
             } else {
                 Log.w(TAG, "Notification permission denied");
             }
+            refreshPermissionsLater();
         }
     }
     
@@ -117,82 +204,127 @@ public class MainActivity extends BridgeActivity {
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
         
-        if (requestCode == BATTERY_OPTIMIZATION_REQUEST_CODE) {
-            PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
-            if (powerManager.isIgnoringBatteryOptimizations(getPackageName())) {
-                Log.d(TAG, "Battery optimization exemption granted");
-            } else {
-                Log.w(TAG, "Battery optimization exemption denied");
-            }
-        } else if (requestCode == EXACT_ALARM_PERMISSION_REQUEST_CODE) {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                AlarmManager alarmManager = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
-                if (alarmManager.canScheduleExactAlarms()) {
-                    Log.d(TAG, "Exact alarm permission granted");
-                } else {
-                    Log.w(TAG, "Exact alarm permission denied");
-                }
-            }
+        if (requestCode == BATTERY_OPTIMIZATION_REQUEST_CODE || requestCode == EXACT_ALARM_PERMISSION_REQUEST_CODE) {
+            // The settings screen may have changed either permission; the refresh logs what did
+            refreshPermissionsLater();
         }
     }
     
+    private void refreshPermissionsLater() {
+        Context context = getApplicationContext();
+        AlarmExecutor.execute(() -> AlarmSchedulerPlugin.refreshPermissions(context));
+    }
+    
     // Plugin for scheduling background alarms
     @CapacitorPlugin(name = "AlarmScheduler")
     public static class AlarmSchedulerPlugin extends Plugin {
+        static final String ALARM_EVENTS = "alarmEvents";
+        static final String PERMISSIONS_CHANGED = "permissionsChanged";
+        
+        // Alarm events wait here, across plugin instances, until the web layer listens for them
+        private static final AlarmEventQueue<JSObject> pendingEvents = new AlarmEventQueue<>(32);
+        private static volatile AlarmSchedulerPlugin loaded;
+        
+        // AlarmManager work for batch calls runs here so the plugin thread stays free
+        private final ExecutorService alarmWorker = Executors.newSingleThreadExecutor();
+        
+        /**
+         * Queues an alarm event for JS. Events are delivered in one batch as
+         * {@code alarmEvents: {events: [...]}} once a listener is attached, so none are lost
+         * while the WebView is still loading.
+         */
+        static void postEvent(JSObject event) {
+            pendingEvents.offer(event);
+            AlarmSchedulerPlugin plugin = loaded;
+            if (plugin != null) {
+                plugin.flushEvents();
+            }
+        }
+        
+        /**
+         * Tells a listening web layer that an alarm has just fired, so the open app shows it
+         * without polling. Dropped when nothing is listening: the ringing notification covers
+         * that case and its tap arrives as an "opened" event.
+         */
+        static void postFiredEvent(String taskId, String taskTitle, String taskTime, String dayKey,
+                                   boolean hasCustomVoice, long triggerTime) {
+            AlarmSchedulerPlugin plugin = loaded;
+            if (plugin == null || !plugin.hasListeners(ALARM_EVENTS)) return;
+            
+            JSObject event = new JSObject();
+            event.put("type", "fired");
+            event.put("taskId", taskId);
+            event.put("taskTitle", taskTitle);
+            event.put("taskTime", taskTime);
+            event.put("dayKey", dayKey);
+            event.put("hasCustomVoice", hasCustomVoice);
+            event.put("triggerTime", triggerTime);
+            event.put("at", System.currentTimeMillis());
+            postEvent(event);
+        }
+        
+        @Override
+        public void load() {
+            loaded = this;
+        }
+        
+        @Override
+        @PluginMethod(returnType = PluginMethod.RETURN_NONE)
+        public void addListener(PluginCall call) {
+            super.addListener(call);
+            if (ALARM_EVENTS.equals(call.getString("eventName"))) {
+                flushEvents();
+            }
+        }
+        
+        private void flushEvents() {
+            // Retained until consumed: nothing leaves the queue without a listener to take it
+            if (!hasListeners(ALARM_EVENTS)) return;
+            List<JSObject> batch = pendingEvents.drain();
+            if (batch.isEmpty()) return;
+            
+            if (AlarmTrace.ENABLED) {
+                AlarmTrace.d(TAG, "Delivering %d alarm event(s) to JS", batch.size());
+            }
+            notifyListeners(ALARM_EVENTS, new JSObject().put("events", new JSArray(batch)));
+        }
         
         @PluginMethod
         public void scheduleAlarm(PluginCall call) {
             String taskId = call.getString("taskId");
-            String taskTitle = call.getString("taskTitle");
             String taskTime = call.getString("taskTime");
             String dayKey = call.getString("dayKey");
-            boolean hasCustomVoice = call.getBoolean("hasCustomVoice", false);
-            long triggerTime = call.getLong("triggerTime");
+            long triggerTime = call.getLong("triggerTime", 0L);
             
-            if (taskId == null || triggerTime == 0) {
+            if (taskId == null) {
                 call.reject("Missing required parameters");
                 return;
             }
             
+            // Trigger time is resolved natively from day + time unless the caller pins one
+            if (triggerTime == 0) {
+                WeeklyRecurrence recurrence = WeeklyRecurrence.of(dayKey, taskTime);
+                if (recurrence == null) {
+                    call.reject("Invalid day or time");
+                    return;
+                }
+                triggerTime = recurrence.nextAfter(System.currentTimeMillis(), ZoneId.systemDefault());
+            }
+            
             try {
-                Context context = getContext();
-                AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-                
-                // Create intent for the alarm receiver
-                Intent alarmIntent = new Intent(context, AlarmReceiver.class);
-                alarmIntent.putExtra("taskId", taskId);
-                alarmIntent.putExtra("taskTitle", taskTitle);
-                alarmIntent.putExtra("taskTime", taskTime);
-                alarmIntent.putExtra("dayKey", dayKey);
-                alarmIntent.putExtra("hasCustomVoice", hasCustomVoice);
+                AlarmScheduler.getInstance(getContext()).schedule(new AlarmEntry(
+                    taskId,
+                    call.getString("taskTitle"),
+                    taskTime,
+                    dayKey,
+                    call.getBoolean("hasCustomVoice", false),
+                    triggerTime
+                ));
                 
-                // Create unique request code from task ID
-                int requestCode = Math.abs(taskId.hashCode());
-                
-                PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                    context,
-                    requestCode,
-                    alarmIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                );
-                
-                // Schedule exact alarm
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                    alarmManager.setExactAndAllowWhileIdle(
-                        AlarmManager.RTC_WAKEUP,
-                        triggerTime,
-                        pendingIntent
-                    );
-                } else {
-                    alarmManager.setExact(
-                        AlarmManager.RTC_WAKEUP,
-                        triggerTime,
-                        pendingIntent
-                    );
+                if (AlarmTrace.ENABLED) {
+                    AlarmTrace.d(TAG, "Scheduled alarm for task: %s at %d", taskId, triggerTime);
                 }
-                
-                Log.d(TAG, "Scheduled alarm for task: " + taskId + " at " + triggerTime);
-                call.resolve();
+                call.resolve(new JSObject().put("triggerTime", triggerTime));
                 
             } catch (Exception e) {
                 Log.e(TAG, "Error scheduling alarm", e);
@@ -200,6 +332,63 @@ public class MainActivity extends BridgeActivity {
             }
         }
         
+        @PluginMethod
+        public void reconcile(PluginCall call) {
+            JSArray alarms = call.getArray("alarms");
+            
+            if (alarms == null) {
+                call.reject("Missing alarms parameter");
+                return;
+            }
+            
+            Context context = getContext();
+            alarmWorker.execute(() -> {
+                long startedAt = SystemClock.elapsedRealtime();
+                List<AlarmEntry> desired = new ArrayList<>(alarms.length());
+                
+                for (int i = 0; i < alarms.length(); i++) {
+                    // Trigger time 0 lets the scheduler resolve new and edited tasks itself
+                    AlarmEntry entry = AlarmEntry.fromJson(alarms.optJSONObject(i));
+                    if (entry != null) {
+                        desired.add(entry);
+                    }
+                }
+                
+                try {
+                    AlarmScheduler scheduler = AlarmScheduler.getInstance(context);
+                    int callsBefore = scheduler.getAlarmManagerCalls();
+                    AlarmQueue.Delta delta = scheduler.reconcile(desired);
+                    int alarmManagerCalls = scheduler.getAlarmManagerCalls() - callsBefore;
+                    
+                    JSObject triggerTimes = new JSObject();
+                    for (List<AlarmEntry> entries : Arrays.asList(delta.added, delta.updated, delta.unchanged)) {
+                        for (AlarmEntry entry : entries) {
+                            triggerTimes.put(entry.taskId, entry.triggerTime);
+                        }
+                    }
+                    
+                    long elapsedMs = SystemClock.elapsedRealtime() - startedAt;
+                    if (AlarmTrace.ENABLED) {
+                        AlarmTrace.d(TAG, "Reconciled %d alarms (%d unchanged), %d AlarmManager calls in %dms",
+                            desired.size(), delta.unchanged.size(), alarmManagerCalls, elapsedMs);
+                    }
+                    call.resolve(new JSObject()
+                        .put("triggerTimes", triggerTimes)
+                        .put("added", delta.added.size())
+                        .put("updated", delta.updated.size())
+                        .put("removed", delta.removed.size())
+                        .put("unchanged", delta.unchanged.size())
+                        .put("invalid", new JSArray(delta.invalid))
+                        .put("alarmManagerCalls", alarmManagerCalls)
+                        .put("batchToleranceMs", scheduler.batchToleranceMs())
+                        .put("elapsedMs", elapsedMs));
+                } catch (Exception e) {
+                    Log.e(TAG, "Error reconciling alarms", e);
+                    call.reject("Failed to reconcile alarms: " + e.getMessage());
+                }
+            });
+        }
+        
         @PluginMethod
         public void cancelAlarm(PluginCall call) {
             String taskId = call.getString("taskId");
@@ -210,23 +399,9 @@ public class MainActivity extends BridgeActivity {
             }
             
             try {
-                Context context = getContext();
-                AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-                
-                Intent alarmIntent = new Intent(context, AlarmReceiver.class);
-                int requestCode = Math.abs(taskId.hashCode());
-                
-                PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                    context,
-                    requestCode,
-                    alarmIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                );
-                
-                alarmManager.cancel(pendingIntent);
-                pendingIntent.cancel();
+                AlarmScheduler.getInstance(getContext()).cancel(taskId);
                 
-                Log.d(TAG, "Cancelled alarm for task: " + taskId);
+                AlarmTrace.d(TAG, "Cancelled alarm for task: %s", taskId);
                 call.resolve();
                 
             } catch (Exception e) {
@@ -236,34 +411,315 @@ public class MainActivity extends BridgeActivity {
         }
         
         @PluginMethod
-        public void checkPermissions(PluginCall call) {
+        public void reportFullyDrawn(PluginCall call) {
+            MainActivity activity = (MainActivity) getActivity();
+            if (activity != null) {
+                activity.runOnUiThread(activity::onFullyDrawn);
+            }
+            call.resolve();
+        }
+        
+        @PluginMethod
+        public void getLaunchMetrics(PluginCall call) {
+            JSObject result = new JSObject();
+            long processStartedAt = Process.getStartUptimeMillis();
+            result.put("processStartToCreateMs", createStartedAt - processStartedAt);
+            result.put("createMs", createFinishedAt - createStartedAt);
+            if (fullyDrawnAt != 0) {
+                result.put("fullyDrawnMs", fullyDrawnAt - processStartedAt);
+            }
+            call.resolve(result);
+        }
+        
+        @PluginMethod
+        public void setAlarmOptions(PluginCall call) {
+            Context context = getContext();
+            Integer snoozeMinutes = call.getInt("snoozeMinutes");
+            Integer autoSilenceMinutes = call.getInt("autoSilenceMinutes");
+            Integer batchToleranceMinutes = call.getInt("batchToleranceMinutes");
+            Boolean batterySaver = call.getBoolean("batterySaver");
+            Boolean spokenReminders = call.getBoolean("spokenReminders");
+            
+            if (snoozeMinutes != null && !AlarmSettings.setSnoozeMinutes(context, snoozeMinutes)) {
+                call.reject("snoozeMinutes must be one of " + Arrays.toString(AlarmSettings.SNOOZE_CHOICES));
+                return;
+            }
+            if (autoSilenceMinutes != null && !AlarmSettings.setAutoSilenceMinutes(context, autoSilenceMinutes)) {
+                call.reject("autoSilenceMinutes must be between 1 and " + AlarmSettings.MAX_AUTO_SILENCE_MINUTES);
+                return;
+            }
+            if (batchToleranceMinutes != null && !AlarmSettings.setBatchToleranceMinutes(context, batchToleranceMinutes)) {
+                call.reject("batchToleranceMinutes must be between " + AlarmSettings.minBatchToleranceMinutes()
+                    + " and " + AlarmSettings.MAX_BATCH_TOLERANCE_MINUTES);
+                return;
+            }
+            if (batterySaver != null) {
+                AlarmSettings.setBatterySaver(context, batterySaver);
+            }
+            if (spokenReminders != null) {
+                AlarmSettings.setSpokenReminders(context, spokenReminders);
+            }
+            if (batchToleranceMinutes != null || batterySaver != null) {
+                alarmWorker.execute(() -> AlarmScheduler.getInstance(context).rearm());
+            }
+            getAlarmOptions(call);
+        }
+        
+        @PluginMethod
+        public void getAlarmOptions(PluginCall call) {
+            Context context = getContext();
+            call.resolve(new JSObject()
+                .put("snoozeMinutes", AlarmSettings.getSnoozeMinutes(context))
+                .put("autoSilenceMinutes", AlarmSettings.getAutoSilenceMinutes(context))
+                .put("batterySaver", AlarmSettings.isBatterySaver(context))
+                .put("batchToleranceMinutes", AlarmSettings.getBatchToleranceMinutes(context))
+                .put("spokenReminders", AlarmSettings.isSpokenReminders(context)));
+        }
+        
+        @PluginMethod
+        public void getUpcoming(PluginCall call) {
+            int count = Math.max(1, Math.min(call.getInt("count", 10), 500));
+            long after = call.getLong("after", System.currentTimeMillis());
+            
+            Context context = getContext();
+            alarmWorker.execute(() -> {
+                JSArray occurrences = new JSArray();
+                for (AlarmEntry entry : AlarmScheduler.getInstance(context).upcoming(after, count)) {
+                    occurrences.put(new JSObject()
+                        .put("taskId", entry.getBaseTaskId())
+                        .put("taskTitle", entry.taskTitle)
+                        .put("triggerTime", entry.triggerTime)
+                        .put("snooze", entry.isSnooze()));
+                }
+                call.resolve(new JSObject().put("occurrences", occurrences));
+            });
+        }
+        
+        /**
+         * Tasks marked done or skipped from the alarm notification since JS last merged them.
+         * JS merges the batch into its state and then calls acknowledgeCompletions.
+         */
+        @PluginMethod
+        public void getCompletions(PluginCall call) {
+            Context context = getContext();
+            alarmWorker.execute(() -> {
+                JSArray completions = new JSArray();
+                for (CompletionJournal.Record record : AlarmScheduler.getInstance(context).pendingCompletions()) {
+                    completions.put(new JSObject()
+                        .put("key", record.key)
+                        .put("taskId", record.taskId)
+                        .put("status", record.status == CompletionJournal.Status.DONE ? "done" : "skipped")
+                        .put("date", LocalDate.ofEpochDay(record.day).toString())
+                        .put("triggerTime", record.triggerTime)
+                        .put("at", record.recordedAt));
+                }
+                call.resolve(new JSObject().put("completions", completions));
+            });
+        }
+        
+        @PluginMethod
+        public void acknowledgeCompletions(PluginCall call) {
+            JSArray keys = call.getArray("keys");
+            if (keys == null) {
+                call.reject("Missing keys parameter");
+                return;
+            }
+            
+            Context context = getContext();
+            alarmWorker.execute(() -> {
+                List<String> acknowledged = new ArrayList<>();
+                for (int i = 0; i < keys.length(); i++) {
+                    String key = keys.optString(i, null);
+                    if (key != null) {
+                        acknowledged.add(key);
+                    }
+                }
+                AlarmScheduler.getInstance(context).acknowledgeCompletions(acknowledged);
+                call.resolve(new JSObject().put("acknowledged", acknowledged.size()));
+            });
+        }
+        
+        /**
+         * The recent alarm pipeline trace, including events saved by earlier processes, as compact
+         * JSON: [[time, event, subject, value], ...], oldest first. Meant for bug reports.
+         */
+        @PluginMethod
+        public void exportTrace(PluginCall call) {
+            alarmWorker.execute(() -> call.resolve(new JSObject().put("trace", AlarmTrace.export())));
+        }
+        
+        @PluginMethod
+        public void getAlarmMetrics(PluginCall call) {
+            AlarmMetrics metrics = AlarmMetrics.getInstance(getContext());
+            
+            // Delays are measured from the scheduled trigger time to each stage
+            JSObject stages = new JSObject();
+            for (AlarmMetrics.Stage stage : AlarmMetrics.Stage.values()) {
+                LatencyHistogram histogram = metrics.histogram(stage);
+                stages.put(stage.name().toLowerCase(Locale.ROOT), new JSObject()
+                    .put("count", histogram.count())
+                    .put("p50", histogram.percentile(50))
+                    .put("p95", histogram.percentile(95))
+                    .put("p99", histogram.percentile(99))
+                    .put("max", histogram.max()));
+            }
+            
+            JSArray recent = new JSArray();
+            for (AlarmMetrics.Sample sample : metrics.recentSamples()) {
+                recent.put(new JSObject()
+                    .put("stage", sample.stage.name().toLowerCase(Locale.ROOT))
+                    .put("delayMs", sample.delayMs));
+            }
+            
+            // Batched mode: each wake-up rings every alarm due in its window, so all but one
+            // alarm per wake-up is a wake-up saved. Lateness is bounded by the tolerance.
+            AlarmScheduler scheduler = AlarmScheduler.getInstance(getContext());
+            long[] batchStats = scheduler.batchStats();
+            JSObject batching = new JSObject()
+                .put("toleranceMs", scheduler.batchToleranceMs())
+                .put("wakeUps", batchStats[0])
+                .put("alarms", batchStats[1])
+                .put("wakeUpsSaved", batchStats[1] - batchStats[0])
+                .put("maxLatenessMs", batchStats[2]);
+            
+            call.resolve(new JSObject()
+                .put("stages", stages)
+                .put("missed", metrics.missedCount())
+                .put("missedThresholdMs", AlarmMetrics.MISSED_THRESHOLD_MS)
+                .put("recent", recent)
+                .put("batching", batching));
+        }
+        
+        @PluginMethod
+        public void saveVoiceChunk(PluginCall call) {
+            String taskId = call.getString("taskId");
+            String data = call.getString("data");
+            Integer index = call.getInt("index");
+            
+            if (taskId == null || data == null || index == null) {
+                call.reject("Missing required parameters");
+                return;
+            }
+            
+            // Chunks are written in call order on the worker, off the plugin thread
             Context context = getContext();
-            boolean hasNotificationPermission = true;
-            boolean hasExactAlarmPermission = true;
-            boolean isBatteryOptimized = true;
+            boolean last = call.getBoolean("last", false);
+            alarmWorker.execute(() -> {
+                try {
+                    VoiceStore.getInstance(context).writeChunk(taskId, index, Base64.decode(data, Base64.DEFAULT), last);
+                    if (last) {
+                        AlarmTrace.d(TAG, "Stored voice recording for task: %s", taskId);
+                    }
+                    call.resolve();
+                } catch (IOException | IllegalArgumentException e) {
+                    Log.e(TAG, "Error storing voice recording", e);
+                    call.reject("Failed to store voice recording: " + e.getMessage());
+                }
+            });
+        }
+        
+        @PluginMethod
+        public void deleteVoice(PluginCall call) {
+            String taskId = call.getString("taskId");
+            
+            if (taskId == null) {
+                call.reject("Missing taskId parameter");
+                return;
+            }
             
-            // Check notification permission
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-                hasNotificationPermission = ContextCompat.checkSelfPermission(
-                    context, Manifest.permission.POST_NOTIFICATIONS) == PackageManager.PERMISSION_GRANTED;
+            Context context = getContext();
+            alarmWorker.execute(() -> {
+                boolean deleted = VoiceStore.getInstance(context).delete(taskId);
+                call.resolve(new JSObject().put("deleted", deleted));
+            });
+        }
+        
+        @PluginMethod
+        public void prepareSpeech(PluginCall call) {
+            JSArray texts = call.getArray("texts");
+            if (texts == null || texts.length() == 0) {
+                call.reject("Missing texts parameter");
+                return;
             }
             
-            // Check exact alarm permission
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-                hasExactAlarmPermission = alarmManager.canScheduleExactAlarms();
+            // Nothing is rendered while spoken reminders are off; JS sends the titles again
+            // once they are turned on
+            Context context = getContext();
+            if (!AlarmSettings.isSpokenReminders(context)) {
+                call.resolve(new JSObject().put("prepared", 0).put("failed", 0).put("disabled", true));
+                return;
             }
             
-            // Check battery optimization
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
-                isBatteryOptimized = !powerManager.isIgnoringBatteryOptimizations(context.getPackageName());
+            // Titles are rendered on the synthesizer's own queue; cached ones return at once
+            String voice = call.getString("voice", SpeechCache.DEFAULT_VOICE);
+            AlarmSettings.setSpeechVoice(context, voice);
+            AtomicInteger remaining = new AtomicInteger(texts.length());
+            AtomicInteger failed = new AtomicInteger();
+            for (int i = 0; i < texts.length(); i++) {
+                String text = SpeechCache.normalize(texts.optString(i, null));
+                SpeechSynthesizer.Callback done = clip -> {
+                    if (clip == null) failed.incrementAndGet();
+                    if (remaining.decrementAndGet() == 0) {
+                        call.resolve(new JSObject()
+                            .put("prepared", texts.length() - failed.get())
+                            .put("failed", failed.get()));
+                    }
+                };
+                if (text.isEmpty()) {
+                    done.onResult(null);
+                } else {
+                    SpeechSynthesizer.getInstance(context).prepare(text, voice, done);
+                }
             }
+        }
+        
+        @PluginMethod
+        public void listVoices(PluginCall call) {
+            Context context = getContext();
+            alarmWorker.execute(() ->
+                call.resolve(new JSObject().put("taskIds", new JSArray(VoiceStore.getInstance(context).taskIds()))));
+        }
+        
+        @Override
+        protected void handleOnDestroy() {
+            if (loaded == this) {
+                loaded = null;
+            }
+            alarmWorker.shutdown();
+            super.handleOnDestroy();
+        }
+        
+        /**
+         * Re-reads permissions after something may have changed them and pushes any change to
+         * JS as a "permissionsChanged" event. Makes binder calls: keep it off the main thread.
+         */
+        static void refreshPermissions(Context context) {
+            PermissionCache.State changed = AlarmScheduler.getInstance(context).refreshPermissions();
+            if (changed == null) return;
             
-            call.resolve(new com.getcapacitor.JSObject()
-                .put("hasNotificationPermission", hasNotificationPermission)
-                .put("hasExactAlarmPermission", hasExactAlarmPermission)
-                .put("isBatteryOptimized", isBatteryOptimized));
+            AlarmTrace.d(TAG, "Permissions changed: %s", changed);
+            AlarmSchedulerPlugin plugin = loaded;
+            if (plugin != null) {
+                plugin.notifyListeners(PERMISSIONS_CHANGED, permissionsJson(changed));
+            }
+        }
+        
+        private static JSObject permissionsJson(PermissionCache.State state) {
+            return new JSObject()
+                .put("hasNotificationPermission", state.notifications)
+                .put("hasExactAlarmPermission", state.exactAlarms)
+                .put("isBatteryOptimized", state.batteryOptimized);
+        }
+        
+        @PluginMethod
+        public void checkPermissions(PluginCall call) {
+            // Served from the snapshot; only the very first call probes, off the plugin thread
+            Context context = getContext();
+            alarmWorker.execute(() -> {
+                AlarmScheduler scheduler = AlarmScheduler.getInstance(context);
+                call.resolve(permissionsJson(scheduler.permissions())
+                    .put("probeCount", scheduler.permissionProbeCount()));
+            });
         }
         
         @PluginMethod
@@ -316,4 +772,94 @@ public class MainActivity extends BridgeActivity {
             }
         }
     }
-}
\ No newline at end of file
+    
+    // Plugin persisting the schedule per task instead of as one localStorage blob
+    @CapacitorPlugin(name = "ScheduleStore")
+    public static class ScheduleStorePlugin extends Plugin {
+        
+        // One store per process: a recreated activity must not open a second handle on the log.
+        // All its IO runs on one worker, also per process, so calls from an old and a new plugin
+        // instance still run in order, off the plugin thread
+        private static final ExecutorService storeWorker = Executors.newSingleThreadExecutor();
+        private static ScheduleStore store;
+        
+        /** Opened lazily on the worker; replaying the log is the one O(n) step. */
+        private static synchronized ScheduleStore store(Context context) throws IOException {
+            if (store == null) {
+                store = new ScheduleStore(new File(context.getFilesDir(), ScheduleStore.FILE_NAME));
+            }
+            return store;
+        }
+        
+        @PluginMethod
+        public void loadSchedule(PluginCall call) {
+            storeWorker.execute(() -> {
+                try {
+                    long startedAt = SystemClock.elapsedRealtime();
+                    ScheduleStore store = store(getContext());
+                    JSObject result = new JSObject();
+                    result.put("empty", store.isEmpty());
+                    result.put("meta", store.metaJson());
+                    result.put("tasks", store.tasksJson());
+                    call.resolve(result);
+                    if (AlarmTrace.ENABLED) {
+                        AlarmTrace.d(TAG, "Loaded schedule store in %dms", SystemClock.elapsedRealtime() - startedAt);
+                    }
+                    
+                    // Compact after answering, if the log has grown stale since the last run
+                    store.flush();
+                } catch (IOException e) {
+                    Log.e(TAG, "Error loading schedule store", e);
+                    call.reject("Failed to load schedule: " + e.getMessage());
+                }
+            });
+        }
+        
+        /**
+         * Applies a batch of per-task operations: {@code ops: [{op: "put", key, task} |
+         * {op: "delete", key}]} plus an optional {@code meta} object, flushed once.
+         */
+        @PluginMethod
+        public void apply(PluginCall call) {
+            JSArray ops = call.getArray("ops", new JSArray());
+            JSObject meta = call.getObject("meta");
+            storeWorker.execute(() -> {
+                try {
+                    ScheduleStore store = store(getContext());
+                    for (int i = 0; i < ops.length(); i++) {
+                        JSONObject op = ops.getJSONObject(i);
+                        String key = op.getString("key");
+                        if ("delete".equals(op.optString("op"))) {
+                            store.deleteTask(key);
+                        } else {
+                            store.putTask(key, op.getJSONObject("task").toString());
+                        }
+                    }
+                    if (meta != null) {
+                        store.putMeta(meta.toString());
+                    }
+                    store.flush();
+                    call.resolve(new JSObject().put("applied", ops.length()));
+                } catch (Exception e) {
+                    Log.e(TAG, "Error applying schedule changes", e);
+                    call.reject("Failed to save schedule: " + e.getMessage());
+                }
+            });
+        }
+        
+        @PluginMethod
+        public void clear(PluginCall call) {
+            storeWorker.execute(() -> {
+                try {
+                    ScheduleStore store = store(getContext());
+                    store.clear();
+                    store.flush();
+                    call.resolve();
+                } catch (IOException e) {
+                    Log.e(TAG, "Error clearing schedule store", e);
+                    call.reject("Failed to clear schedule: " + e.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.vk7days.taskscheduler;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every occurrence of the queued tasks over the next {@link #HORIZON_MS}, in one sorted array,
+ * so "what fires next" for the UI is a binary search instead of a walk over every rule.
+ *
+ * Each occurrence is packed into a long as (millis since build) << 24 | entry index, which
+ * sorts by time without boxing. Built from a snapshot of the queue and replaced, never
+ * updated, when the queue changes. Pure Java (no Android types) so it can be unit tested.
+ */
+public final class OccurrenceIndex {
+    public static final long HORIZON_MS = 14L * 24 * 60 * 60 * 1000;
+
+    private static final int INDEX_BITS = 24;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private final List<AlarmEntry> entries;
+    private final long builtAt;
+    private final long[] keys;
+
+    private OccurrenceIndex(List<AlarmEntry> entries, long builtAt, long[] keys) {
+        this.entries = entries;
+        this.builtAt = builtAt;
+        this.keys = keys;
+    }
+
+    /** Indexes the occurrences of {@code entries} from {@code now} to the horizon. */
+    public static OccurrenceIndex build(List<AlarmEntry> entries, long now, ZoneId zone) {
+        if (entries.size() > INDEX_MASK) {
+            throw new IllegalArgumentException("Too many entries to index: " + entries.size());
+        }
+        long until = now + HORIZON_MS;
+        long[] keys = new long[Math.max(16, entries.size() * 2)];
+        int count = 0;
+
+        for (int i = 0; i < entries.size(); i++) {
+            AlarmEntry entry = entries.get(i);
+            // The queued trigger time may be pinned or snoozed, so it is indexed as-is
+            if (entry.triggerTime > now && entry.triggerTime < until) {
+                keys = ensureCapacity(keys, count + 1);
+                keys[count++] = key(entry.triggerTime - now, i);
+            }
+            RecurrenceRule rule = entry.isSnooze() ? null : entry.asRule();
+            if (rule == null) continue;
+
+            long[] later = rule.occurrencesBetween(Math.max(now, entry.triggerTime), until, zone);
+            keys = ensureCapacity(keys, count + later.length);
+            for (long millis : later) {
+                keys[count++] = key(millis - now, i);
+            }
+        }
+
+        keys = Arrays.copyOf(keys, count);
+        Arrays.sort(keys);
+        return new OccurrenceIndex(new ArrayList<>(entries), now, keys);
+    }
+
+    public long builtAt() {
+        return builtAt;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Up to {@code count} occurrences strictly after {@code afterMillis}, earliest first, each as
+     * its entry with the occurrence as trigger time. Only occurrences before the horizon are
+     * known, so fewer may come back.
+     */
+    public List<AlarmEntry> nextAfter(long afterMillis, int count) {
+        long offset = Math.max(afterMillis - builtAt + 1, 0);
+        int index = Arrays.binarySearch(keys, offset << INDEX_BITS);
+        if (index < 0) index = -index - 1;
+
+        List<AlarmEntry> result = new ArrayList<>(Math.min(count, keys.length - index));
+        for (; index < keys.length && result.size() < count; index++) {
+            AlarmEntry entry = entries.get((int) (keys[index] & INDEX_MASK));
+            long triggerTime = builtAt + (keys[index] >>> INDEX_BITS);
+            result.add(entry.triggerTime == triggerTime ? entry : entry.withTriggerTime(triggerTime));
+        }
+        return result;
+    }
+
+    private static long key(long offset, int index) {
+        return (offset << INDEX_BITS) | index;
+    }
+
+    private static long[] ensureCapacity(long[] keys, int needed) {
+        return needed <= keys.length ? keys : Arrays.copyOf(keys, Math.max(needed, keys.length * 2));
+    }
+}
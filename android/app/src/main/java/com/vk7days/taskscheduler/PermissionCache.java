@@ -0,0 +1,81 @@
+package com.vk7days.taskscheduler;
+
+/**
+ * Last known alarm permission state. Probing costs several system-service calls, so it
+ * happens once on first use and then only when something may have changed it: the activity
+ * resuming, a permission or settings screen returning, or the exact-alarm permission
+ * broadcast. Scheduling reads the snapshot and never probes.
+ *
+ * Pure Java (no Android types); the probe itself is supplied by the caller.
+ */
+public class PermissionCache {
+    /** Reads the current state from the system. */
+    public interface Probe {
+        State probe();
+    }
+
+    public static final class State {
+        public final boolean notifications;
+        public final boolean exactAlarms;
+        public final boolean batteryOptimized;
+
+        public State(boolean notifications, boolean exactAlarms, boolean batteryOptimized) {
+            this.notifications = notifications;
+            this.exactAlarms = exactAlarms;
+            this.batteryOptimized = batteryOptimized;
+        }
+
+        /** Everything background alarms need: notifications, exact alarms and no battery optimization. */
+        public boolean isGranted() {
+            return notifications && exactAlarms && !batteryOptimized;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof State)) return false;
+            State other = (State) o;
+            return notifications == other.notifications
+                && exactAlarms == other.exactAlarms
+                && batteryOptimized == other.batteryOptimized;
+        }
+
+        @Override
+        public int hashCode() {
+            return (notifications ? 1 : 0) | (exactAlarms ? 2 : 0) | (batteryOptimized ? 4 : 0);
+        }
+
+        @Override
+        public String toString() {
+            return "State{notifications=" + notifications + ", exactAlarms=" + exactAlarms
+                + ", batteryOptimized=" + batteryOptimized + "}";
+        }
+    }
+
+    private State state;
+    private int probeCount = 0;
+
+    /** The cached state, probing only if nothing has been read yet. */
+    public synchronized State get(Probe probe) {
+        if (state == null) {
+            state = read(probe);
+        }
+        return state;
+    }
+
+    /** Probes again; returns the new state if it differs from the cached one, else null. */
+    public synchronized State refresh(Probe probe) {
+        State previous = state;
+        state = read(probe);
+        return state.equals(previous) ? null : state;
+    }
+
+    /** Number of probes made, so callers can check that scheduling stays off the system services. */
+    public synchronized int probeCount() {
+        return probeCount;
+    }
+
+    private State read(Probe probe) {
+        probeCount++;
+        return probe.probe();
+    }
+}
@@ -0,0 +1,241 @@
+package com.vk7days.taskscheduler;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary key/value journal. Every mutation is appended as a checksummed
+ * record; on open the log is replayed into an in-memory map and a torn tail (from a
+ * crash mid-write) is truncated away. When superseded records outnumber live ones the
+ * log is rewritten as a compact snapshot via a temp file and an atomic rename.
+ *
+ * Record layout: [op:1][keyLen:2][key][valueLen:4][value][crc32:4]
+ *
+ * Pure Java so it can be exercised off-device.
+ */
+public class RecordLog {
+    private static final int MAGIC = 0x564B374C; // "VK7L"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_CLEAR = 3;
+
+    // Compact once dead records exceed this many, and outnumber live records
+    private static final int MIN_COMPACTION_GARBAGE = 64;
+
+    private final File file;
+    private final Map<String, byte[]> live = new LinkedHashMap<>();
+    private DataOutputStream out;
+    private int garbage = 0;
+
+    public RecordLog(File file) throws IOException {
+        this.file = file;
+        replay();
+        out = openForAppend();
+    }
+
+    /** Current contents of the log, in first-insertion order. */
+    public synchronized Map<String, byte[]> entries() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(live));
+    }
+
+    public synchronized int size() {
+        return live.size();
+    }
+
+    public synchronized byte[] get(String key) {
+        return live.get(key);
+    }
+
+    public synchronized void put(String key, byte[] value) throws IOException {
+        if (live.put(key, value) != null) {
+            garbage++;
+        }
+        writeRecord(OP_PUT, key, value);
+    }
+
+    public synchronized void delete(String key) throws IOException {
+        if (live.remove(key) != null) {
+            garbage += 2; // the delete record and the put it supersedes
+            writeRecord(OP_DELETE, key, null);
+        }
+    }
+
+    public synchronized void clear() throws IOException {
+        garbage += live.size() + 1;
+        live.clear();
+        writeRecord(OP_CLEAR, "", null);
+    }
+
+    /**
+     * Pushes buffered records to the file and compacts if enough garbage has built up.
+     * Callers batch several mutations and flush once.
+     */
+    public synchronized void flush() throws IOException {
+        out.flush();
+        if (garbage >= MIN_COMPACTION_GARBAGE && garbage > live.size()) {
+            compact();
+        }
+    }
+
+    /** Rewrites the log so that it holds exactly one put per live key. */
+    public synchronized void compact() throws IOException {
+        out.close();
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            DataOutputStream snapshot = new DataOutputStream(new BufferedOutputStream(fos));
+            writeHeader(snapshot);
+            for (Map.Entry<String, byte[]> entry : live.entrySet()) {
+                snapshot.write(encode(OP_PUT, entry.getKey(), entry.getValue()));
+            }
+            snapshot.flush();
+            fos.getFD().sync();
+        }
+
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Failed to replace " + file + " with compacted log");
+        }
+        garbage = 0;
+        out = openForAppend();
+    }
+
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private void writeRecord(byte op, String key, byte[] value) throws IOException {
+        out.write(encode(op, key, value));
+    }
+
+    private static byte[] encode(byte op, String key, byte[] value) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(32 + (value != null ? value.length : 0));
+        DataOutputStream record = new DataOutputStream(buffer);
+        record.writeByte(op);
+        record.writeUTF(key);
+        record.writeInt(value != null ? value.length : -1);
+        if (value != null) {
+            record.write(value);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.toByteArray());
+        record.writeInt((int) crc.getValue());
+        return buffer.toByteArray();
+    }
+
+    private void replay() throws IOException {
+        live.clear();
+        garbage = 0;
+
+        if (!file.exists() || file.length() < HEADER_SIZE) {
+            writeFreshFile();
+            return;
+        }
+
+        // One read of the whole file, then records are parsed and checksummed in place
+        byte[] data = new byte[(int) file.length()];
+        try (DataInputStream raw = new DataInputStream(new FileInputStream(file))) {
+            raw.readFully(data);
+        }
+        ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+        DataInputStream in = new DataInputStream(bytes);
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            // Unknown format: start over rather than misreading it
+            writeFreshFile();
+            return;
+        }
+
+        long goodLength = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (true) {
+            int start = data.length - bytes.available();
+            byte op;
+            String key;
+            byte[] value = null;
+            try {
+                op = in.readByte();
+                key = in.readUTF();
+                int length = in.readInt();
+                if (length > bytes.available()) {
+                    break;
+                }
+                if (length >= 0) {
+                    value = new byte[length];
+                    in.readFully(value);
+                }
+                int end = data.length - bytes.available();
+                crc.reset();
+                crc.update(data, start, end - start);
+                if (in.readInt() != (int) crc.getValue()) {
+                    break;
+                }
+            } catch (IOException e) {
+                break; // torn or corrupt tail
+            }
+
+            apply(op, key, value);
+            goodLength = data.length - bytes.available();
+        }
+
+        if (goodLength < data.length) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(goodLength);
+            }
+        }
+    }
+
+    private void apply(byte op, String key, byte[] value) {
+        switch (op) {
+            case OP_PUT:
+                if (live.put(key, value) != null) garbage++;
+                break;
+            case OP_DELETE:
+                if (live.remove(key) != null) garbage += 2;
+                break;
+            case OP_CLEAR:
+                garbage += live.size() + 1;
+                live.clear();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void writeFreshFile() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        try (DataOutputStream header = new DataOutputStream(new FileOutputStream(file))) {
+            writeHeader(header);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream stream) throws IOException {
+        stream.writeInt(MAGIC);
+        stream.writeInt(VERSION);
+    }
+
+    private DataOutputStream openForAppend() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+    }
+}
@@ -0,0 +1,297 @@
+package com.vk7days.taskscheduler;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A task's recurrence beyond one weekly slot: weekly on several days, every N days, specific
+ * dates, or the N-th weekday of each month, each at one or more local times.
+ *
+ * Rules arrive from JS as JSON and are compiled once into primitives (a day mask, epoch days,
+ * minutes of day), so finding the next occurrence only walks candidate dates and never
+ * re-parses. The canonical JSON, {@link #toJson}, is what gets journaled and compared.
+ *
+ * <pre>
+ * {"freq":"weekly","days":["monday","friday"],"times":["09:00","18:30"]}
+ * {"freq":"daily","interval":3,"start":"2024-04-01","times":["07:00"]}
+ * {"freq":"dates","dates":["2024-05-01","2024-12-24"],"times":["10:00"]}
+ * {"freq":"monthly","nth":1,"weekday":"monday","times":["09:00"]}   (nth -1 is the last)
+ * </pre>
+ *
+ * Local times are resolved like {@link WeeklyRecurrence}: a time in a DST gap fires when the
+ * clock jumps past it, a time in an overlap fires at the earlier instant.
+ */
+public final class RecurrenceRule {
+    public enum Freq { WEEKLY, DAILY, DATES, MONTHLY }
+
+    // Candidate dates to try before giving up; far more than any valid rule needs
+    private static final int MAX_DATES_SCANNED = 1000;
+
+    public final Freq freq;
+    private final int dayMask;       // WEEKLY: bit (DayOfWeek.getValue() - 1)
+    private final int interval;      // DAILY: every N days from startDay
+    private final long startDay;     // DAILY: epoch day of the first occurrence
+    private final long[] dates;      // DATES: sorted epoch days
+    private final int nth;           // MONTHLY: 1..5, or -1 for the last
+    private final DayOfWeek weekday; // MONTHLY
+    private final int[] minutes;     // sorted distinct minutes of the day
+
+    private RecurrenceRule(Freq freq, int dayMask, int interval, long startDay, long[] dates,
+                           int nth, DayOfWeek weekday, int[] minutes) {
+        this.freq = freq;
+        this.dayMask = dayMask;
+        this.interval = interval;
+        this.startDay = startDay;
+        this.dates = dates;
+        this.nth = nth;
+        this.weekday = weekday;
+        this.minutes = minutes;
+    }
+
+    /** The classic task: one day of the week at one time, as {@link WeeklyRecurrence} models it. */
+    public static RecurrenceRule weekly(WeeklyRecurrence recurrence) {
+        return new RecurrenceRule(Freq.WEEKLY, 1 << (recurrence.day.getValue() - 1), 0, 0, null, 0, null,
+            new int[]{recurrence.time.getHour() * 60 + recurrence.time.getMinute()});
+    }
+
+    /** Compiles a rule; returns null if it is malformed or can never fire. */
+    public static RecurrenceRule fromJson(JSONObject json) {
+        if (json == null) return null;
+        int[] minutes = parseTimes(json.optJSONArray("times"));
+        if (minutes == null) return null;
+
+        switch (json.optString("freq", "").toLowerCase(Locale.ROOT)) {
+            case "weekly": {
+                JSONArray days = json.optJSONArray("days");
+                int mask = 0;
+                for (int i = 0; days != null && i < days.length(); i++) {
+                    DayOfWeek day = WeeklyRecurrence.parseDay(days.optString(i, null));
+                    if (day == null) return null;
+                    mask |= 1 << (day.getValue() - 1);
+                }
+                return mask == 0 ? null : new RecurrenceRule(Freq.WEEKLY, mask, 0, 0, null, 0, null, minutes);
+            }
+            case "daily": {
+                int interval = json.optInt("interval", 1);
+                LocalDate start = parseDate(json.optString("start", null));
+                if (interval < 1 || start == null) return null;
+                return new RecurrenceRule(Freq.DAILY, 0, interval, start.toEpochDay(), null, 0, null, minutes);
+            }
+            case "dates": {
+                JSONArray list = json.optJSONArray("dates");
+                if (list == null || list.length() == 0) return null;
+                long[] dates = new long[list.length()];
+                for (int i = 0; i < dates.length; i++) {
+                    LocalDate date = parseDate(list.optString(i, null));
+                    if (date == null) return null;
+                    dates[i] = date.toEpochDay();
+                }
+                return new RecurrenceRule(Freq.DATES, 0, 0, 0, distinctSorted(dates), 0, null, minutes);
+            }
+            case "monthly": {
+                int nth = json.optInt("nth", 0);
+                DayOfWeek weekday = WeeklyRecurrence.parseDay(json.optString("weekday", null));
+                if (weekday == null || nth == 0 || nth < -1 || nth > 5) return null;
+                return new RecurrenceRule(Freq.MONTHLY, 0, 0, 0, null, nth, weekday, minutes);
+            }
+            default:
+                return null;
+        }
+    }
+
+    /** First occurrence strictly after {@code afterMillis}, or 0 when the rule has no more. */
+    public long nextAfter(long afterMillis, ZoneId zone) {
+        long[] next = nextOccurrences(afterMillis, zone, 1);
+        return next.length == 0 ? 0 : next[0];
+    }
+
+    /** Up to {@code count} occurrences strictly after {@code afterMillis}, in order. */
+    public long[] nextOccurrences(long afterMillis, ZoneId zone, int count) {
+        return occurrences(afterMillis, Long.MAX_VALUE, zone, count);
+    }
+
+    /** Every occurrence strictly after {@code afterMillis} and before {@code untilMillis}, in order. */
+    public long[] occurrencesBetween(long afterMillis, long untilMillis, ZoneId zone) {
+        return occurrences(afterMillis, untilMillis, zone, Integer.MAX_VALUE);
+    }
+
+    private long[] occurrences(long afterMillis, long untilMillis, ZoneId zone, int count) {
+        ZoneRules rules = zone.getRules();
+        // Start a day early: a late time yesterday can land after midnight through a DST gap
+        long day = LocalDateTime.ofInstant(Instant.ofEpochMilli(afterMillis), zone).toLocalDate().toEpochDay() - 1;
+
+        long[] result = new long[Math.min(count, 16)];
+        int filled = 0;
+        boolean pastUntil = false;
+        for (int scanned = 0; filled < count && !pastUntil && scanned < MAX_DATES_SCANNED; scanned++) {
+            day = nextDateOnOrAfter(day);
+            if (day == Long.MAX_VALUE) break;
+
+            LocalDate date = LocalDate.ofEpochDay(day);
+            for (int i = 0; i < minutes.length && filled < count; i++) {
+                long millis = WeeklyRecurrence.toEpochMillis(rules, date.atTime(LocalTime.ofSecondOfDay(minutes[i] * 60L)));
+                if (millis >= untilMillis) {
+                    pastUntil = true;
+                } else if (millis > afterMillis) {
+                    if (filled == result.length) {
+                        result = Arrays.copyOf(result, (int) Math.min((long) count, filled * 2L));
+                    }
+                    result[filled++] = millis;
+                }
+            }
+            day++;
+        }
+        // A time pushed forward by a DST gap can land after a later time the same day
+        Arrays.sort(result, 0, filled);
+        return filled == result.length ? result : Arrays.copyOf(result, filled);
+    }
+
+    /** The first epoch day on or after {@code day} matching the rule, or Long.MAX_VALUE if none. */
+    private long nextDateOnOrAfter(long day) {
+        switch (freq) {
+            case WEEKLY: {
+                for (int i = 0; i < 7; i++) {
+                    // Epoch day 0 was a Thursday, bit 3 with Monday as bit 0
+                    if ((dayMask & (1 << Math.floorMod(day + i + 3, 7L))) != 0) return day + i;
+                }
+                return Long.MAX_VALUE;
+            }
+            case DAILY: {
+                if (day <= startDay) return startDay;
+                long offset = Math.floorMod(day - startDay, (long) interval);
+                return offset == 0 ? day : day + interval - offset;
+            }
+            case DATES: {
+                int index = Arrays.binarySearch(dates, day);
+                if (index < 0) index = -index - 1;
+                return index < dates.length ? dates[index] : Long.MAX_VALUE;
+            }
+            case MONTHLY: {
+                LocalDate month = LocalDate.ofEpochDay(day).withDayOfMonth(1);
+                // "5th Monday" is skipped in months that have only four
+                for (int i = 0; i < 24; i++, month = month.plusMonths(1)) {
+                    LocalDate candidate = nth < 0
+                        ? month.with(TemporalAdjusters.lastInMonth(weekday))
+                        : month.with(TemporalAdjusters.dayOfWeekInMonth(nth, weekday));
+                    if (candidate.getMonth() == month.getMonth() && candidate.toEpochDay() >= day) {
+                        return candidate.toEpochDay();
+                    }
+                }
+                return Long.MAX_VALUE;
+            }
+            default:
+                return Long.MAX_VALUE;
+        }
+    }
+
+    /** The canonical form: equal rules produce equal JSON. */
+    public String toJson() {
+        JSONObject json = new JSONObject();
+        try {
+            json.put("freq", freq.name().toLowerCase(Locale.ROOT));
+            switch (freq) {
+                case WEEKLY: {
+                    JSONArray days = new JSONArray();
+                    for (DayOfWeek day : DayOfWeek.values()) {
+                        if ((dayMask & (1 << (day.getValue() - 1))) != 0) {
+                            days.put(day.name().toLowerCase(Locale.ROOT));
+                        }
+                    }
+                    json.put("days", days);
+                    break;
+                }
+                case DAILY:
+                    json.put("interval", interval);
+                    json.put("start", LocalDate.ofEpochDay(startDay).toString());
+                    break;
+                case DATES: {
+                    JSONArray list = new JSONArray();
+                    for (long date : dates) {
+                        list.put(LocalDate.ofEpochDay(date).toString());
+                    }
+                    json.put("dates", list);
+                    break;
+                }
+                case MONTHLY:
+                    json.put("nth", nth);
+                    json.put("weekday", weekday.name().toLowerCase(Locale.ROOT));
+                    break;
+            }
+            JSONArray times = new JSONArray();
+            for (int minute : minutes) {
+                times.put(String.format(Locale.ROOT, "%02d:%02d", minute / 60, minute % 60));
+            }
+            json.put("times", times);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        return json.toString();
+    }
+
+    public static RecurrenceRule fromJson(String json) {
+        if (json == null) return null;
+        try {
+            return fromJson(new JSONObject(json));
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof RecurrenceRule)) return false;
+        RecurrenceRule other = (RecurrenceRule) o;
+        return freq == other.freq && dayMask == other.dayMask && interval == other.interval
+            && startDay == other.startDay && Arrays.equals(dates, other.dates) && nth == other.nth
+            && weekday == other.weekday && Arrays.equals(minutes, other.minutes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * freq.hashCode() + Arrays.hashCode(minutes);
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    private static int[] parseTimes(JSONArray times) {
+        if (times == null || times.length() == 0) return null;
+        int[] minutes = new int[times.length()];
+        for (int i = 0; i < minutes.length; i++) {
+            LocalTime time = WeeklyRecurrence.parseTime(times.optString(i, null));
+            if (time == null) return null;
+            minutes[i] = time.getHour() * 60 + time.getMinute();
+        }
+        Arrays.sort(minutes);
+        return Arrays.stream(minutes).distinct().toArray();
+    }
+
+    private static LocalDate parseDate(String date) {
+        if (date == null) return null;
+        try {
+            return LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static long[] distinctSorted(long[] values) {
+        Arrays.sort(values);
+        return Arrays.stream(values).distinct().toArray();
+    }
+}
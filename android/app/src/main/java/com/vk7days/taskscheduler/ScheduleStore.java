@@ -0,0 +1,93 @@
+package com.vk7days.taskscheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Durable copy of the web app's schedule, stored per task so that an edit costs one appended
+ * record instead of rewriting the whole state. Values are the task JSON exactly as the web
+ * layer sent it; native code never parses them. The backing {@link RecordLog} compacts itself
+ * on {@link #flush} once superseded records outnumber live ones.
+ *
+ * Keys are {@code "<dayKey>:<taskId>"}; the app's day and settings live under one meta record.
+ * Pure Java (no Android types) so it can be tested and benchmarked off-device.
+ */
+public class ScheduleStore {
+    public static final String FILE_NAME = "schedule_store.log";
+    private static final String META_KEY = "meta";
+    private static final String TASK_PREFIX = "task:";
+
+    private final RecordLog log;
+
+    public ScheduleStore(File file) throws IOException {
+        this.log = new RecordLog(file);
+    }
+
+    public synchronized void putTask(String key, String taskJson) throws IOException {
+        log.put(TASK_PREFIX + key, taskJson.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public synchronized void deleteTask(String key) throws IOException {
+        log.delete(TASK_PREFIX + key);
+    }
+
+    public synchronized void putMeta(String metaJson) throws IOException {
+        log.put(META_KEY, metaJson.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public synchronized void clear() throws IOException {
+        log.clear();
+    }
+
+    /** Makes the applied operations durable; compacts the log when it has grown stale. */
+    public synchronized void flush() throws IOException {
+        log.flush();
+    }
+
+    public synchronized boolean isEmpty() {
+        return log.size() == 0;
+    }
+
+    /** The meta JSON, or null if none has been stored. */
+    public synchronized String metaJson() {
+        byte[] meta = log.get(META_KEY);
+        return meta != null ? new String(meta, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Every task as one JSON object keyed like {@link #putTask}, built by concatenation so the
+     * web layer pays for a single parse at startup.
+     */
+    public synchronized String tasksJson() {
+        Map<String, byte[]> entries = log.entries();
+        StringBuilder json = new StringBuilder(entries.size() * 128 + 2).append('{');
+        boolean first = true;
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(TASK_PREFIX)) continue;
+            if (!first) json.append(',');
+            first = false;
+            appendQuoted(json, key.substring(TASK_PREFIX.length()));
+            json.append(':').append(new String(entry.getValue(), StandardCharsets.UTF_8));
+        }
+        return json.append('}').toString();
+    }
+
+    private static void appendQuoted(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,133 @@
+package com.vk7days.taskscheduler;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Spoken task reminders rendered ahead of time by {@link SpeechSynthesizer}, so
+ * {@link AlarmSoundService} can play a task's title the moment it rings, without the WebView
+ * or a text-to-speech engine.
+ *
+ * Content-addressed: a clip's file name is a hash of the voice and the normalized text, so
+ * tasks with the same title share a clip, an edited title simply gets a new one, and the
+ * cache needs no index. Playing a clip marks it used; past {@link #MAX_BYTES} the least
+ * recently used clips are evicted.
+ */
+public class SpeechCache {
+    private static final String DIRECTORY = "speech";
+    private static final String EXTENSION = ".wav";
+    private static final String PARTIAL_EXTENSION = ".part";
+
+    public static final String DEFAULT_VOICE = "default";
+    // A few seconds of speech is ~100-300 KB of WAV; this keeps well over a hundred titles
+    public static final long MAX_BYTES = 32 * 1024 * 1024;
+
+    private static SpeechCache instance;
+
+    private final File directory;
+    private final long maxBytes;
+
+    public static synchronized SpeechCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new SpeechCache(new File(context.getCacheDir(), DIRECTORY), MAX_BYTES);
+        }
+        return instance;
+    }
+
+    public SpeechCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /** What gets spoken: trimmed, with runs of whitespace collapsed. */
+    public static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ");
+    }
+
+    /** The cache key of {@code text} spoken by {@code voice}: 32 hex digits of SHA-256. */
+    public static String key(String text, String voice) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((voice + '\u0000' + normalize(text)).getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                key.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** The clip for {@code text} in {@code voice}, marked as just used, or null if none is cached. */
+    public synchronized File find(String text, String voice) {
+        File file = new File(directory, key(text, voice) + EXTENSION);
+        if (!file.isFile() || file.length() == 0) {
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /** Where the synthesizer writes the clip for {@code key} before {@link #commit} moves it into place. */
+    public synchronized File partialFile(String key) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        return new File(directory, key + PARTIAL_EXTENSION);
+    }
+
+    /** Publishes the finished partial clip for {@code key}, then evicts down to the size limit. */
+    public synchronized File commit(String key) throws IOException {
+        File partial = new File(directory, key + PARTIAL_EXTENSION);
+        File clip = new File(directory, key + EXTENSION);
+        if (partial.length() == 0 || !partial.renameTo(clip)) {
+            partial.delete();
+            throw new IOException("Failed to store speech clip " + key);
+        }
+        clip.setLastModified(System.currentTimeMillis());
+        evict();
+        return clip;
+    }
+
+    /** Deletes least recently used clips until the cache fits; returns how many went. */
+    public synchronized int evict() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files == null) return 0;
+
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxBytes) return 0;
+
+        // Oldest use first; the clip just committed is the newest and goes last
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        int evicted = 0;
+        for (int i = 0; i < files.length - 1 && total > maxBytes; i++) {
+            long length = files[i].length();
+            if (files[i].delete()) {
+                total -= length;
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /** Bytes of clips on disk, for diagnostics. */
+    public synchronized long sizeBytes() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        long total = 0;
+        for (File file : files == null ? new File[0] : files) {
+            total += file.length();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,173 @@
+package com.vk7days.taskscheduler;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.speech.tts.Voice;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders task titles to audio files in {@link SpeechCache} with Android's TextToSpeech, one
+ * at a time on its own background queue, when tasks are saved. The engine is started for the
+ * first request that misses the cache and shut down as soon as the queue drains, so nothing
+ * stays bound to it between edits and alarm time never pays for synthesis.
+ */
+public class SpeechSynthesizer {
+    private static final String TAG = "VK7Days_Speech";
+    private static final long INIT_TIMEOUT_MS = 5000;
+    private static final long SYNTHESIS_TIMEOUT_MS = 20000;
+
+    public interface Callback {
+        /** The cached clip, or null if it could not be rendered. */
+        void onResult(File clip);
+    }
+
+    private static SpeechSynthesizer instance;
+
+    private final Context context;
+    private final SpeechCache cache;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private final AtomicInteger pending = new AtomicInteger();
+    // Only touched on the worker
+    private TextToSpeech engine;
+
+    public static synchronized SpeechSynthesizer getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new SpeechSynthesizer(appContext, SpeechCache.getInstance(appContext));
+        }
+        return instance;
+    }
+
+    private SpeechSynthesizer(Context context, SpeechCache cache) {
+        this.context = context;
+        this.cache = cache;
+    }
+
+    /** Queues {@code text} for rendering in {@code voice}; a cached clip is returned without synthesis. */
+    public void prepare(String text, String voice, Callback callback) {
+        pending.incrementAndGet();
+        worker.execute(() -> {
+            File clip = null;
+            try {
+                clip = render(text, voice);
+            } catch (IOException | InterruptedException e) {
+                Log.e(TAG, "Error rendering speech", e);
+            } finally {
+                if (pending.decrementAndGet() == 0) {
+                    release();
+                }
+            }
+            callback.onResult(clip);
+        });
+    }
+
+    private File render(String text, String voice) throws IOException, InterruptedException {
+        File cached = cache.find(text, voice);
+        if (cached != null) {
+            return cached;
+        }
+
+        TextToSpeech tts = engine();
+        if (tts == null) {
+            return null;
+        }
+        selectVoice(tts, voice);
+
+        long startedAt = SystemClock.elapsedRealtime();
+        String key = SpeechCache.key(text, voice);
+        File partial = cache.partialFile(key);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean succeeded = new AtomicBoolean();
+        tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
+            @Override
+            public void onStart(String utteranceId) {}
+
+            @Override
+            public void onDone(String utteranceId) {
+                succeeded.set(true);
+                finished.countDown();
+            }
+
+            @Override
+            @SuppressWarnings("deprecation")
+            public void onError(String utteranceId) {
+                finished.countDown();
+            }
+
+            @Override
+            public void onError(String utteranceId, int errorCode) {
+                onError(utteranceId);
+            }
+        });
+
+        if (tts.synthesizeToFile(SpeechCache.normalize(text), new Bundle(), partial, key) != TextToSpeech.SUCCESS
+                || !finished.await(SYNTHESIS_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                || !succeeded.get()) {
+            partial.delete();
+            Log.w(TAG, "Speech synthesis failed for clip " + key);
+            return null;
+        }
+
+        File clip = cache.commit(key);
+        if (AlarmTrace.ENABLED) {
+            AlarmTrace.d(TAG, "Rendered clip %s (%d bytes) in %dms", key, clip.length(),
+                SystemClock.elapsedRealtime() - startedAt);
+        }
+        return clip;
+    }
+
+    /** The bound engine, starting it if needed; null if it does not come up in time. */
+    private TextToSpeech engine() throws InterruptedException {
+        if (engine != null) {
+            return engine;
+        }
+
+        // onInit arrives on the main thread; the worker just waits for it
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicBoolean initialized = new AtomicBoolean();
+        TextToSpeech tts = new TextToSpeech(context, status -> {
+            initialized.set(status == TextToSpeech.SUCCESS);
+            ready.countDown();
+        });
+        if (!ready.await(INIT_TIMEOUT_MS, TimeUnit.MILLISECONDS) || !initialized.get()) {
+            Log.w(TAG, "Text-to-speech engine unavailable");
+            tts.shutdown();
+            return null;
+        }
+        engine = tts;
+        return engine;
+    }
+
+    /** Uses the engine voice named {@code voice}, or the engine's default for the default voice. */
+    private static void selectVoice(TextToSpeech tts, String voice) {
+        if (SpeechCache.DEFAULT_VOICE.equals(voice) || tts.getVoices() == null) {
+            return;
+        }
+        for (Voice candidate : tts.getVoices()) {
+            if (candidate.getName().equals(voice)) {
+                tts.setVoice(candidate);
+                return;
+            }
+        }
+        Log.w(TAG, "Voice not installed, using the default: " + voice);
+    }
+
+    private void release() {
+        if (engine != null) {
+            engine.shutdown();
+            engine = null;
+        }
+    }
+}
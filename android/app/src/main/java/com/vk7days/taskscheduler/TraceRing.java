@@ -0,0 +1,159 @@
+package com.vk7days.taskscheduler;
+
+import org.json.JSONArray;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size ring of the most recent alarm pipeline events. Recording one is a few array
+ * stores under a lock: the event name is a constant, nothing is formatted, and the oldest
+ * event is overwritten once the ring is full. Formatting happens only when the ring is
+ * saved or exported.
+ *
+ * Each event is a wall-clock time, a name, an optional subject (usually a task id) and one
+ * number whose meaning depends on the event, e.g. the trigger time of the alarm involved.
+ *
+ * Pure Java (no Android types) so it can be unit tested.
+ */
+public class TraceRing {
+    private static final int MAGIC = 0x564B3754; // "VK7T"
+    private static final int VERSION = 1;
+
+    /** One recorded event. */
+    public static final class Event {
+        public final long time;
+        public final String name;
+        public final String subject;
+        public final long value;
+
+        public Event(long time, String name, String subject, long value) {
+            this.time = time;
+            this.name = name;
+            this.subject = subject;
+            this.value = value;
+        }
+    }
+
+    private final long[] times;
+    private final String[] names;
+    private final String[] subjects;
+    private final long[] values;
+    // Slot the next event goes to, and how many slots hold events
+    private int next;
+    private int count;
+
+    public TraceRing(int capacity) {
+        times = new long[capacity];
+        names = new String[capacity];
+        subjects = new String[capacity];
+        values = new long[capacity];
+    }
+
+    public synchronized void add(long time, String name, String subject, long value) {
+        times[next] = time;
+        names[next] = name;
+        subjects[next] = subject;
+        values[next] = value;
+        next = (next + 1) % times.length;
+        count = Math.min(count + 1, times.length);
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return times.length;
+    }
+
+    /** The recorded events, oldest first. */
+    public synchronized List<Event> events() {
+        List<Event> events = new ArrayList<>(count);
+        int start = (next - count + times.length) % times.length;
+        for (int i = 0; i < count; i++) {
+            int slot = (start + i) % times.length;
+            events.add(new Event(times[slot], names[slot], subjects[slot], values[slot]));
+        }
+        return events;
+    }
+
+    /**
+     * Puts {@code older} events, e.g. from the previous process, before the ones recorded so far.
+     * The newest events win when they do not all fit.
+     */
+    public synchronized void prepend(List<Event> older) {
+        List<Event> current = events();
+        next = 0;
+        count = 0;
+        for (Event event : older) {
+            add(event.time, event.name, event.subject, event.value);
+        }
+        for (Event event : current) {
+            add(event.time, event.name, event.subject, event.value);
+        }
+    }
+
+    /** Compact JSON: an array of [time, name, subject, value] arrays, oldest first. */
+    public String toJson() {
+        JSONArray array = new JSONArray();
+        for (Event event : events()) {
+            JSONArray row = new JSONArray();
+            row.put(event.time);
+            row.put(event.name);
+            row.put(event.subject != null ? event.subject : "");
+            row.put(event.value);
+            array.put(row);
+        }
+        return array.toString();
+    }
+
+    public void save(File file) throws IOException {
+        List<Event> events = events();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(events.size());
+            for (Event event : events) {
+                out.writeLong(event.time);
+                out.writeUTF(event.name);
+                out.writeUTF(event.subject != null ? event.subject : "");
+                out.writeLong(event.value);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Failed to replace " + file);
+        }
+    }
+
+    /** The events saved in {@code file}, oldest first; empty if it is missing or unreadable. */
+    public static List<Event> load(File file) {
+        List<Event> events = new ArrayList<>();
+        if (!file.isFile()) return events;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return events;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long time = in.readLong();
+                String name = in.readUTF();
+                String subject = in.readUTF();
+                events.add(new Event(time, name, subject.isEmpty() ? null : subject, in.readLong()));
+            }
+        } catch (IOException e) {
+            events.clear();
+        }
+        return events;
+    }
+}
@@ -0,0 +1,143 @@
+package com.vk7days.taskscheduler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The next few occurrences across all tasks, precomputed by {@link AlarmScheduler} whenever the
+ * schedule changes and saved as a small binary file, so {@link UpcomingWidgetProvider} can
+ * render the home-screen widget without the scheduler, the WebView or any recurrence math.
+ *
+ * Pure Java (no Android types) so it can be unit tested.
+ */
+public final class UpcomingSnapshot {
+    // More than the widget shows, so it still has rows after the first few have rung
+    public static final int CAPACITY = 8;
+
+    private static final int MAGIC = 0x564B3755; // "VK7U"
+    private static final int VERSION = 1;
+
+    public static final class Item {
+        public final String taskId;
+        public final String title;
+        public final long triggerTime;
+
+        public Item(String taskId, String title, long triggerTime) {
+            this.taskId = taskId;
+            this.title = title;
+            this.triggerTime = triggerTime;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Item)) return false;
+            Item other = (Item) o;
+            return triggerTime == other.triggerTime && taskId.equals(other.taskId) && title.equals(other.title);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(taskId, title, triggerTime);
+        }
+    }
+
+    private final List<Item> items;
+
+    public UpcomingSnapshot(List<Item> items) {
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+    }
+
+    /** A snapshot of {@code occurrences}, as returned by {@link AlarmScheduler#upcoming}. */
+    public static UpcomingSnapshot of(List<AlarmEntry> occurrences) {
+        List<Item> items = new ArrayList<>(Math.min(occurrences.size(), CAPACITY));
+        for (AlarmEntry entry : occurrences) {
+            if (items.size() == CAPACITY) break;
+            items.add(new Item(entry.getBaseTaskId(), entry.taskTitle != null ? entry.taskTitle : "", entry.triggerTime));
+        }
+        return new UpcomingSnapshot(items);
+    }
+
+    /** Up to {@code limit} items still to come at {@code now}, earliest first. */
+    public List<Item> after(long now, int limit) {
+        List<Item> result = new ArrayList<>(limit);
+        for (Item item : items) {
+            if (result.size() == limit) break;
+            if (item.triggerTime > now) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /** "Today", "Tomorrow" or the short weekday name, from {@code now}'s local date in {@code zone}. */
+    public static String dayLabel(long triggerTime, long now, ZoneId zone, Locale locale) {
+        ZonedDateTime when = ZonedDateTime.ofInstant(Instant.ofEpochMilli(triggerTime), zone);
+        LocalDate today = ZonedDateTime.ofInstant(Instant.ofEpochMilli(now), zone).toLocalDate();
+        if (when.toLocalDate().equals(today)) return "Today";
+        if (when.toLocalDate().equals(today.plusDays(1))) return "Tomorrow";
+        return when.getDayOfWeek().getDisplayName(TextStyle.SHORT, locale);
+    }
+
+    public void save(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeByte(items.size());
+            for (Item item : items) {
+                out.writeLong(item.triggerTime);
+                out.writeUTF(item.taskId);
+                out.writeUTF(item.title);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Failed to replace " + file);
+        }
+    }
+
+    /** The saved snapshot; missing or unreadable files read as empty. */
+    public static UpcomingSnapshot load(File file) {
+        List<Item> items = new ArrayList<>();
+        if (!file.isFile()) return new UpcomingSnapshot(items);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return new UpcomingSnapshot(items);
+            }
+            int count = in.readUnsignedByte();
+            for (int i = 0; i < count; i++) {
+                long triggerTime = in.readLong();
+                items.add(new Item(in.readUTF(), in.readUTF(), triggerTime));
+            }
+        } catch (IOException e) {
+            items.clear();
+        }
+        return new UpcomingSnapshot(items);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof UpcomingSnapshot && items.equals(((UpcomingSnapshot) o).items);
+    }
+
+    @Override
+    public int hashCode() {
+        return items.hashCode();
+    }
+}
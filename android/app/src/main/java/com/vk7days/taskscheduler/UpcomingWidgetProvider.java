@@ -0,0 +1,159 @@
+package com.vk7days.taskscheduler;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.view.View;
+import android.widget.RemoteViews;
+
+import java.io.File;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Home-screen widget listing the next few tasks. It renders straight from the
+ * {@link UpcomingSnapshot} file, so an update is a small file read and a RemoteViews push,
+ * with no WebView, bridge or scheduler involved.
+ *
+ * There is no update period: {@link AlarmScheduler} pushes a new snapshot whenever the
+ * schedule changes or an alarm fires, and a non-waking alarm at local midnight relabels
+ * "Tomorrow" as "Today" the next time the device is awake anyway.
+ */
+public class UpcomingWidgetProvider extends AppWidgetProvider {
+    private static final String TAG = "VK7Days_Widget";
+    public static final String SNAPSHOT_FILE = "upcoming.bin";
+    static final String ACTION_DAY_ROLLOVER = "com.vk7days.taskscheduler.WIDGET_DAY_ROLLOVER";
+
+    // Next to ArmedAlarm.REQUEST_CODE; only has to differ from it
+    private static final int ROLLOVER_REQUEST_CODE = 7001;
+    // The alarm notifications open MainActivity too, with request codes from 0 and their own
+    // extras; sharing one would let either side overwrite the other's
+    private static final int OPEN_APP_REQUEST_CODE = 7002;
+    private static final int[] ROW_IDS = {R.id.widget_row_0, R.id.widget_row_1, R.id.widget_row_2, R.id.widget_row_3};
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm", Locale.ROOT);
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        // A first widget may find no snapshot yet; the scheduler writes one off the main thread
+        final PendingResult result = goAsync();
+        final Context appContext = context.getApplicationContext();
+        AlarmExecutor.execute(() -> {
+            try {
+                if (!snapshotFile(appContext).isFile()) {
+                    AlarmScheduler.getInstance(appContext).publishUpcoming();
+                }
+                render(appContext, appWidgetManager, appWidgetIds);
+            } finally {
+                result.finish();
+            }
+        });
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (ACTION_DAY_ROLLOVER.equals(intent.getAction())) {
+            AlarmTrace.d(TAG, "Day rolled over");
+            final PendingResult result = goAsync();
+            final Context appContext = context.getApplicationContext();
+            AlarmExecutor.execute(() -> {
+                try {
+                    refresh(appContext);
+                } finally {
+                    result.finish();
+                }
+            });
+            return;
+        }
+        super.onReceive(context, intent);
+    }
+
+    @Override
+    public void onDisabled(Context context) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        alarmManager.cancel(rolloverIntent(context));
+    }
+
+    static File snapshotFile(Context context) {
+        return new File(context.getFilesDir(), SNAPSHOT_FILE);
+    }
+
+    /** True when at least one widget is on the home screen; the scheduler skips snapshots otherwise. */
+    static boolean hasWidgets(Context context) {
+        return widgetIds(context).length > 0;
+    }
+
+    /** Redraws every widget from the saved snapshot. */
+    static void refresh(Context context) {
+        int[] appWidgetIds = widgetIds(context);
+        if (appWidgetIds.length > 0) {
+            render(context, AppWidgetManager.getInstance(context), appWidgetIds);
+        }
+    }
+
+    private static int[] widgetIds(Context context) {
+        return AppWidgetManager.getInstance(context)
+            .getAppWidgetIds(new ComponentName(context, UpcomingWidgetProvider.class));
+    }
+
+    private static void render(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        long startedAt = SystemClock.elapsedRealtimeNanos();
+        long now = System.currentTimeMillis();
+        ZoneId zone = ZoneId.systemDefault();
+        List<UpcomingSnapshot.Item> items = UpcomingSnapshot.load(snapshotFile(context)).after(now, ROW_IDS.length);
+
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_upcoming);
+        for (int i = 0; i < ROW_IDS.length; i++) {
+            if (i < items.size()) {
+                UpcomingSnapshot.Item item = items.get(i);
+                String when = UpcomingSnapshot.dayLabel(item.triggerTime, now, zone, Locale.getDefault()) + " "
+                    + TIME.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(item.triggerTime), zone));
+                views.setTextViewText(ROW_IDS[i], when + "  " + item.title);
+                views.setViewVisibility(ROW_IDS[i], View.VISIBLE);
+            } else {
+                views.setViewVisibility(ROW_IDS[i], View.GONE);
+            }
+        }
+        views.setViewVisibility(R.id.widget_empty, items.isEmpty() ? View.VISIBLE : View.GONE);
+        views.setOnClickPendingIntent(R.id.widget_root, openAppIntent(context));
+        appWidgetManager.updateAppWidget(appWidgetIds, views);
+
+        scheduleRollover(context, zone);
+        if (AlarmTrace.ENABLED) {
+            AlarmTrace.d(TAG, "Rendered %d upcoming tasks in %dus", items.size(),
+                (SystemClock.elapsedRealtimeNanos() - startedAt) / 1000);
+        }
+    }
+
+    /** Relabels the rows at the next local midnight; RTC, so it never wakes the device for it. */
+    private static void scheduleRollover(Context context, ZoneId zone) {
+        long midnight = LocalDate.now(zone).plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        alarmManager.set(AlarmManager.RTC, midnight, rolloverIntent(context));
+    }
+
+    private static PendingIntent rolloverIntent(Context context) {
+        Intent intent = new Intent(context, UpcomingWidgetProvider.class);
+        intent.setAction(ACTION_DAY_ROLLOVER);
+        return PendingIntent.getBroadcast(
+            context, ROLLOVER_REQUEST_CODE, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    private static PendingIntent openAppIntent(Context context) {
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        return PendingIntent.getActivity(
+            context, OPEN_APP_REQUEST_CODE, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+}
@@ -0,0 +1,139 @@
+package com.vk7days.taskscheduler;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * App-private copies of the custom voice recordings that the web layer keeps in IndexedDB,
+ * so {@link AlarmSoundService} can loop a task's recording straight from disk without the
+ * WebView. Recordings arrive in chunks and are written to a temp file that is renamed into
+ * place on the last chunk, so a half-transferred recording is never played.
+ *
+ * File names are a reversible encoding of the task id; the store needs no index.
+ */
+public class VoiceStore {
+    private static final String DIRECTORY = "voices";
+    private static final String EXTENSION = ".webm";
+    private static final String PARTIAL_EXTENSION = ".part";
+
+    // Recordings are short voice notes; anything larger is a bug or abuse
+    public static final long MAX_RECORDING_BYTES = 10 * 1024 * 1024;
+
+    private static VoiceStore instance;
+
+    private final File directory;
+
+    public static synchronized VoiceStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new VoiceStore(new File(context.getFilesDir(), DIRECTORY));
+        }
+        return instance;
+    }
+
+    public VoiceStore(File directory) {
+        this.directory = directory;
+    }
+
+    /** The saved recording for {@code taskId}, or null if none has been fully written. */
+    public File find(String taskId) {
+        File file = fileFor(taskId, EXTENSION);
+        return file.isFile() && file.length() > 0 ? file : null;
+    }
+
+    /**
+     * Writes chunk {@code index} of a recording. Chunk 0 starts a new transfer; the recording
+     * replaces any previous one for the task only when the {@code last} chunk is written.
+     */
+    public synchronized void writeChunk(String taskId, int index, byte[] data, boolean last) throws IOException {
+        File partial = fileFor(taskId, PARTIAL_EXTENSION);
+        if (index == 0) {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create " + directory);
+            }
+        } else if (!partial.isFile()) {
+            throw new IOException("Chunk " + index + " for " + taskId + " without chunk 0");
+        }
+        long written = index > 0 ? partial.length() : 0;
+        if (written + data.length > MAX_RECORDING_BYTES) {
+            partial.delete();
+            throw new IOException("Recording for " + taskId + " exceeds " + MAX_RECORDING_BYTES + " bytes");
+        }
+
+        try (FileOutputStream out = new FileOutputStream(partial, index > 0)) {
+            out.write(data);
+            if (last) {
+                out.getFD().sync();
+            }
+        }
+
+        if (last && !partial.renameTo(fileFor(taskId, EXTENSION))) {
+            throw new IOException("Failed to store recording for " + taskId);
+        }
+    }
+
+    public synchronized boolean delete(String taskId) {
+        fileFor(taskId, PARTIAL_EXTENSION).delete();
+        return fileFor(taskId, EXTENSION).delete();
+    }
+
+    /** Task ids that have a complete recording on disk. */
+    public synchronized List<String> taskIds() {
+        List<String> taskIds = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) return taskIds;
+
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(EXTENSION) && file.length() > 0) {
+                String taskId = decode(name.substring(0, name.length() - EXTENSION.length()));
+                if (taskId != null) {
+                    taskIds.add(taskId);
+                }
+            }
+        }
+        return taskIds;
+    }
+
+    private File fileFor(String taskId, String extension) {
+        return new File(directory, encode(taskId) + extension);
+    }
+
+    /** Letters, digits and '-' are kept; every other char becomes '_' and four hex digits. */
+    static String encode(String taskId) {
+        StringBuilder name = new StringBuilder(taskId.length() + 8);
+        for (int i = 0; i < taskId.length(); i++) {
+            char c = taskId.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-') {
+                name.append(c);
+            } else {
+                name.append('_').append(String.format(Locale.ROOT, "%04x", (int) c));
+            }
+        }
+        return name.toString();
+    }
+
+    static String decode(String name) {
+        StringBuilder taskId = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '_') {
+                taskId.append(c);
+                continue;
+            }
+            if (i + 5 > name.length()) return null;
+            try {
+                taskId.append((char) Integer.parseInt(name.substring(i + 1, i + 5), 16));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            i += 4;
+        }
+        return taskId.toString();
+    }
+}
@@ -0,0 +1,157 @@
+package com.vk7days.taskscheduler;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A task that repeats every week on one day at one local time, resolved to epoch millis
+ * with java.time so DST and time zone changes are handled in one place:
+ *
+ * - In a DST gap (e.g. 02:30 on a spring-forward night) the alarm fires at the instant
+ *   the gap ends, the first moment the wall clock is past the requested time.
+ * - In a DST overlap (e.g. 01:30 on a fall-back night) the alarm fires once, at the
+ *   earlier of the two instants.
+ *
+ * Each instance caches the next {@link #CACHE_SIZE} occurrences for the zone it was last
+ * asked about, so repeated lookups are a binary search instead of a zone-rules walk.
+ */
+public final class WeeklyRecurrence {
+    public static final int CACHE_SIZE = 4;
+
+    public final DayOfWeek day;
+    public final LocalTime time;
+
+    private ZoneId cachedZone;
+    private long cachedFrom;
+    private long[] cached;
+
+    public WeeklyRecurrence(DayOfWeek day, LocalTime time) {
+        this.day = day;
+        this.time = time;
+    }
+
+    /** Parses a {@code storage.js} day key and "HH:mm" time; returns null if either is invalid. */
+    public static WeeklyRecurrence of(String dayKey, String taskTime) {
+        DayOfWeek day = parseDay(dayKey);
+        LocalTime time = parseTime(taskTime);
+        return day == null || time == null ? null : new WeeklyRecurrence(day, time);
+    }
+
+    /** First occurrence strictly after {@code afterMillis}. */
+    public synchronized long nextAfter(long afterMillis, ZoneId zone) {
+        // The cache holds the first CACHE_SIZE occurrences after cachedFrom, so it can answer
+        // any query in [cachedFrom, last cached occurrence)
+        if (cached == null || !zone.equals(cachedZone)
+                || afterMillis < cachedFrom || afterMillis >= cached[CACHE_SIZE - 1]) {
+            cached = compute(afterMillis, zone, CACHE_SIZE);
+            cachedZone = zone;
+            cachedFrom = afterMillis;
+            return cached[0];
+        }
+
+        int index = Arrays.binarySearch(cached, afterMillis);
+        return cached[index >= 0 ? index + 1 : -index - 1];
+    }
+
+    /** The next {@code count} occurrences strictly after {@code afterMillis}, in order. */
+    public long[] nextOccurrences(long afterMillis, ZoneId zone, int count) {
+        return compute(afterMillis, zone, count);
+    }
+
+    /**
+     * Resolves the next occurrence of every recurrence in one pass: the zone rules and the
+     * seven candidate dates are derived once and shared by all entries. Null entries
+     * resolve to 0.
+     */
+    public static long[] resolveAll(List<WeeklyRecurrence> recurrences, long afterMillis, ZoneId zone) {
+        ZoneRules rules = zone.getRules();
+        LocalDate today = LocalDateTime.ofInstant(Instant.ofEpochMilli(afterMillis), zone).toLocalDate();
+
+        LocalDate[] dates = new LocalDate[8];
+        for (DayOfWeek day : DayOfWeek.values()) {
+            dates[day.getValue()] = today.with(TemporalAdjusters.nextOrSame(day));
+        }
+
+        long[] result = new long[recurrences.size()];
+        for (int i = 0; i < result.length; i++) {
+            WeeklyRecurrence recurrence = recurrences.get(i);
+            if (recurrence == null) continue;
+
+            LocalDate date = dates[recurrence.day.getValue()];
+            long millis = toEpochMillis(rules, date.atTime(recurrence.time));
+            if (millis <= afterMillis) {
+                millis = toEpochMillis(rules, date.plusWeeks(1).atTime(recurrence.time));
+            }
+            result[i] = millis;
+        }
+        return result;
+    }
+
+    private long[] compute(long afterMillis, ZoneId zone, int count) {
+        ZoneRules rules = zone.getRules();
+        LocalDate date = LocalDateTime.ofInstant(Instant.ofEpochMilli(afterMillis), zone)
+            .toLocalDate()
+            .with(TemporalAdjusters.nextOrSame(day));
+
+        long[] result = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            long millis = toEpochMillis(rules, date.atTime(time));
+            if (millis > afterMillis) {
+                result[filled++] = millis;
+            }
+            date = date.plusWeeks(1);
+        }
+        return result;
+    }
+
+    static long toEpochMillis(ZoneRules rules, LocalDateTime local) {
+        List<ZoneOffset> offsets = rules.getValidOffsets(local);
+        if (offsets.isEmpty()) {
+            // DST gap: fire when the clock jumps past the requested time
+            ZoneOffsetTransition gap = rules.getTransition(local);
+            return gap.getInstant().toEpochMilli();
+        }
+        // Normal time has one offset; an overlap has two and the earlier instant wins
+        return local.toInstant(offsets.get(0)).toEpochMilli();
+    }
+
+    static DayOfWeek parseDay(String dayKey) {
+        if (dayKey == null) return null;
+        try {
+            return DayOfWeek.valueOf(dayKey.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static LocalTime parseTime(String taskTime) {
+        if (taskTime == null) return null;
+        int colon = taskTime.indexOf(':');
+        if (colon < 0) return null;
+        try {
+            int hours = Integer.parseInt(taskTime.substring(0, colon).trim());
+            int minutes = Integer.parseInt(taskTime.substring(colon + 1).trim());
+            if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) return null;
+            return LocalTime.of(hours, minutes);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return day.name().toLowerCase(Locale.ROOT) + " " + time;
+    }
+}
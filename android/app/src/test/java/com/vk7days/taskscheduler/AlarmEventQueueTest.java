@@ -0,0 +1,36 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for the bounded queue that holds alarm events until JS listens.
+ */
+public class AlarmEventQueueTest {
+
+    @Test
+    public void drainReturnsEventsOldestFirstAndEmptiesTheQueue() {
+        AlarmEventQueue<String> queue = new AlarmEventQueue<>(4);
+        queue.offer("a");
+        queue.offer("b");
+
+        assertEquals(Arrays.asList("a", "b"), queue.drain());
+        assertEquals(0, queue.size());
+        assertEquals(Collections.emptyList(), queue.drain());
+    }
+
+    @Test
+    public void fullQueueDropsTheOldestEvent() {
+        AlarmEventQueue<String> queue = new AlarmEventQueue<>(2);
+        queue.offer("a");
+        queue.offer("b");
+        queue.offer("c");
+
+        assertEquals(1, queue.droppedCount());
+        assertEquals(Arrays.asList("b", "c"), queue.drain());
+    }
+}
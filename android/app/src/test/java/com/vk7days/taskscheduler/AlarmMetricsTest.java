@@ -0,0 +1,100 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * JVM tests for alarm latency recording, histogram precision and snapshot persistence.
+ */
+public class AlarmMetricsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long now;
+    private File snapshot;
+    private AlarmMetrics metrics;
+
+    @Before
+    public void setUp() {
+        now = 1_700_000_000_000L;
+        snapshot = new File(folder.getRoot(), "metrics.bin");
+        metrics = new AlarmMetrics(snapshot, () -> now);
+    }
+
+    @Test
+    public void histogramReportsPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1000, histogram.count());
+        assertWithinPrecision(500, histogram.percentile(50));
+        assertWithinPrecision(950, histogram.percentile(95));
+        assertWithinPrecision(990, histogram.percentile(99));
+        assertWithinPrecision(1000, histogram.max());
+        assertEquals(0, new LatencyHistogram().percentile(50));
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(index));
+            assertTrue(index == 0 || value > LatencyHistogram.upperBoundOf(index - 1));
+        }
+    }
+
+    @Test
+    public void lateDeliveriesCountAsMissed() {
+        metrics.record(AlarmMetrics.Stage.RECEIVED, now - 800);
+        metrics.record(AlarmMetrics.Stage.RECEIVED, now - TimeUnit.MINUTES.toMillis(20));
+        metrics.record(AlarmMetrics.Stage.AUDIBLE, now - TimeUnit.MINUTES.toMillis(20));
+        metrics.record(AlarmMetrics.Stage.RECEIVED, now + 500); // early, counts as 0
+
+        assertEquals(1, metrics.missedCount());
+        assertEquals(3, metrics.histogram(AlarmMetrics.Stage.RECEIVED).count());
+        assertEquals(0, metrics.recentSamples().get(3).delayMs);
+    }
+
+    @Test
+    public void ringKeepsOnlyMostRecentSamples() {
+        for (int i = 0; i < AlarmMetrics.RING_CAPACITY + 10; i++) {
+            metrics.record(AlarmMetrics.Stage.FOREGROUND, now - i);
+        }
+
+        List<AlarmMetrics.Sample> recent = metrics.recentSamples();
+        assertEquals(AlarmMetrics.RING_CAPACITY, recent.size());
+        assertEquals(10, recent.get(0).delayMs);
+        assertEquals(AlarmMetrics.RING_CAPACITY + 9, recent.get(recent.size() - 1).delayMs);
+    }
+
+    @Test
+    public void snapshotSurvivesRestart() throws Exception {
+        metrics.record(AlarmMetrics.Stage.RECEIVED, now - TimeUnit.MINUTES.toMillis(10));
+        metrics.record(AlarmMetrics.Stage.DISMISSED, now - 42_000);
+        metrics.save();
+
+        AlarmMetrics restored = new AlarmMetrics(snapshot, () -> now);
+        restored.load();
+
+        assertEquals(1, restored.missedCount());
+        assertEquals(1, restored.histogram(AlarmMetrics.Stage.DISMISSED).count());
+        assertWithinPrecision(42_000, restored.histogram(AlarmMetrics.Stage.DISMISSED).percentile(50));
+        assertEquals(2, restored.recentSamples().size());
+        assertEquals(AlarmMetrics.Stage.DISMISSED, restored.recentSamples().get(1).stage);
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+            actual >= expected && actual <= expected + expected / 8);
+    }
+}
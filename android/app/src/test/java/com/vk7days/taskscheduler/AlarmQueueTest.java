@@ -0,0 +1,239 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JVM tests for the in-process alarm timeline, driven by a fake clock.
+ */
+public class AlarmQueueTest {
+    private static final long WEEK = TimeUnit.DAYS.toMillis(7);
+    private static final ZoneId UTC = ZoneId.of("UTC");
+
+    private long now;
+    private AlarmQueue queue;
+
+    @Before
+    public void setUp() {
+        now = 1_700_000_000_000L;
+        queue = new AlarmQueue(() -> now, UTC);
+    }
+
+    @Test
+    public void peekReturnsEarliestAlarm() {
+        queue.put(entry("b", now + 3000));
+        queue.put(entry("a", now + 1000));
+        queue.put(entry("c", now + 2000));
+
+        assertEquals("a", queue.peek().taskId);
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    public void putReplacesExistingTask() {
+        queue.put(entry("a", now + 1000));
+        queue.put(entry("b", now + 2000));
+        queue.put(entry("a", now + 5000));
+
+        assertEquals(2, queue.size());
+        assertEquals("b", queue.peek().taskId);
+        assertEquals(now + 5000, queue.get("a").triggerTime);
+    }
+
+    @Test
+    public void removeKeepsHeapOrdered() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            queue.put(entry("task" + i, now + random.nextInt(1_000_000)));
+        }
+        for (int i = 0; i < 500; i += 3) {
+            assertNotNull(queue.remove("task" + i));
+        }
+        assertNull(queue.remove("missing"));
+
+        long previous = Long.MIN_VALUE;
+        List<String> drained = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            AlarmEntry head = queue.peek();
+            assertTrue(head.triggerTime >= previous);
+            previous = head.triggerTime;
+            drained.add(head.taskId);
+            queue.remove(head.taskId);
+        }
+        assertEquals(333, drained.size());
+    }
+
+    @Test
+    public void fireDuePopsOnlyDueAlarmsAndRequeuesNextWeek() {
+        queue.put(entry("a", now + 60_000));
+        queue.put(entry("b", now + 60_000));
+        queue.put(entry("c", now + 120_000));
+
+        assertTrue(queue.fireDue().isEmpty());
+
+        now += 60_000;
+        List<AlarmEntry> fired = queue.fireDue();
+
+        assertEquals(2, fired.size());
+        assertEquals("a", fired.get(0).taskId);
+        assertEquals("b", fired.get(1).taskId);
+        assertEquals(3, queue.size());
+        assertEquals("c", queue.peek().taskId);
+        assertEquals(now + WEEK, queue.get("a").triggerTime);
+    }
+
+    @Test
+    public void fireDueSkipsMissedWeeks() {
+        queue.put(entry("a", now));
+
+        now += 3 * WEEK + 1;
+        List<AlarmEntry> fired = queue.fireDue();
+
+        assertEquals(1, fired.size());
+        assertTrue(queue.get("a").triggerTime > now);
+        assertEquals(fired.get(0).triggerTime + 4 * WEEK, queue.get("a").triggerTime);
+    }
+
+    @Test
+    public void nextWeekKeepsLocalTimeAcrossDst() {
+        ZoneId berlin = ZoneId.of("Europe/Berlin");
+        // Monday 2024-04-01 09:00 CEST is one week after Monday 2024-03-25 09:00 CET
+        long beforeDst = 1711353600000L;
+        AlarmEntry next = entry("a", beforeDst).nextAfter(beforeDst, berlin);
+
+        assertEquals(1711954800000L, next.triggerTime);
+        assertEquals(WEEK - TimeUnit.HOURS.toMillis(1), next.triggerTime - beforeDst);
+    }
+
+    @Test
+    public void recomputeOnlyTouchesShiftedOccurrences() {
+        ZoneId kolkata = ZoneId.of("Asia/Kolkata");
+        // "now" is Tuesday 2023-11-14 22:13:20 UTC
+        AlarmEntry monday = new AlarmEntry("mon", "Mon", "09:00", "monday", false, 0).recomputeAfter(now, UTC);
+        AlarmEntry snooze = new AlarmEntry("snooze", "Snooze", null, null, false, now + 300_000);
+        queue.put(monday);
+        queue.put(snooze);
+
+        assertTrue(queue.recompute(UTC).isEmpty());
+
+        List<AlarmEntry> changed = queue.recompute(kolkata);
+        assertEquals(1, changed.size());
+        assertEquals("mon", changed.get(0).taskId);
+        assertEquals(monday.triggerTime - TimeUnit.MINUTES.toMillis(330), queue.get("mon").triggerTime);
+        assertEquals(now + 300_000, queue.get("snooze").triggerTime);
+    }
+
+    @Test
+    public void reconcileAppliesOnlyTheDelta() {
+        List<AlarmEntry> week = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            week.add(new AlarmEntry("t" + i, "Task " + i, String.format("%02d:%02d", i % 24, i % 60), "wednesday", false, 0));
+        }
+        AlarmQueue.Delta first = queue.reconcile(week);
+        assertEquals(500, first.added.size());
+        long before = queue.get("t7").triggerTime;
+
+        // Edit one task's time and drop another
+        week.set(7, new AlarmEntry("t7", "Task 7", "23:59", "wednesday", false, 0));
+        week.remove(9);
+        AlarmQueue.Delta second = queue.reconcile(week);
+
+        assertEquals(0, second.added.size());
+        assertEquals(1, second.updated.size());
+        assertEquals("t7", second.updated.get(0).taskId);
+        assertEquals(498, second.unchanged.size());
+        assertEquals(1, second.removed.size());
+        assertNull(queue.get("t9"));
+        assertNotEquals(before, queue.get("t7").triggerTime);
+        assertEquals(499, queue.size());
+
+        assertTrue(queue.reconcile(week).isEmpty());
+    }
+
+    @Test
+    public void reconcileDropsTasksThatNoLongerResolve() {
+        queue.reconcile(Collections.singletonList(new AlarmEntry("a", "A", "08:00", "monday", false, 0)));
+
+        AlarmQueue.Delta delta = queue.reconcile(Collections.singletonList(new AlarmEntry("a", "A", "nope", "monday", false, 0)));
+
+        assertEquals(Collections.singletonList("a"), delta.invalid);
+        assertEquals(Collections.singletonList("a"), delta.removed);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void entryRoundTripsThroughBytes() throws Exception {
+        AlarmEntry original = new AlarmEntry("id", null, "07:30", "friday", true, 123L);
+        AlarmEntry copy = AlarmEntry.fromBytes(original.toBytes());
+
+        assertEquals(original.taskId, copy.taskId);
+        assertNull(copy.taskTitle);
+        assertEquals("07:30", copy.taskTime);
+        assertEquals("friday", copy.dayKey);
+        assertTrue(copy.hasCustomVoice);
+        assertEquals(123L, copy.triggerTime);
+    }
+
+    @Test
+    public void snoozeFiresOnceBesideTheWeeklyAlarm() {
+        queue.put(entry("a", now + WEEK));
+        queue.put(entry("a", now + WEEK).snoozedUntil(now + 600_000));
+        assertEquals(2, queue.size());
+
+        now += 600_000;
+        List<AlarmEntry> due = queue.fireDue();
+
+        assertEquals(1, due.size());
+        assertTrue(due.get(0).isSnooze());
+        assertEquals("a", due.get(0).getBaseTaskId());
+        assertEquals(1, queue.size());
+        assertEquals("a", queue.peek().taskId);
+    }
+
+    @Test
+    public void reconcileKeepsSnoozesOfKeptTasksOnly() {
+        queue.reconcile(Arrays.asList(
+            new AlarmEntry("a", "A", "08:00", "monday", false, 0),
+            new AlarmEntry("b", "B", "09:00", "monday", false, 0)));
+        queue.put(queue.get("a").snoozedUntil(now + 600_000));
+        queue.put(queue.get("b").snoozedUntil(now + 600_000));
+
+        AlarmQueue.Delta delta = queue.reconcile(Collections.singletonList(
+            new AlarmEntry("a", "A", "08:00", "monday", false, 0)));
+
+        assertTrue(delta.removed.contains("b"));
+        assertTrue(delta.removed.contains(AlarmEntry.snoozeIdOf("b")));
+        assertNotNull(queue.get(AlarmEntry.snoozeIdOf("a")));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void entryListRoundTripsThroughBytes() throws Exception {
+        List<AlarmEntry> entries = new ArrayList<>();
+        entries.add(new AlarmEntry("a", "A", "07:30", "friday", false, 1L));
+        entries.add(new AlarmEntry("b", null, null, null, true, 2L));
+
+        List<AlarmEntry> copy = AlarmEntry.listFromBytes(AlarmEntry.toBytes(entries));
+
+        assertEquals(2, copy.size());
+        assertEquals("a", copy.get(0).taskId);
+        assertEquals("07:30", copy.get(0).taskTime);
+        assertTrue(copy.get(1).hasCustomVoice);
+        assertEquals(2L, copy.get(1).triggerTime);
+    }
+
+    private static AlarmEntry entry(String taskId, long triggerTime) {
+        // No weekly slot, so the entry repeats in whole weeks from its own trigger time
+        return new AlarmEntry(taskId, "Title " + taskId, null, null, false, triggerTime);
+    }
+}
@@ -0,0 +1,104 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JVM tests for coalescing alarms that fire together into one ringing session.
+ */
+public class AlarmSessionTest {
+    private long now;
+    private AlarmSession session;
+
+    @Before
+    public void setUp() {
+        now = 1_700_000_000_000L;
+        session = new AlarmSession(60_000);
+    }
+
+    @Test
+    public void alarmsInTheSameMinuteMergeIntoOneSession() {
+        assertEquals(AlarmSession.Result.STARTED, session.add(entry("a"), now));
+        assertEquals(AlarmSession.Result.MERGED, session.add(entry("b"), now + 200));
+        assertEquals(AlarmSession.Result.MERGED, session.add(entry("c"), now + 59_000));
+
+        List<AlarmEntry> alarms = session.alarms();
+        assertEquals(3, alarms.size());
+        assertEquals("a", alarms.get(0).taskId);
+        assertEquals("c", alarms.get(2).taskId);
+    }
+
+    @Test
+    public void lateAlarmJoinsButIsReportedAsLate() {
+        session.add(entry("a"), now);
+        assertEquals(AlarmSession.Result.JOINED_LATE, session.add(entry("b"), now + 61_000));
+        assertEquals(2, session.size());
+    }
+
+    @Test
+    public void repeatedDeliveryOfARingingTaskIsADuplicate() {
+        session.add(entry("a"), now);
+        assertEquals(AlarmSession.Result.DUPLICATE, session.add(entry("a"), now + 10));
+        assertEquals(1, session.size());
+    }
+
+    @Test
+    public void dismissingOneTaskKeepsTheOthersAndTheirSlots() {
+        session.add(entry("a"), now);
+        session.add(entry("b"), now);
+        session.add(entry("c"), now);
+
+        assertEquals("b", session.dismiss("b").taskId);
+        assertNull(session.dismiss("b"));
+        assertEquals(-1, session.slotOf("b"));
+        assertEquals(0, session.slotOf("a"));
+        assertEquals(2, session.slotOf("c"));
+        assertEquals(2, session.size());
+    }
+
+    @Test
+    public void lastDismissalEndsTheSessionAndTheNextAlarmStartsANewOne() {
+        session.add(entry("a"), now);
+        session.dismiss("a");
+        assertTrue(session.isEmpty());
+
+        // A new session starts its window and slots afresh
+        assertEquals(AlarmSession.Result.STARTED, session.add(entry("b"), now + 600_000));
+        assertEquals(0, session.slotOf("b"));
+        assertEquals(AlarmSession.Result.MERGED, session.add(entry("c"), now + 610_000));
+    }
+
+    @Test
+    public void dismissAllReturnsEveryRingingAlarm() {
+        session.add(entry("a"), now);
+        session.add(entry("b"), now);
+
+        assertEquals(2, session.dismissAll().size());
+        assertTrue(session.isEmpty());
+    }
+
+    @Test
+    public void dismissingTheVoicedTaskHandsTheSoundToTheNextAlarm() {
+        session.add(entry("a"), now);
+        session.add(entry("b"), now);
+        session.setVoiceTask("a");
+
+        // Another task's dismissal leaves the voice playing
+        session.add(entry("c"), now);
+        session.dismiss("c");
+        assertNull(session.takeSoundHandover());
+
+        session.dismiss("a");
+        assertNull(session.voiceTaskId());
+        assertEquals("b", session.takeSoundHandover().taskId);
+        assertNull(session.takeSoundHandover());
+    }
+
+    private AlarmEntry entry(String taskId) {
+        return new AlarmEntry(taskId, "Task " + taskId, "08:00", "monday", false, now);
+    }
+}
@@ -0,0 +1,152 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for the single-armed-alarm strategy against a recording backend.
+ */
+public class ArmedAlarmTest {
+    private static final long MONDAY_9AM = 1_700_000_000_000L;
+
+    /** Records backend calls as "set <code> <time>", "window <code> <start> <length>" and "cancel <code>". */
+    private static class RecordingBackend implements AlarmBackend {
+        final List<String> calls = new ArrayList<>();
+        long minWindowLength = 1;
+
+        @Override
+        public void setExact(int requestCode, long triggerTime) {
+            calls.add("set " + requestCode + " " + triggerTime);
+        }
+
+        @Override
+        public void setWindow(int requestCode, long windowStart, long windowLength) {
+            calls.add("window " + requestCode + " " + windowStart + " " + windowLength);
+        }
+
+        @Override
+        public long minWindowLength() {
+            return minWindowLength;
+        }
+
+        @Override
+        public void cancel(int requestCode) {
+            calls.add("cancel " + requestCode);
+        }
+    }
+
+    private static final long MINUTE = 60_000;
+
+    private static AlarmEntry entryAt(long triggerTime) {
+        return entryAt("task", triggerTime);
+    }
+
+    private static AlarmEntry entryAt(String taskId, long triggerTime) {
+        return new AlarmEntry(taskId, "Task", "09:00", "monday", false, triggerTime);
+    }
+
+    @Test
+    public void armsOnceForTheSameTriggerTime() {
+        RecordingBackend backend = new RecordingBackend();
+        ArmedAlarm armed = new ArmedAlarm(backend);
+
+        assertTrue(armed.arm(entryAt(MONDAY_9AM)));
+        assertFalse(armed.arm(entryAt(MONDAY_9AM)));
+
+        assertEquals(1, armed.backendCalls());
+        assertEquals("set " + ArmedAlarm.REQUEST_CODE + " " + MONDAY_9AM, backend.calls.get(0));
+        assertTrue(armed.isArmed());
+    }
+
+    @Test
+    public void movingTheHeadReplacesTheRegistration() {
+        RecordingBackend backend = new RecordingBackend();
+        ArmedAlarm armed = new ArmedAlarm(backend);
+
+        armed.arm(entryAt(MONDAY_9AM));
+        armed.arm(entryAt(MONDAY_9AM - 60_000));
+
+        assertEquals(2, backend.calls.size());
+        assertEquals("set " + ArmedAlarm.REQUEST_CODE + " " + (MONDAY_9AM - 60_000), backend.calls.get(1));
+    }
+
+    @Test
+    public void emptyQueueDisarmsOnce() {
+        RecordingBackend backend = new RecordingBackend();
+        ArmedAlarm armed = new ArmedAlarm(backend);
+
+        armed.arm(entryAt(MONDAY_9AM));
+        assertTrue(armed.arm(null));
+        assertFalse(armed.arm(null));
+
+        assertEquals("cancel " + ArmedAlarm.REQUEST_CODE, backend.calls.get(1));
+        assertFalse(armed.isArmed());
+    }
+
+    @Test
+    public void invalidateForcesTheNextArm() {
+        RecordingBackend backend = new RecordingBackend();
+        ArmedAlarm armed = new ArmedAlarm(backend);
+
+        armed.arm(entryAt(MONDAY_9AM));
+        armed.invalidate();
+
+        assertTrue(armed.arm(entryAt(MONDAY_9AM)));
+        assertEquals(2, armed.backendCalls());
+    }
+
+    @Test
+    public void batchWindowOpensAtTheLastAlarmWithinTolerance() {
+        RecordingBackend backend = new RecordingBackend();
+        ArmedAlarm armed = new ArmedAlarm(backend);
+        AlarmQueue queue = new AlarmQueue(() -> MONDAY_9AM - 60 * MINUTE, ZoneOffset.UTC);
+        queue.put(entryAt("a", MONDAY_9AM));
+        queue.put(entryAt("b", MONDAY_9AM + 4 * MINUTE));
+        queue.put(entryAt("c", MONDAY_9AM + 7 * MINUTE));
+        queue.put(entryAt("d", MONDAY_9AM + 11 * MINUTE));
+
+        assertTrue(armed.armBatch(queue, 10 * MINUTE));
+        assertFalse(armed.armBatch(queue, 10 * MINUTE));
+
+        // a, b and c ring together at 9:07-9:10; none early, none more than 10 minutes late
+        assertEquals("window " + ArmedAlarm.REQUEST_CODE + " " + (MONDAY_9AM + 7 * MINUTE) + " " + 3 * MINUTE,
+            backend.calls.get(0));
+        assertEquals(1, armed.backendCalls());
+    }
+
+    @Test
+    public void alarmOnTheDeadlineGoesToTheNextBatch() {
+        RecordingBackend backend = new RecordingBackend();
+        ArmedAlarm armed = new ArmedAlarm(backend);
+        AlarmQueue queue = new AlarmQueue(() -> MONDAY_9AM - 60 * MINUTE, ZoneOffset.UTC);
+        queue.put(entryAt("a", MONDAY_9AM));
+        queue.put(entryAt("b", MONDAY_9AM + 10 * MINUTE));
+
+        armed.armBatch(queue, 10 * MINUTE);
+
+        // A zero-length window would be an exact alarm, which batched mode may not set
+        assertEquals("window " + ArmedAlarm.REQUEST_CODE + " " + MONDAY_9AM + " " + 10 * MINUTE, backend.calls.get(0));
+    }
+
+    @Test
+    public void batchLeavesRoomForTheMinimumWindow() {
+        RecordingBackend backend = new RecordingBackend();
+        backend.minWindowLength = 10 * MINUTE;
+        ArmedAlarm armed = new ArmedAlarm(backend);
+        AlarmQueue queue = new AlarmQueue(() -> MONDAY_9AM - 60 * MINUTE, ZoneOffset.UTC);
+        queue.put(entryAt("a", MONDAY_9AM));
+        queue.put(entryAt("b", MONDAY_9AM + 4 * MINUTE));
+        queue.put(entryAt("c", MONDAY_9AM + 7 * MINUTE));
+
+        armed.armBatch(queue, 15 * MINUTE);
+
+        // c would leave only 8 minutes before the 9:15 deadline, so a and b ring at 9:04-9:15
+        assertEquals("window " + ArmedAlarm.REQUEST_CODE + " " + (MONDAY_9AM + 4 * MINUTE) + " " + 11 * MINUTE,
+            backend.calls.get(0));
+    }
+}
@@ -0,0 +1,64 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * JVM tests for the journal of tasks marked done or skipped from the notification.
+ */
+public class CompletionJournalTest {
+    private static final ZoneId UTC = ZoneOffset.UTC;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static long at(String localDateTime) {
+        return LocalDateTime.parse(localDateTime).atZone(UTC).toInstant().toEpochMilli();
+    }
+
+    private File file() {
+        return new File(folder.getRoot(), "completions.log");
+    }
+
+    @Test
+    public void oneRecordPerTaskAndDaySurvivesReopening() throws Exception {
+        CompletionJournal journal = new CompletionJournal(file());
+        journal.record("walk", CompletionJournal.Status.DONE, at("2024-04-01T09:00"), at("2024-04-01T09:01"), UTC);
+        journal.record("walk", CompletionJournal.Status.SKIPPED, at("2024-04-01T18:00"), at("2024-04-01T18:02"), UTC);
+        journal.record("walk", CompletionJournal.Status.DONE, at("2024-04-02T09:00"), at("2024-04-02T09:05"), UTC);
+
+        List<CompletionJournal.Record> records = new CompletionJournal(file()).pending();
+        assertEquals(2, records.size());
+        assertEquals(CompletionJournal.Status.SKIPPED, records.get(0).status);
+        assertEquals(at("2024-04-01T18:02"), records.get(0).recordedAt);
+        assertEquals(CompletionJournal.Status.DONE, records.get(1).status);
+    }
+
+    @Test
+    public void acknowledgedSkipsStayUntilTheirDayIsOver() throws Exception {
+        CompletionJournal journal = new CompletionJournal(file());
+        long monday = CompletionJournal.dayOf(at("2024-04-01T09:00"), UTC);
+        String skipped = journal.record("walk", CompletionJournal.Status.SKIPPED, at("2024-04-01T09:00"), 0, UTC).key;
+        String done = journal.record("read", CompletionJournal.Status.DONE, at("2024-04-01T10:00"), 0, UTC).key;
+
+        journal.acknowledge(Collections.singletonList(skipped), monday);
+        assertEquals(1, journal.pending().size());
+        assertTrue(journal.isSkipped("walk", monday));
+        assertFalse(journal.isSkipped("read", monday));
+
+        journal.acknowledge(Collections.singletonList(done), monday + 1);
+        assertTrue(journal.pending().isEmpty());
+        assertEquals(0, journal.size());
+        assertFalse(journal.isSkipped("walk", monday));
+    }
+}
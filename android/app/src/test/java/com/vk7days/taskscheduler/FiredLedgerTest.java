@@ -0,0 +1,90 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * JVM tests for the fired-occurrence ledger shared by the native and web firing paths.
+ */
+public class FiredLedgerTest {
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long MONDAY_9AM = 1_700_000_000_000L / DAY * DAY + TimeUnit.HOURS.toMillis(9);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FiredLedger newLedger() throws IOException {
+        return new FiredLedger(new File(folder.getRoot(), "fired.bin"));
+    }
+
+    @Test
+    public void occurrenceIsClaimedOnce() throws IOException {
+        FiredLedger ledger = newLedger();
+
+        assertTrue(ledger.claim("a", MONDAY_9AM));
+        assertFalse(ledger.claim("a", MONDAY_9AM));
+        // Same minute, so the web ticker's slightly late claim still matches
+        assertFalse(ledger.claim("a", MONDAY_9AM + 4_000));
+        assertTrue(ledger.hasFired("a", MONDAY_9AM));
+    }
+
+    @Test
+    public void otherTasksAndMinutesAreSeparateOccurrences() throws IOException {
+        FiredLedger ledger = newLedger();
+
+        assertTrue(ledger.claim("a", MONDAY_9AM));
+        assertTrue(ledger.claim("b", MONDAY_9AM));
+        assertTrue(ledger.claim("a", MONDAY_9AM + 10 * MINUTE));
+        assertTrue(ledger.claim("a", MONDAY_9AM + 7 * DAY));
+    }
+
+    @Test
+    public void pastDaysExpireSoSizeStaysBounded() throws IOException {
+        FiredLedger ledger = newLedger();
+
+        for (int day = 0; day < 30; day++) {
+            for (int task = 0; task < 10; task++) {
+                assertTrue(ledger.claim("task" + task, MONDAY_9AM + day * DAY));
+            }
+        }
+
+        assertEquals(20, ledger.size());
+        assertTrue(ledger.hasFired("task0", MONDAY_9AM + 28 * DAY));
+        assertFalse(ledger.hasFired("task0", MONDAY_9AM + 27 * DAY));
+        // An occurrence from an expired day can no longer be claimed
+        assertFalse(ledger.claim("late", MONDAY_9AM + 10 * DAY));
+    }
+
+    @Test
+    public void yesterdayIsStillTrackedAfterMidnight() throws IOException {
+        FiredLedger ledger = newLedger();
+        long beforeMidnight = MONDAY_9AM + TimeUnit.HOURS.toMillis(14) + 59 * MINUTE;
+
+        assertTrue(ledger.claim("a", beforeMidnight));
+        assertTrue(ledger.claim("b", beforeMidnight + 2 * MINUTE));
+        assertFalse(ledger.claim("a", beforeMidnight));
+    }
+
+    @Test
+    public void claimsSurviveSaveAndLoad() throws IOException {
+        FiredLedger ledger = newLedger();
+        ledger.claim("a", MONDAY_9AM);
+        ledger.claim("b", MONDAY_9AM + DAY);
+        ledger.save();
+
+        FiredLedger reloaded = newLedger();
+        reloaded.load();
+
+        assertEquals(2, reloaded.size());
+        assertFalse(reloaded.claim("a", MONDAY_9AM));
+        assertFalse(reloaded.claim("b", MONDAY_9AM + DAY));
+    }
+}
@@ -0,0 +1,57 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import com.vk7days.taskscheduler.LaunchPlan.Step;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * JVM tests pinning down which work runs on the launch critical path.
+ */
+public class LaunchPlanTest {
+
+    @Test
+    public void plainLaunchOnlyRegistersPlugins() {
+        LaunchPlan plan = LaunchPlan.forCreate(false, false);
+
+        assertEquals(Collections.singletonList(Step.REGISTER_PLUGINS), plan.critical());
+        assertEquals(Collections.singletonList(Step.CREATE_CHANNELS), plan.deferred());
+    }
+
+    @Test
+    public void pluginsAreRegisteredFirst() {
+        assertEquals(Step.REGISTER_PLUGINS, LaunchPlan.forCreate(true, true).critical().get(0));
+    }
+
+    @Test
+    public void alarmLaunchKeepsScreenOnAndQueuesTheAlarm() {
+        LaunchPlan plan = LaunchPlan.forCreate(true, false);
+
+        assertEquals(Arrays.asList(Step.REGISTER_PLUGINS, Step.KEEP_SCREEN_ON, Step.HANDLE_ALARM_INTENT),
+            plan.critical());
+        assertFalse(plan.critical().contains(Step.CREATE_CHANNELS));
+    }
+
+    @Test
+    public void resumeTouchesTheAlarmServiceOnlyWhileRinging() {
+        assertTrue(LaunchPlan.forResume(false).critical().isEmpty());
+        assertEquals(Arrays.asList(Step.KEEP_SCREEN_ON, Step.STOP_ALARM_SERVICE),
+            LaunchPlan.forResume(true).critical());
+    }
+
+    @Test
+    public void resumeRefreshesPermissionsOffTheCriticalPath() {
+        assertEquals(Collections.singletonList(Step.REFRESH_PERMISSIONS), LaunchPlan.forResume(false).deferred());
+        assertFalse(LaunchPlan.forResume(true).critical().contains(Step.REFRESH_PERMISSIONS));
+    }
+
+    @Test
+    public void newIntentWithoutAlarmDoesNothing() {
+        assertTrue(LaunchPlan.forNewIntent(false).critical().isEmpty());
+        assertTrue(LaunchPlan.forNewIntent(true).critical().contains(Step.HANDLE_ALARM_INTENT));
+    }
+}
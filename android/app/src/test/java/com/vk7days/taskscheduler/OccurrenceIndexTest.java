@@ -0,0 +1,69 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for the sorted next-occurrence index.
+ */
+public class OccurrenceIndexTest {
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final long NOW = 1_700_000_000_000L;
+    private static final String[] DAYS = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+
+    private static List<AlarmEntry> weeklyTasks(int count) {
+        List<AlarmEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String time = String.format("%02d:%02d", (i * 7) % 24, (i * 13) % 60);
+            AlarmEntry entry = new AlarmEntry("task-" + i, "Task " + i, time, DAYS[i % 7], false, 0);
+            entries.add(entry.withTriggerTime(entry.getRecurrence().nextAfter(NOW, NEW_YORK)));
+        }
+        return entries;
+    }
+
+    @Test
+    public void nextAfterMatchesEveryTasksOwnOccurrences() {
+        List<AlarmEntry> entries = weeklyTasks(200);
+        OccurrenceIndex index = OccurrenceIndex.build(entries, NOW, NEW_YORK);
+        long after = NOW + TimeUnit.DAYS.toMillis(3);
+
+        List<Long> expected = new ArrayList<>();
+        for (AlarmEntry entry : entries) {
+            for (long occurrence : entry.getRecurrence().nextOccurrences(after, NEW_YORK, 2)) {
+                expected.add(occurrence);
+            }
+        }
+        expected.sort(null);
+
+        List<AlarmEntry> next = index.nextAfter(after, 50);
+        assertEquals(50, next.size());
+        for (int i = 0; i < next.size(); i++) {
+            assertEquals((long) expected.get(i), next.get(i).triggerTime);
+        }
+    }
+
+    @Test
+    public void snoozesAndPinnedTimesAreIndexedAsQueued() {
+        AlarmEntry snooze = weeklyTasks(1).get(0).snoozedUntil(NOW + 60_000);
+        OccurrenceIndex index = OccurrenceIndex.build(Arrays.asList(snooze), NOW, NEW_YORK);
+
+        assertEquals(1, index.size());
+        assertSame(snooze, index.nextAfter(NOW, 10).get(0));
+        assertTrue(index.nextAfter(NOW + 60_000, 10).isEmpty());
+    }
+
+    @Test
+    public void stopsAtTheHorizon() {
+        OccurrenceIndex index = OccurrenceIndex.build(weeklyTasks(1), NOW, NEW_YORK);
+
+        assertEquals(2, index.size());
+        assertTrue(index.nextAfter(NOW + OccurrenceIndex.HORIZON_MS, 10).isEmpty());
+    }
+}
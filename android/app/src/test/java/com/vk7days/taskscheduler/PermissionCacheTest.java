@@ -0,0 +1,49 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import com.vk7days.taskscheduler.PermissionCache.State;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for the cached permission snapshot.
+ */
+public class PermissionCacheTest {
+    private static final State GRANTED = new State(true, true, false);
+    private static final State NO_EXACT_ALARMS = new State(true, false, false);
+
+    @Test
+    public void probesOnceForRepeatedReads() {
+        PermissionCache cache = new PermissionCache();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(GRANTED, cache.get(() -> GRANTED));
+        }
+        assertEquals(1, cache.probeCount());
+    }
+
+    @Test
+    public void refreshReportsOnlyChanges() {
+        PermissionCache cache = new PermissionCache();
+        cache.get(() -> GRANTED);
+
+        assertNull(cache.refresh(() -> GRANTED));
+        assertEquals(NO_EXACT_ALARMS, cache.refresh(() -> NO_EXACT_ALARMS));
+        assertEquals(NO_EXACT_ALARMS, cache.get(() -> GRANTED));
+        assertEquals(3, cache.probeCount());
+    }
+
+    @Test
+    public void firstRefreshCountsAsAChange() {
+        assertEquals(GRANTED, new PermissionCache().refresh(() -> GRANTED));
+    }
+
+    @Test
+    public void grantedNeedsEveryPermission() {
+        assertTrue(GRANTED.isGranted());
+        assertFalse(NO_EXACT_ALARMS.isGranted());
+        assertFalse(new State(false, true, false).isGranted());
+        assertFalse(new State(true, true, true).isGranted());
+    }
+}
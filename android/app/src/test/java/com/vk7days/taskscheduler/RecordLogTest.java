@@ -0,0 +1,99 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * JVM tests for the append-only journal behind the native schedule store.
+ */
+public class RecordLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaysPutsAndDeletes() throws Exception {
+        File file = folder.newFile("log");
+        RecordLog log = new RecordLog(file);
+        log.put("a", bytes("1"));
+        log.put("b", bytes("2"));
+        log.put("a", bytes("3"));
+        log.delete("b");
+        log.flush();
+        log.close();
+
+        RecordLog reopened = new RecordLog(file);
+        assertEquals(1, reopened.size());
+        assertEquals("3", string(reopened.get("a")));
+        assertNull(reopened.get("b"));
+    }
+
+    @Test
+    public void truncatesTornTail() throws Exception {
+        File file = folder.newFile("log");
+        RecordLog log = new RecordLog(file);
+        log.put("a", bytes("1"));
+        log.put("b", bytes("2"));
+        log.flush();
+        log.close();
+
+        // Simulate a crash halfway through the last record
+        long length = file.length();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length - 3);
+        }
+
+        RecordLog reopened = new RecordLog(file);
+        assertEquals(1, reopened.size());
+        assertEquals("1", string(reopened.get("a")));
+
+        // The log stays appendable after recovery
+        reopened.put("c", bytes("3"));
+        reopened.flush();
+        reopened.close();
+        assertEquals(2, new RecordLog(file).size());
+    }
+
+    @Test
+    public void ignoresUnknownFormat() throws Exception {
+        File file = folder.newFile("log");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes("not a journal at all"));
+        }
+
+        RecordLog log = new RecordLog(file);
+        assertEquals(0, log.size());
+    }
+
+    @Test
+    public void compactsWhenGarbageDominates() throws Exception {
+        File file = folder.newFile("log");
+        RecordLog log = new RecordLog(file);
+        for (int i = 0; i < 500; i++) {
+            log.put("task", bytes("value" + i));
+        }
+        log.flush();
+
+        // Header plus a single live record
+        assertTrue(file.length() < 64);
+        log.close();
+
+        RecordLog reopened = new RecordLog(file);
+        assertEquals("value499", string(reopened.get("task")));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,113 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for compiled recurrence rules and their journal round trip.
+ */
+public class RecurrenceRuleTest {
+    private static final ZoneId UTC = ZoneOffset.UTC;
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    private static long at(String localDateTime) {
+        return LocalDateTime.parse(localDateTime).atZone(UTC).toInstant().toEpochMilli();
+    }
+
+    private static RecurrenceRule rule(String json) {
+        return RecurrenceRule.fromJson(json);
+    }
+
+    @Test
+    public void rejectsMalformedRules() {
+        assertNull(rule("{\"freq\":\"weekly\",\"days\":[],\"times\":[\"09:00\"]}"));
+        assertNull(rule("{\"freq\":\"weekly\",\"days\":[\"someday\"],\"times\":[\"09:00\"]}"));
+        assertNull(rule("{\"freq\":\"daily\",\"interval\":0,\"start\":\"2024-04-01\",\"times\":[\"09:00\"]}"));
+        assertNull(rule("{\"freq\":\"dates\",\"dates\":[\"2024-02-30\"],\"times\":[\"09:00\"]}"));
+        assertNull(rule("{\"freq\":\"monthly\",\"nth\":6,\"weekday\":\"monday\",\"times\":[\"09:00\"]}"));
+        assertNull(rule("{\"freq\":\"hourly\",\"times\":[\"09:00\"]}"));
+        assertNull(rule("{\"freq\":\"weekly\",\"days\":[\"monday\"],\"times\":[]}"));
+        assertNull(rule("not json"));
+    }
+
+    @Test
+    public void weeklyCoversEveryDayAndTime() {
+        RecurrenceRule weekly = rule("{\"freq\":\"weekly\",\"days\":[\"friday\",\"monday\"],\"times\":[\"18:30\",\"09:00\"]}");
+
+        // 2024-04-01 was a Monday
+        assertArrayEquals(new long[]{
+            at("2024-04-01T18:30"), at("2024-04-05T09:00"), at("2024-04-05T18:30"), at("2024-04-08T09:00"),
+        }, weekly.nextOccurrences(at("2024-04-01T09:00"), UTC, 4));
+    }
+
+    @Test
+    public void dailyStepsFromItsStartDate() {
+        RecurrenceRule everyThirdDay = rule("{\"freq\":\"daily\",\"interval\":3,\"start\":\"2024-04-01\",\"times\":[\"07:00\"]}");
+
+        assertEquals(at("2024-04-01T07:00"), everyThirdDay.nextAfter(at("2024-03-01T00:00"), UTC));
+        assertEquals(at("2024-04-07T07:00"), everyThirdDay.nextAfter(at("2024-04-04T07:00"), UTC));
+    }
+
+    @Test
+    public void datesRunOut() {
+        RecurrenceRule dates = rule("{\"freq\":\"dates\",\"dates\":[\"2024-12-24\",\"2024-05-01\"],\"times\":[\"10:00\"]}");
+
+        assertEquals(at("2024-05-01T10:00"), dates.nextAfter(at("2024-04-01T00:00"), UTC));
+        assertEquals(at("2024-12-24T10:00"), dates.nextAfter(at("2024-05-01T10:00"), UTC));
+        assertEquals(0, dates.nextAfter(at("2024-12-24T10:00"), UTC));
+    }
+
+    @Test
+    public void monthlyFindsNthAndLastWeekday() {
+        RecurrenceRule firstMonday = rule("{\"freq\":\"monthly\",\"nth\":1,\"weekday\":\"monday\",\"times\":[\"09:00\"]}");
+        RecurrenceRule lastFriday = rule("{\"freq\":\"monthly\",\"nth\":-1,\"weekday\":\"friday\",\"times\":[\"09:00\"]}");
+        RecurrenceRule fifthMonday = rule("{\"freq\":\"monthly\",\"nth\":5,\"weekday\":\"monday\",\"times\":[\"09:00\"]}");
+
+        assertEquals(at("2024-05-06T09:00"), firstMonday.nextAfter(at("2024-04-01T09:00"), UTC));
+        assertEquals(at("2024-04-26T09:00"), lastFriday.nextAfter(at("2024-04-01T00:00"), UTC));
+        // April 2024 has five Mondays; May and June have four
+        assertEquals(at("2024-07-29T09:00"), fifthMonday.nextAfter(at("2024-04-29T09:00"), UTC));
+    }
+
+    @Test
+    public void resolvesLocalTimesAcrossDst() {
+        RecurrenceRule daily = rule("{\"freq\":\"daily\",\"interval\":1,\"start\":\"2024-03-01\",\"times\":[\"02:30\"]}");
+
+        // 2024-03-10 02:30 does not exist in New York and fires at 03:00 EDT
+        assertEquals(1710054000000L, daily.nextAfter(1710003600000L, NEW_YORK));
+    }
+
+    @Test
+    public void weeklyTaskMatchesItsRule() {
+        WeeklyRecurrence recurrence = WeeklyRecurrence.of("wednesday", "07:15");
+        RecurrenceRule rule = RecurrenceRule.weekly(recurrence);
+        long start = 1_700_000_000_000L;
+
+        assertArrayEquals(recurrence.nextOccurrences(start, NEW_YORK, 5), rule.nextOccurrences(start, NEW_YORK, 5));
+        assertEquals(rule("{\"freq\":\"weekly\",\"days\":[\"wednesday\"],\"times\":[\"07:15\"]}"), rule);
+    }
+
+    @Test
+    public void canonicalJsonRoundTrips() {
+        RecurrenceRule rule = rule("{\"freq\":\"dates\",\"dates\":[\"2024-12-24\",\"2024-05-01\",\"2024-05-01\"],\"times\":[\"9:00\"]}");
+
+        assertEquals(rule, rule(rule.toJson()));
+        assertEquals(rule.toJson(), rule(rule.toJson()).toJson());
+    }
+
+    @Test
+    public void entryJournalKeepsTheRule() throws Exception {
+        RecurrenceRule rule = rule("{\"freq\":\"daily\",\"interval\":2,\"start\":\"2024-04-01\",\"times\":[\"07:00\",\"19:00\"]}");
+        AlarmEntry entry = new AlarmEntry("task", "Pills", "07:00", "monday", false, at("2024-04-01T07:00"), rule);
+
+        AlarmEntry restored = AlarmEntry.fromBytes(entry.toBytes());
+        assertEquals(rule, restored.getRule());
+        assertTrue(restored.hasSameSchedule(entry));
+        assertEquals(at("2024-04-01T19:00"), restored.nextAfter(at("2024-04-01T07:00"), UTC).triggerTime);
+    }
+}
@@ -0,0 +1,65 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * JVM tests for the per-task schedule store behind the ScheduleStore plugin.
+ */
+public class ScheduleStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private ScheduleStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        file = new File(folder.getRoot(), "schedule.log");
+        store = new ScheduleStore(file);
+    }
+
+    @Test
+    public void upsertsAndDeletesSurviveReopen() throws Exception {
+        store.putTask("monday:a", "{\"id\":\"a\",\"title\":\"A\"}");
+        store.putTask("monday:b", "{\"id\":\"b\"}");
+        store.putTask("monday:a", "{\"id\":\"a\",\"title\":\"A2\"}");
+        store.deleteTask("monday:b");
+        store.putMeta("{\"activeDay\":\"monday\"}");
+        store.flush();
+
+        ScheduleStore reopened = new ScheduleStore(file);
+        assertEquals("{\"monday:a\":{\"id\":\"a\",\"title\":\"A2\"}}", reopened.tasksJson());
+        assertEquals("{\"activeDay\":\"monday\"}", reopened.metaJson());
+    }
+
+    @Test
+    public void emptyStoreHasNoTasksOrMeta() {
+        assertTrue(store.isEmpty());
+        assertEquals("{}", store.tasksJson());
+        assertNull(store.metaJson());
+    }
+
+    @Test
+    public void keysAreEscapedInTheSnapshot() throws Exception {
+        store.putTask("friday:\"x\\y", "{}");
+
+        assertEquals("{\"friday:\\\"x\\\\y\":{}}", store.tasksJson());
+    }
+
+    @Test
+    public void clearDropsEverything() throws Exception {
+        store.putTask("monday:a", "{}");
+        store.putMeta("{}");
+        store.clear();
+        store.flush();
+
+        assertTrue(new ScheduleStore(file).isEmpty());
+    }
+}
@@ -0,0 +1,70 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * JVM tests for the content-addressed spoken reminder cache.
+ */
+public class SpeechCacheTest {
+    private static final String VOICE = SpeechCache.DEFAULT_VOICE;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SpeechCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new SpeechCache(new File(folder.getRoot(), "speech"), 1000);
+    }
+
+    private File store(String text, int bytes) throws IOException {
+        String key = SpeechCache.key(text, VOICE);
+        Files.write(cache.partialFile(key).toPath(), new byte[bytes]);
+        return cache.commit(key);
+    }
+
+    @Test
+    public void keysDependOnNormalizedTextAndVoice() {
+        assertEquals(SpeechCache.key("Take pills", VOICE), SpeechCache.key(" Take  pills\n", VOICE));
+        assertTrue(SpeechCache.key("Take pills", VOICE).matches("[0-9a-f]{32}"));
+        assertNotEquals(SpeechCache.key("Take pills", VOICE), SpeechCache.key("Take pills", "en-gb-x-gba-local"));
+        assertNotEquals(SpeechCache.key("Take pills", VOICE), SpeechCache.key("Walk", VOICE));
+    }
+
+    @Test
+    public void clipIsVisibleOnlyOnceCommitted() throws Exception {
+        String key = SpeechCache.key("Walk", VOICE);
+        Files.write(cache.partialFile(key).toPath(), new byte[10]);
+        assertNull(cache.find("Walk", VOICE));
+
+        cache.commit(key);
+        assertEquals(10, cache.find(" Walk ", VOICE).length());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedClips() throws Exception {
+        File first = store("first", 400);
+        File second = store("second", 400);
+        first.setLastModified(1_000_000L);
+        second.setLastModified(2_000_000L);
+
+        // Playing the first clip makes the second the least recently used
+        cache.find("first", VOICE);
+        store("third", 400);
+
+        assertNotNull(cache.find("first", VOICE));
+        assertNull(cache.find("second", VOICE));
+        assertNotNull(cache.find("third", VOICE));
+        assertEquals(800, cache.sizeBytes());
+    }
+}
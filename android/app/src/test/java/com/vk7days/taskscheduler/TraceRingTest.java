@@ -0,0 +1,59 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * JVM tests for the fixed-size alarm trace ring.
+ */
+public class TraceRingTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsTheNewestEventsOnceFull() {
+        TraceRing ring = new TraceRing(3);
+        for (int i = 1; i <= 5; i++) {
+            ring.add(i, "received", "task-" + i, i * 10L);
+        }
+
+        List<TraceRing.Event> events = ring.events();
+        assertEquals(3, events.size());
+        assertEquals(3, events.get(0).time);
+        assertEquals("task-5", events.get(2).subject);
+        assertEquals(50, events.get(2).value);
+    }
+
+    @Test
+    public void previousProcessEventsGoBeforeNewOnes() throws Exception {
+        TraceRing previous = new TraceRing(4);
+        previous.add(1, "armed", "walk", 100);
+        previous.add(2, "crash", "java.lang.IllegalStateException", 0);
+        File file = new File(folder.getRoot(), "alarm_trace.bin");
+        previous.save(file);
+
+        TraceRing ring = new TraceRing(3);
+        ring.add(3, "received", "walk", 100);
+        ring.add(4, "dismissed", null, 0);
+        ring.prepend(TraceRing.load(file));
+
+        JSONArray json = new JSONArray(ring.toJson());
+        assertEquals(3, json.length());
+        assertEquals("crash", json.getJSONArray(0).getString(1));
+        assertEquals(4, json.getJSONArray(2).getLong(0));
+        assertEquals("", json.getJSONArray(2).getString(2));
+    }
+
+    @Test
+    public void unreadableFileLoadsEmpty() throws Exception {
+        assertTrue(TraceRing.load(folder.newFile("alarm_trace.bin")).isEmpty());
+        assertTrue(TraceRing.load(new File(folder.getRoot(), "missing.bin")).isEmpty());
+    }
+}
@@ -0,0 +1,84 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * JVM tests for the widget's precomputed upcoming-task snapshot.
+ */
+public class UpcomingSnapshotTest {
+    private static final ZoneId UTC = ZoneOffset.UTC;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static long at(String localDateTime) {
+        return LocalDateTime.parse(localDateTime).atZone(UTC).toInstant().toEpochMilli();
+    }
+
+    private static List<AlarmEntry> occurrences(int count) {
+        List<AlarmEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(new AlarmEntry("task-" + i, "Task " + i, "09:00", "monday", false, at("2024-04-01T09:00") + i * 60_000L));
+        }
+        return entries;
+    }
+
+    @Test
+    public void keepsOnlyCapacityItemsAndRoundTrips() throws Exception {
+        UpcomingSnapshot snapshot = UpcomingSnapshot.of(occurrences(20));
+        File file = new File(folder.getRoot(), "upcoming.bin");
+        snapshot.save(file);
+
+        UpcomingSnapshot loaded = UpcomingSnapshot.load(file);
+        assertEquals(snapshot, loaded);
+        assertEquals(UpcomingSnapshot.CAPACITY, loaded.after(0, 100).size());
+    }
+
+    @Test
+    public void snoozesShowUnderTheirTask() {
+        AlarmEntry snooze = occurrences(1).get(0).snoozedUntil(at("2024-04-01T09:10"));
+
+        assertEquals("task-0", UpcomingSnapshot.of(Collections.singletonList(snooze)).after(0, 1).get(0).taskId);
+    }
+
+    @Test
+    public void skipsItemsThatAlreadyRang() {
+        UpcomingSnapshot snapshot = UpcomingSnapshot.of(occurrences(5));
+
+        List<UpcomingSnapshot.Item> items = snapshot.after(at("2024-04-01T09:01"), 2);
+        assertEquals("task-2", items.get(0).taskId);
+        assertEquals("task-3", items.get(1).taskId);
+    }
+
+    @Test
+    public void unreadableFileIsEmpty() throws Exception {
+        File file = folder.newFile("upcoming.bin");
+        Files.write(file.toPath(), new byte[]{1, 2, 3});
+
+        assertTrue(UpcomingSnapshot.load(file).after(0, 4).isEmpty());
+        assertTrue(UpcomingSnapshot.load(new File(folder.getRoot(), "missing.bin")).after(0, 4).isEmpty());
+    }
+
+    @Test
+    public void labelsDaysRelativeToNow() {
+        long now = at("2024-04-01T22:00"); // a Monday
+
+        assertEquals("Today", UpcomingSnapshot.dayLabel(at("2024-04-01T23:30"), now, UTC, Locale.ENGLISH));
+        assertEquals("Tomorrow", UpcomingSnapshot.dayLabel(at("2024-04-02T00:30"), now, UTC, Locale.ENGLISH));
+        assertEquals("Thu", UpcomingSnapshot.dayLabel(at("2024-04-04T09:00"), now, UTC, Locale.ENGLISH));
+    }
+}
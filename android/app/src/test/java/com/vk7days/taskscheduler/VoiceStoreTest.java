@@ -0,0 +1,75 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * JVM tests for the native voice recording cache.
+ */
+public class VoiceStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private VoiceStore store;
+
+    @Before
+    public void setUp() {
+        store = new VoiceStore(new File(folder.getRoot(), "voices"));
+    }
+
+    @Test
+    public void fileNamesRoundTripAnyTaskId() {
+        for (String taskId : new String[]{"abc-123", "t_1700000000", "../../etc", "tâche 7", ""}) {
+            String name = VoiceStore.encode(taskId);
+            assertTrue(name, name.matches("[A-Za-z0-9_-]*"));
+            assertEquals(taskId, VoiceStore.decode(name));
+        }
+    }
+
+    @Test
+    public void recordingIsVisibleOnlyAfterLastChunk() throws Exception {
+        store.writeChunk("task", 0, new byte[]{1, 2}, false);
+        store.writeChunk("task", 1, new byte[]{3}, false);
+        assertNull(store.find("task"));
+
+        store.writeChunk("task", 2, new byte[]{4, 5}, true);
+
+        File file = store.find("task");
+        assertNotNull(file);
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, Files.readAllBytes(file.toPath()));
+        assertEquals(Collections.singletonList("task"), store.taskIds());
+    }
+
+    @Test
+    public void newTransferReplacesPreviousRecording() throws Exception {
+        store.writeChunk("task", 0, new byte[]{1, 2, 3}, true);
+        store.writeChunk("task", 0, new byte[]{9}, false);
+        assertEquals(3, store.find("task").length());
+
+        store.writeChunk("task", 1, new byte[]{8}, true);
+        assertArrayEquals(new byte[]{9, 8}, Files.readAllBytes(store.find("task").toPath()));
+    }
+
+    @Test(expected = IOException.class)
+    public void chunkWithoutStartIsRejected() throws Exception {
+        store.writeChunk("task", 3, new byte[]{1}, true);
+    }
+
+    @Test
+    public void deleteRemovesRecording() throws Exception {
+        store.writeChunk("task", 0, new byte[]{1}, true);
+
+        assertTrue(store.delete("task"));
+        assertNull(store.find("task"));
+        assertTrue(store.taskIds().isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+package com.vk7days.taskscheduler;
+
+import static org.junit.Assert.*;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * JVM tests for the java.time weekly occurrence engine, including DST edges.
+ */
+public class WeeklyRecurrenceTest {
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final long WEEK = TimeUnit.DAYS.toMillis(7);
+
+    @Test
+    public void parsesStorageDayKeysAndTimes() {
+        assertNotNull(WeeklyRecurrence.of("monday", "09:30"));
+        assertNotNull(WeeklyRecurrence.of("Sunday", "0:05"));
+        assertNull(WeeklyRecurrence.of("someday", "09:30"));
+        assertNull(WeeklyRecurrence.of("monday", "25:00"));
+        assertNull(WeeklyRecurrence.of("monday", ""));
+        assertNull(WeeklyRecurrence.of(null, "09:30"));
+    }
+
+    @Test
+    public void gapTimeFiresWhenClockJumpsPastIt() {
+        // 2024-03-10 02:30 does not exist in New York; clocks go from 02:00 EST to 03:00 EDT
+        long saturdayNoon = 1710003600000L;
+        long gapEnd = 1710054000000L;
+
+        WeeklyRecurrence recurrence = WeeklyRecurrence.of("sunday", "02:30");
+        assertEquals(gapEnd, recurrence.nextAfter(saturdayNoon, NEW_YORK));
+    }
+
+    @Test
+    public void overlapTimeFiresOnceAtEarlierInstant() {
+        // 2024-11-03 01:30 happens twice in New York
+        long saturdayNoon = 1730563200000L;
+        long firstOneThirty = 1730611800000L;
+        long nextSunday = 1731220200000L;
+
+        WeeklyRecurrence recurrence = WeeklyRecurrence.of("sunday", "01:30");
+        assertEquals(firstOneThirty, recurrence.nextAfter(saturdayNoon, NEW_YORK));
+
+        // After the first 01:30 has fired, the repeated 01:30 an hour later must not fire again
+        assertEquals(nextSunday, recurrence.nextAfter(firstOneThirty, NEW_YORK));
+    }
+
+    @Test
+    public void cachedLookupsMatchFreshComputation() {
+        WeeklyRecurrence cached = WeeklyRecurrence.of("wednesday", "07:15");
+        long start = 1_700_000_000_000L;
+
+        for (long t = start; t < start + 10 * WEEK; t += TimeUnit.HOURS.toMillis(5)) {
+            long expected = WeeklyRecurrence.of("wednesday", "07:15").nextOccurrences(t, NEW_YORK, 1)[0];
+            assertEquals(expected, cached.nextAfter(t, NEW_YORK));
+        }
+    }
+
+    @Test
+    public void cacheIsInvalidatedByZoneChange() {
+        WeeklyRecurrence recurrence = WeeklyRecurrence.of("friday", "18:00");
+        long now = 1_700_000_000_000L;
+
+        long inNewYork = recurrence.nextAfter(now, NEW_YORK);
+        long inTokyo = recurrence.nextAfter(now, ZoneId.of("Asia/Tokyo"));
+        assertNotEquals(inNewYork, inTokyo);
+    }
+
+    @Test
+    public void resolveAllMatchesPerTaskLookup() {
+        long now = 1_700_000_000_000L;
+        String[] days = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+        WeeklyRecurrence[] recurrences = new WeeklyRecurrence[days.length * 3 + 1];
+        for (int i = 0; i < days.length * 3; i++) {
+            recurrences[i] = WeeklyRecurrence.of(days[i % days.length], String.format("%02d:%02d", i % 24, (i * 7) % 60));
+        }
+
+        long[] resolved = WeeklyRecurrence.resolveAll(Arrays.asList(recurrences), now, NEW_YORK);
+
+        for (int i = 0; i < recurrences.length - 1; i++) {
+            assertEquals(recurrences[i].nextOccurrences(now, NEW_YORK, 1)[0], resolved[i]);
+            assertTrue(resolved[i] > now && resolved[i] <= now + WEEK);
+        }
+        assertEquals(0, resolved[recurrences.length - 1]);
+    }
+}
@@ -0,0 +1,108 @@
+package com.vk7days.taskscheduler.benchmark;
+
+import com.vk7days.taskscheduler.AlarmBackend;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory {@link AlarmBackend} on a virtual clock. Behaves like AlarmManager: one pending
+ * alarm per request code, and setting a code again replaces it. Windowed alarms are delivered
+ * at the end of their window, the latest the system may deliver them. Time only moves when
+ * the caller advances it to the next pending alarm, so a run is fully deterministic.
+ */
+public class FakeAlarmBackend implements AlarmBackend {
+    private final Map<Integer, Long> pendingByCode = new HashMap<>();
+    private final TreeMap<Long, TreeSet<Integer>> pendingByTime = new TreeMap<>();
+    private long now;
+    private int registrations = 0;
+    private int replacements = 0;
+    private int cancellations = 0;
+
+    public FakeAlarmBackend(long start) {
+        this.now = start;
+    }
+
+    public long now() {
+        return now;
+    }
+
+    public LongSupplier clock() {
+        return this::now;
+    }
+
+    @Override
+    public void setExact(int requestCode, long triggerTime) {
+        register(requestCode, triggerTime);
+    }
+
+    @Override
+    public void setWindow(int requestCode, long windowStart, long windowLength) {
+        register(requestCode, windowStart + windowLength);
+    }
+
+    private void register(int requestCode, long triggerTime) {
+        registrations++;
+        if (remove(requestCode)) {
+            replacements++;
+        }
+        pendingByCode.put(requestCode, triggerTime);
+        pendingByTime.computeIfAbsent(triggerTime, time -> new TreeSet<>()).add(requestCode);
+    }
+
+    @Override
+    public void cancel(int requestCode) {
+        cancellations++;
+        remove(requestCode);
+    }
+
+    /**
+     * Moves the clock to the earliest pending alarm and delivers it, lowest request code first
+     * on ties. Returns its request code, or -1 when nothing is pending before {@code until}.
+     * An alarm set in the past fires immediately, without moving the clock back.
+     */
+    public int fireNext(long until) {
+        if (pendingByTime.isEmpty() || pendingByTime.firstKey() >= until) {
+            return -1;
+        }
+        long triggerTime = pendingByTime.firstKey();
+        int requestCode = pendingByTime.get(triggerTime).first();
+        remove(requestCode);
+        now = Math.max(now, triggerTime);
+        return requestCode;
+    }
+
+    public int pendingCount() {
+        return pendingByCode.size();
+    }
+
+    /** Every setExact and setWindow call. */
+    public int registrations() {
+        return registrations;
+    }
+
+    /** Registrations that replaced an alarm still pending under the same request code. */
+    public int replacements() {
+        return replacements;
+    }
+
+    public int cancellations() {
+        return cancellations;
+    }
+
+    private boolean remove(int requestCode) {
+        Long triggerTime = pendingByCode.remove(requestCode);
+        if (triggerTime == null) {
+            return false;
+        }
+        TreeSet<Integer> codes = pendingByTime.get(triggerTime);
+        codes.remove(requestCode);
+        if (codes.isEmpty()) {
+            pendingByTime.remove(triggerTime);
+        }
+        return true;
+    }
+}
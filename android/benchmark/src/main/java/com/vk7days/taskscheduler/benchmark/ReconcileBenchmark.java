@@ -0,0 +1,114 @@
+package com.vk7days.taskscheduler.benchmark;
+
+import com.vk7days.taskscheduler.AlarmEntry;
+import com.vk7days.taskscheduler.AlarmQueue;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The native half of a schedule sync for {@code size} tasks, as the reconcile plugin call runs it.
+ *
+ * {@code parsePayload} turns the JS alarm array into entries. {@code reconcileUnchanged} is the
+ * common sync where nothing moved; {@code reconcileOneEdited} has one task's time changed per
+ * operation. {@code decodeAlarmsExtra} unpacks the binary entry list carried by notification
+ * actions and journal records.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReconcileBenchmark {
+    private static final String[] DAYS = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private final ZoneId zone = ZoneId.of("Europe/Berlin");
+    private final long now = 1_711_800_000_000L; // the week of the 2024 spring-forward
+    private JSONArray payload;
+    private List<AlarmEntry> desired;
+    private List<AlarmEntry> edited;
+    private byte[] alarmsExtra;
+    private AlarmQueue queue;
+    private int cursor;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(7);
+        payload = new JSONArray();
+        desired = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            JSONObject alarm = new JSONObject()
+                .put("taskId", "1700000000000_" + Integer.toHexString(random.nextInt()))
+                .put("taskTitle", "Task " + i)
+                .put("taskTime", String.format("%02d:%02d", random.nextInt(24), random.nextInt(60)))
+                .put("dayKey", DAYS[random.nextInt(DAYS.length)])
+                .put("hasCustomVoice", random.nextInt(4) == 0);
+            payload.put(alarm);
+            desired.add(AlarmEntry.fromJson(alarm));
+        }
+
+        // The same schedule, with each task's time moved by a minute
+        edited = new ArrayList<>(size);
+        for (AlarmEntry entry : desired) {
+            String moved = String.format("%s:%02d", entry.taskTime.substring(0, 2),
+                (Integer.parseInt(entry.taskTime.substring(3)) + 1) % 60);
+            edited.add(new AlarmEntry(entry.taskId, entry.taskTitle, moved, entry.dayKey, entry.hasCustomVoice, 0));
+        }
+
+        queue = new AlarmQueue(() -> now, zone);
+        queue.reconcile(desired);
+        alarmsExtra = AlarmEntry.toBytes(queue.entries());
+    }
+
+    @Benchmark
+    public List<AlarmEntry> parsePayload() {
+        List<AlarmEntry> entries = new ArrayList<>(payload.length());
+        for (int i = 0; i < payload.length(); i++) {
+            entries.add(AlarmEntry.fromJson(payload.optJSONObject(i)));
+        }
+        return entries;
+    }
+
+    @Benchmark
+    public AlarmQueue.Delta reconcileUnchanged() {
+        return queue.reconcile(desired);
+    }
+
+    @Benchmark
+    public AlarmQueue.Delta reconcileOneEdited() {
+        // Swap one task to its edited time and back on the next pass, so every call updates one
+        int index = cursor;
+        cursor = index + 1 == size ? 0 : index + 1;
+        AlarmEntry original = desired.get(index);
+        desired.set(index, edited.get(index));
+        edited.set(index, original);
+        return queue.reconcile(desired);
+    }
+
+    @Benchmark
+    public List<AlarmEntry> decodeAlarmsExtra() throws IOException {
+        return AlarmEntry.listFromBytes(alarmsExtra);
+    }
+}
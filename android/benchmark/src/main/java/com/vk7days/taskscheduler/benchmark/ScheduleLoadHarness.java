@@ -0,0 +1,185 @@
+package com.vk7days.taskscheduler.benchmark;
+
+import com.vk7days.taskscheduler.AlarmEntry;
+import com.vk7days.taskscheduler.AlarmQueue;
+import com.vk7days.taskscheduler.ArmedAlarm;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates weeks of alarms firing for a large weekly schedule on {@link FakeAlarmBackend},
+ * and reports what each scheduling strategy costs the system: AlarmManager registrations,
+ * request codes colliding between tasks, wake-ups per day, occurrences that never fired and
+ * how late the latest one rang.
+ *
+ * Strategies compared:
+ * - single: the shipping scheduler, one {@link ArmedAlarm} over the {@link AlarmQueue}
+ * - batched: the same in battery-saver mode, one window per batch of alarms within the tolerance
+ * - per-task: the pre-queue scheme, one alarm per task keyed by its id hash
+ *
+ * Usage: ScheduleLoadHarness [tasks] [weeks] [tolerance minutes]
+ */
+public final class ScheduleLoadHarness {
+    private static final String[] DAYS = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+    private static final long START = 1_711_800_000_000L; // the week of the 2024 spring-forward
+
+    private ScheduleLoadHarness() {}
+
+    public static void main(String[] args) {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int weeks = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long toleranceMs = TimeUnit.MINUTES.toMillis(args.length > 2 ? Integer.parseInt(args[2]) : 10);
+        ZoneId zone = ZoneId.of("Europe/Berlin");
+        List<AlarmEntry> schedule = randomSchedule(tasks, new Random(7));
+        int expected = occurrences(schedule, START + weeks * 7 * DAY_MS, zone);
+
+        System.out.println(tasks + " tasks over " + weeks + " week(s), " + zone + ": " + expected + " occurrences");
+        System.out.println(Report.HEADER);
+        System.out.println(singleAlarm(schedule, weeks, zone, 0).format(expected));
+        System.out.println(singleAlarm(schedule, weeks, zone, toleranceMs).format(expected));
+        System.out.println(perTaskAlarms(schedule, weeks, zone).format(expected));
+    }
+
+    /** Occurrences due between the start and {@code end}, counted independently of any strategy. */
+    static int occurrences(List<AlarmEntry> schedule, long end, ZoneId zone) {
+        int count = 0;
+        for (AlarmEntry entry : schedule) {
+            for (AlarmEntry next = entry.nextAfter(START, zone); next.triggerTime < end;
+                    next = next.nextAfter(next.triggerTime, zone)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static List<AlarmEntry> randomSchedule(int size, Random random) {
+        List<AlarmEntry> schedule = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String taskId = "1700000000000_" + Long.toHexString(random.nextLong() >>> 12);
+            String time = String.format(Locale.ROOT, "%02d:%02d", random.nextInt(24), random.nextInt(60));
+            schedule.add(new AlarmEntry(taskId, "Task " + i, time, DAYS[random.nextInt(DAYS.length)], false, 0));
+        }
+        return schedule;
+    }
+
+    /** The shipping scheduler; a non-zero {@code toleranceMs} arms it in batched mode. */
+    static Report singleAlarm(List<AlarmEntry> schedule, int weeks, ZoneId zone, long toleranceMs) {
+        FakeAlarmBackend backend = new FakeAlarmBackend(START);
+        AlarmQueue queue = new AlarmQueue(backend.clock(), zone);
+        ArmedAlarm armed = new ArmedAlarm(backend);
+        Report report = new Report(toleranceMs > 0 ? "batched" : "single", weeks);
+
+        queue.reconcile(schedule);
+        arm(armed, queue, toleranceMs);
+        long end = START + weeks * 7 * DAY_MS;
+        // Occurrences just before the end may ring up to the tolerance later
+        while (backend.fireNext(end + toleranceMs) != -1) {
+            report.wakeUp(backend.now());
+            for (AlarmEntry entry : queue.fireDue()) {
+                if (entry.triggerTime < end) {
+                    report.fired(backend.now() - entry.triggerTime);
+                }
+            }
+            // As AlarmScheduler.fireDue: the alarm that woke us is consumed
+            armed.invalidate();
+            arm(armed, queue, toleranceMs);
+        }
+        return report.finish(backend);
+    }
+
+    private static void arm(ArmedAlarm armed, AlarmQueue queue, long toleranceMs) {
+        if (toleranceMs > 0) {
+            armed.armBatch(queue, toleranceMs);
+        } else {
+            armed.arm(queue.peek());
+        }
+    }
+
+    static Report perTaskAlarms(List<AlarmEntry> schedule, int weeks, ZoneId zone) {
+        FakeAlarmBackend backend = new FakeAlarmBackend(START);
+        Report report = new Report("per-task", weeks);
+        // Task whose alarm is currently pending under each request code
+        Map<Integer, AlarmEntry> owners = new HashMap<>();
+
+        for (AlarmEntry entry : schedule) {
+            register(backend, owners, entry.nextAfter(START, zone), report);
+        }
+        long end = START + weeks * 7 * DAY_MS;
+        int requestCode;
+        while ((requestCode = backend.fireNext(end)) != -1) {
+            report.wakeUp(backend.now());
+            AlarmEntry entry = owners.remove(requestCode);
+            report.fired(backend.now() - entry.triggerTime);
+            register(backend, owners, entry.nextAfter(backend.now(), zone), report);
+        }
+        return report.finish(backend);
+    }
+
+    private static void register(FakeAlarmBackend backend, Map<Integer, AlarmEntry> owners, AlarmEntry entry, Report report) {
+        int requestCode = Math.abs(entry.taskId.hashCode());
+        AlarmEntry previous = owners.put(requestCode, entry);
+        if (previous != null && !previous.taskId.equals(entry.taskId)) {
+            // Another task's pending alarm is silently replaced and will never ring
+            report.collisions++;
+        }
+        backend.setExact(requestCode, entry.triggerTime);
+    }
+
+    static final class Report {
+        static final String HEADER = String.format(Locale.ROOT, "%-10s %10s %10s %10s %10s %12s %12s %10s %12s",
+            "strategy", "registered", "cancelled", "collisions", "wake-ups", "wakes/day", "max/day", "missed", "max late s");
+
+        final String strategy;
+        final int days;
+        final Map<Long, Integer> wakeUpsByDay = new HashMap<>();
+        int fired;
+        long maxLatenessMs;
+        int wakeUps;
+        int collisions;
+        int registrations;
+        int cancellations;
+
+        Report(String strategy, int weeks) {
+            this.strategy = strategy;
+            this.days = weeks * 7;
+        }
+
+        void wakeUp(long now) {
+            wakeUps++;
+            wakeUpsByDay.merge(Math.floorDiv(now, DAY_MS), 1, Integer::sum);
+        }
+
+        void fired(long latenessMs) {
+            fired++;
+            maxLatenessMs = Math.max(maxLatenessMs, latenessMs);
+        }
+
+        Report finish(FakeAlarmBackend backend) {
+            registrations = backend.registrations();
+            cancellations = backend.cancellations();
+            return this;
+        }
+
+        int maxWakeUpsPerDay() {
+            int max = 0;
+            for (int count : wakeUpsByDay.values()) {
+                max = Math.max(max, count);
+            }
+            return max;
+        }
+
+        String format(int expected) {
+            return String.format(Locale.ROOT, "%-10s %10d %10d %10d %10d %12.1f %12d %10d %12d",
+                strategy, registrations, cancellations, collisions, wakeUps, (double) wakeUps / days,
+                maxWakeUpsPerDay(), Math.max(0, expected - fired), maxLatenessMs / 1000);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.vk7days.taskscheduler.benchmark;
+
+import com.vk7days.taskscheduler.ScheduleStore;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Launch and save cost of the per-task schedule store at {@code size} tasks.
+ *
+ * {@code launch} opens the store from disk and builds the snapshot handed to JS.
+ * {@code saveOneTask} is one edit: a single upsert and flush, including its share of
+ * compaction. {@code rewriteWholeState} is the old path for comparison: the whole schedule
+ * serialized and written out on every edit, as localStorage did.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleStoreBenchmark {
+    private static final String[] DAYS = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+
+    @Param({"10000"})
+    public int size;
+
+    private File directory;
+    private File storeFile;
+    private File stateFile;
+    private String[] keys;
+    private String[] tasks;
+    private ScheduleStore store;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("schedule-store-bench").toFile();
+        storeFile = new File(directory, "schedule.log");
+        stateFile = new File(directory, "state.json");
+
+        Random random = new Random(7);
+        keys = new String[size];
+        tasks = new String[size];
+        ScheduleStore seed = new ScheduleStore(storeFile);
+        for (int i = 0; i < size; i++) {
+            String day = DAYS[random.nextInt(DAYS.length)];
+            String id = "1700000000000_" + Integer.toHexString(random.nextInt());
+            keys[i] = day + ":" + id;
+            tasks[i] = String.format(
+                "{\"id\":\"%s\",\"title\":\"Task %d\",\"time\":\"%02d:%02d\",\"notes\":\"\",\"enabled\":true,\"hasCustomVoice\":false}",
+                id, i, random.nextInt(24), random.nextInt(60));
+            seed.putTask(keys[i], tasks[i]);
+        }
+        seed.putMeta("{\"activeDay\":\"monday\",\"settings\":{\"showSunday\":true}}");
+        seed.flush();
+
+        store = new ScheduleStore(storeFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public int launch() throws IOException {
+        ScheduleStore opened = new ScheduleStore(storeFile);
+        return opened.tasksJson().length() + String.valueOf(opened.metaJson()).length();
+    }
+
+    @Benchmark
+    public void saveOneTask() throws IOException {
+        int index = cursor;
+        cursor = (cursor + 1) % size;
+        store.putTask(keys[index], tasks[index]);
+        store.flush();
+    }
+
+    @Benchmark
+    public void rewriteWholeState() throws IOException {
+        StringBuilder json = new StringBuilder(size * 128).append("{\"schedule\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) json.append(',');
+            json.append(tasks[i]);
+        }
+        json.append("]}");
+        try (FileOutputStream out = new FileOutputStream(stateFile)) {
+            out.write(json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.vk7days.taskscheduler.benchmark;
+
+import com.vk7days.taskscheduler.WeeklyRecurrence;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of resolving next fire times for a weekly schedule of {@code size} tasks.
+ *
+ * {@code resolveAll} and {@code perTaskFresh} resolve the whole schedule per operation, so
+ * divide their score by {@code size} for the per-task cost. {@code perTaskCached} resolves
+ * one task per operation against its warm occurrence cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WeeklyRecurrenceBenchmark {
+    private static final String[] DAYS = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private final ZoneId zone = ZoneId.of("Europe/Berlin");
+    private final long now = 1_711_800_000_000L; // the week of the 2024 spring-forward
+    private List<WeeklyRecurrence> recurrences;
+    private String[] dayKeys;
+    private String[] times;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        recurrences = new ArrayList<>(size);
+        dayKeys = new String[size];
+        times = new String[size];
+        for (int i = 0; i < size; i++) {
+            dayKeys[i] = DAYS[random.nextInt(DAYS.length)];
+            times[i] = String.format("%02d:%02d", random.nextInt(24), random.nextInt(60));
+            WeeklyRecurrence recurrence = WeeklyRecurrence.of(dayKeys[i], times[i]);
+            recurrence.nextAfter(now, zone);
+            recurrences.add(recurrence);
+        }
+    }
+
+    @Benchmark
+    public long[] resolveAll() {
+        return WeeklyRecurrence.resolveAll(recurrences, now, zone);
+    }
+
+    @Benchmark
+    public long perTaskFresh() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += WeeklyRecurrence.of(dayKeys[i], times[i]).nextAfter(now, zone);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long perTaskCached() {
+        int index = cursor;
+        cursor = index + 1 == size ? 0 : index + 1;
+        return recurrences.get(index).nextAfter(now, zone);
+    }
+}
@@ -1,7 +1,7 @@
-import React, { useEffect, useMemo, useState } from "react";
+import React, { useEffect, useMemo, useRef, useState } from "react";
 import "./styles.css";
 
-import { DAYS, clearAllState, loadState, makeDefaultState, saveState, sortByTime } from "./lib/storage";
+import { DAYS, clearAllState, createStateSaver, loadState, loadStateAsync, makeDefaultState, mergeCompletions, sortByTime, usesNativeStore } from "./lib/storage";
 import { ensureNotificationPermission, tick } from "./lib/alarm";
 import { audioStorage, audioPlayer } from "./lib/recorder";
 import { canScheduleTriggeredNotifications, syncAllTriggeredNotifications, scheduleTriggeredNotificationForTask } from "./lib/notify";
@@ -16,7 +16,11 @@ import EditTaskModal from "./components/EditTaskModal";
 import AlarmModal from "./components/AlarmModal";
 
 export default function App() {
-  const [state, setState] = useState(() => loadState());
+  // With the native store the state arrives asynchronously; nothing that acts on the
+  // schedule may run before it has loaded
+  const [state, setState] = useState(() => (usesNativeStore() ? makeDefaultState() : loadState()));
+  const [hydrated, setHydrated] = useState(() => !usesNativeStore());
+  const [stateSaver] = useState(() => createStateSaver());
   const [search, setSearch] = useState("");
   const [editTask, setEditTask] = useState(null);
 
@@ -61,10 +65,7 @@ export default function App() {
     setIsInstalledApp(isAndroidApp);
     
     // If running as installed APK, use background alarms
-    if (isInstalledApp) {
-      // Setup background alarm listeners
-      backgroundAlarms.setupGlobalHandlers();
-      
+    if (isAndroidApp) {
       // Check current permissions
       backgroundAlarms.checkPermissions().then(result => {
         if (result.granted) {
@@ -78,13 +79,67 @@ export default function App() {
         setAlarmTask(task);
         setAlarmDayKey(dayKey);
       };
+
+      // Setup background alarm listeners once alarms can be shown; alarms that fire while
+      // the app is open arrive as events from the native scheduler
+      backgroundAlarms.setupGlobalHandlers({
+        onFired: (task, dayKey) => {
+          analytics.alarmTriggered(task, dayKey);
+          setAlarmTask(task);
+          setAlarmDayKey(dayKey);
+        },
+        onPermissionsChanged: (permissions) => {
+          if (permissions.granted) setNotifStatus("granted");
+        },
+      });
+
+      // The first render has been committed: launch is complete
+      backgroundAlarms.reportFullyDrawn();
     }
   }, []);
 
-  // Save to localStorage
   useEffect(() => {
-    saveState(state);
-  }, [state]);
+    if (hydrated) return;
+    loadStateAsync().then((loaded) => {
+      stateSaver.reset(loaded);
+      setState(loaded);
+      setHydrated(true);
+    });
+  }, []);
+
+  // Done/Skip taps on alarm notifications were journaled natively while the app was
+  // closed; fold them into the tasks in one batch. The native records are only dropped
+  // once the merged tasks are stored, or right away when nothing needed merging (e.g.
+  // the task has since been deleted).
+  const latestState = useRef(state);
+  latestState.current = state;
+  const completionKeys = useRef([]);
+  useEffect(() => {
+    if (!isInstalledApp || !hydrated) return;
+    backgroundAlarms.getCompletions().then((completions) => {
+      if (!completions.length) return;
+      const keys = completions.map((completion) => completion.key);
+      if (mergeCompletions(latestState.current, completions) === latestState.current) {
+        backgroundAlarms.acknowledgeCompletions(keys);
+        return;
+      }
+      completionKeys.current = keys;
+      setState((p) => mergeCompletions(p, completions));
+    });
+  }, [isInstalledApp, hydrated]);
+
+  // Persist changes: per task in the native store, or to localStorage in the browser
+  useEffect(() => {
+    if (!hydrated) return;
+    const saving = stateSaver.save(state);
+    if (completionKeys.current.length) {
+      const keys = completionKeys.current;
+      completionKeys.current = [];
+      saving.then((saved) => {
+        if (saved) backgroundAlarms.acknowledgeCompletions(keys);
+      });
+    }
+  }, [state, hydrated]);
 
   // ✅ Audio player for custom recordings (replaces TTS looper)
   useEffect(() => {
@@ -235,6 +290,18 @@ export default function App() {
     }
   }, [state.schedule]);
 
+  // Make sure every recording has a native copy for background playback
+  useEffect(() => {
+    if (isInstalledApp) backgroundAlarms.syncVoices();
+  }, [isInstalledApp]);
+
+  // Keep native alarms in step with the schedule. Reconciling is cheap: only the tasks
+  // that were added, edited, disabled or deleted reach AlarmManager.
+  useEffect(() => {
+    if (!isInstalledApp || !hydrated) return;
+    backgroundAlarms.scheduleAllTasks(state.schedule);
+  }, [state.schedule, isInstalledApp, hydrated]);
+
   const visibleDays = useMemo(() => {
     if (state.settings.showSunday) return DAYS;
     return DAYS.filter((d) => d.key !== "sunday");
@@ -348,9 +415,12 @@ export default function App() {
     };
   }, [state.schedule]);
 
-  // Alarm ticker (checks every 5s)
+  // Browser alarm ticker. Task times have minute resolution, so it wakes at the top of each
+  // minute. The Android app doesn't tick at all: native alarms arrive as "fired" events.
   useEffect(() => {
-    const id = window.setInterval(() => {
+    if (backgroundAlarms.isAndroid) return;
+
+    const check = () => {
       tick(state.schedule, async (task, dayKey) => {
         // Track alarm trigger
         analytics.alarmTriggered(task, dayKey);
@@ -385,9 +455,21 @@ export default function App() {
           await scheduleTriggeredNotificationForTask(task, dayKey);
         } catch {}
       });
-    }, 5000);
+    };
 
-    return () => window.clearInterval(id);
+    let id;
+    const scheduleNext = () => {
+      id = window.setTimeout(() => {
+        check();
+        scheduleNext();
+      }, 60000 - (Date.now() % 60000));
+    };
+
+    // Check now too, in case the schedule just changed within the current minute
+    check();
+    scheduleNext();
+
+    return () => window.clearTimeout(id);
   }, [state.schedule]);
 
   function setActiveDay(dayKey) {
@@ -411,16 +493,7 @@ export default function App() {
       if (task) {
         analytics.taskToggled(id, !task.enabled);
         
-        // Update background alarms
-        if (isInstalledApp || window.Capacitor) {
-          if (!task.enabled) {
-            // Task being enabled - schedule background alarm
-            backgroundAlarms.scheduleAlarm({...task, enabled: true}, p.activeDay);
-          } else {
-            // Task being disabled - cancel background alarm
-            backgroundAlarms.cancelAlarm(task.id);
-          }
-        }
+        // Background alarms follow from the schedule change via reconcile
         
         // Update service worker
         navigator.serviceWorker.getRegistrations().then(registrations => {
@@ -467,11 +540,6 @@ export default function App() {
   function deleteTask(id) {
     analytics.taskDeleted(id);
     
-    // Cancel background alarm
-    if (isInstalledApp || window.Capacitor) {
-      backgroundAlarms.cancelAlarm(id);
-    }
-    
     // Update service worker
     navigator.serviceWorker.getRegistrations().then(registrations => {
       registrations.forEach(reg => {
@@ -1,8 +1,12 @@
 import React from "react";
+import { localDate } from "../lib/storage";
 
 export default function TaskList({ tasks, onToggle, onDelete, onEdit }) {
   if (!tasks?.length) return <div className="empty">No tasks yet.</div>;
 
+  // Marked from the alarm notification, see mergeCompletions
+  const today = localDate();
+
   return (
     <div className="list">
       {tasks.map((t) => (
@@ -13,6 +17,9 @@ export default function TaskList({ tasks, onToggle, onDelete, onEdit }) {
             <div className="taskTitle">
               {t.title}
               {t.hasCustomVoice && <span className="voiceIndicator">🎤</span>}
+              {t.history?.[today] && (
+                <span className="pill">{t.history[today] === "done" ? "✓ Done today" : "Skipped today"}</span>
+              )}
             </div>
             {t.notes ? <div className="taskNotes">{t.notes}</div> : null}
           </div>
@@ -1,4 +1,6 @@
-const FIRED_KEY = "vk7days_fired_v1";
+const FIRED_KEY = "vk7days_fired_v2";
+const LEGACY_FIRED_KEY = "vk7days_fired_v1";
+const DAY_MS = 24 * 60 * 60 * 1000;
 
 /* ---------------- Notifications ---------------- */
 export async function ensureNotificationPermission() {
@@ -15,28 +17,44 @@ function todayKey() {
   return map[new Date().getDay()];
 }
 
-function ymd(d = new Date()) {
-  const y = d.getFullYear();
-  const m = String(d.getMonth() + 1).padStart(2, "0");
-  const day = String(d.getDate()).padStart(2, "0");
-  return `${y}-${m}-${day}`;
-}
+// Occurrences this page has already fired, `${occurrence}_${taskId}` -> occurrence time, saved
+// so a reload within the minute doesn't ring again. Entries older than a day are pruned, so the
+// map never holds more than about a day of alarms. Only the browser ticks; on Android the native
+// receiver fires alarms and keeps its own ledger.
+let settled = null;
 
-function loadFired() {
+function loadSettled() {
+  if (settled) return settled;
+  settled = new Map();
   try {
-    return JSON.parse(localStorage.getItem(FIRED_KEY) || "{}");
-  } catch {
-    return {};
-  }
+    localStorage.removeItem(LEGACY_FIRED_KEY);
+    const saved = JSON.parse(localStorage.getItem(FIRED_KEY) || "{}");
+    for (const [key, occurrence] of Object.entries(saved)) settled.set(key, occurrence);
+  } catch {}
+  return settled;
 }
-function saveFired(map) {
+
+function saveSettled() {
   try {
-    localStorage.setItem(FIRED_KEY, JSON.stringify(map));
+    localStorage.setItem(FIRED_KEY, JSON.stringify(Object.fromEntries(settled)));
   } catch {}
 }
 
-function hhmmNow() {
-  const d = new Date();
+/** True only for the first claim of this task's occurrence. */
+function claimOccurrence(taskId, occurrence) {
+  const map = loadSettled();
+  const key = `${occurrence}_${taskId}`;
+  if (map.has(key)) return false;
+
+  map.set(key, occurrence);
+  for (const [k, at] of map) {
+    if (at < occurrence - DAY_MS) map.delete(k);
+  }
+  saveSettled();
+  return true;
+}
+
+function hhmmOf(d) {
   const hh = String(d.getHours()).padStart(2, "0");
   const mm = String(d.getMinutes()).padStart(2, "0");
   return `${hh}:${mm}`;
@@ -45,26 +63,21 @@ function hhmmNow() {
 /**
  * tick(schedule, onFire)
  * - schedule shape: { monday: [task...], ... }
- * - calls onFire(task, dayKey) ONCE per dayKey+time+task.id
- * - check interval is managed by caller (App.jsx does it every 5s)
+ * - calls onFire(task, dayKey) ONCE per occurrence (task.id + trigger minute)
+ * - check interval is managed by caller (App.jsx does it at the top of each minute)
  */
 export function tick(schedule, onFire) {
+  const now = new Date();
   const day = todayKey();
   const tasks = Array.isArray(schedule?.[day]) ? schedule[day] : [];
-  const fired = loadFired();
 
-  const hhmm = hhmmNow();
-  const base = `${ymd(new Date())}_${day}_${hhmm}`;
+  const hhmm = hhmmOf(now);
+  const occurrence = new Date(now.getFullYear(), now.getMonth(), now.getDate(), now.getHours(), now.getMinutes()).getTime();
 
   for (const t of tasks) {
     if (!t?.enabled) continue;
     if (t.time !== hhmm) continue;
 
-    const fireKey = `${base}_${t.id}`;
-    if (fired[fireKey]) continue;
-
-    fired[fireKey] = true;
-    saveFired(fired);
-    onFire(t, day);
+    if (claimOccurrence(t.id, occurrence)) onFire(t, day);
   }
 }
@@ -1,42 +1,92 @@
 import { Capacitor } from "@capacitor/core";
 
+const VOICE_CHUNK_BYTES = 192 * 1024;
+
+function blobToBase64(blob) {
+  return new Promise((resolve, reject) => {
+    const reader = new FileReader();
+    reader.onload = () => resolve(reader.result.slice(reader.result.indexOf(",") + 1));
+    reader.onerror = () => reject(reader.error);
+    reader.readAsDataURL(blob);
+  });
+}
+
+function withGranted(result) {
+  return {
+    granted:
+      result.hasNotificationPermission &&
+      result.hasExactAlarmPermission &&
+      !result.isBatteryOptimized,
+    // Whether reminders can show up with the app closed. Without exact alarms they are
+    // still scheduled, batched natively into inexact wake-ups that ring at most the batch
+    // tolerance late
+    canSchedule: result.hasNotificationPermission,
+    batched: !result.hasExactAlarmPermission,
+    ...result,
+  };
+}
+
 class BackgroundAlarmService {
   constructor() {
     this.isAndroid = Capacitor.getPlatform() === "android";
     this.scheduledAlarms = new Map();
-    this.setupGlobalHandlers();
+    this.alarmEventsListener = null;
+    this.onFired = null;
+    // Last permission state reported by native code, kept current by "permissionsChanged"
+    this.permissions = null;
+    this.onPermissionsChanged = null;
+    // Titles already handed to the native speech cache this session
+    this.spokenTitles = new Set();
   }
 
-  setupGlobalHandlers() {
+  // Call once the UI can show alarms: native code holds alarm events until a listener
+  // is attached, then delivers everything queued during startup in one batch.
+  // onFired(task, dayKey) runs when an alarm fires while the app is open; the native
+  // scheduler is the only clock, so the web layer never polls for due tasks.
+  // onPermissionsChanged(permissions) runs when the user changes a permission, e.g. in Settings.
+  setupGlobalHandlers({ onFired, onPermissionsChanged } = {}) {
+    this.onFired = onFired;
+    this.onPermissionsChanged = onPermissionsChanged;
+    if (!this.isAndroid || this.alarmEventsListener) return;
+
+    this.alarmEventsListener = Capacitor.Plugins.AlarmScheduler.addListener(
+      "alarmEvents",
+      ({ events }) => events.forEach((event) => this.handleAlarmEvent(event)),
+    );
+    Capacitor.Plugins.AlarmScheduler.addListener("permissionsChanged", (result) => {
+      this.permissions = withGranted(result);
+      this.onPermissionsChanged?.(this.permissions);
+    });
+  }
+
+  handleAlarmEvent(event) {
+    const task = {
+      id: event.taskId,
+      title: event.taskTitle,
+      time: event.taskTime,
+      hasCustomVoice: event.hasCustomVoice,
+    };
+
+    if (event.type === "fired") {
+      // Ringing natively (sound and voice included) while the app is open: just show it
+      console.log(`⏰ Alarm fired in foreground: ${event.taskId} (${event.at - event.triggerTime}ms late)`);
+      this.onFired?.(task, event.dayKey);
+      return;
+    }
+    if (event.type !== "opened") return;
+
     // Handle alarms when app is opened from background notification
-    window.handleAlarmFromBackground = (
-      taskId,
-      taskTitle,
-      taskTime,
-      dayKey,
-      hasCustomVoice,
-    ) => {
-      console.log(`📱 App opened from background alarm: ${taskId}`);
-
-      const task = {
-        id: taskId,
-        title: taskTitle,
-        time: taskTime,
-        hasCustomVoice: hasCustomVoice,
-      };
+    console.log(`📱 App opened from background alarm: ${event.taskId}`);
 
-      // Show the alarm modal
-      if (window.showAlarmFromNotification) {
-        window.showAlarmFromNotification(task, dayKey);
-      }
+    // Show the alarm modal
+    if (window.showAlarmFromNotification) {
+      window.showAlarmFromNotification(task, event.dayKey);
+    }
 
-      // Play custom audio if available
-      if (hasCustomVoice) {
-        setTimeout(() => {
-          this.playCustomAudio(taskId);
-        }, 1000);
-      }
-    };
+    // Play custom audio if available
+    if (event.hasCustomVoice) {
+      this.playCustomAudio(event.taskId);
+    }
   }
 
   async checkPermissions() {
@@ -52,16 +102,8 @@ class BackgroundAlarmService {
 
     try {
       const result = await Capacitor.Plugins.AlarmScheduler.checkPermissions();
-
-      const allGranted =
-        result.hasNotificationPermission &&
-        result.hasExactAlarmPermission &&
-        !result.isBatteryOptimized;
-
-      return {
-        granted: allGranted,
-        ...result,
-      };
+      this.permissions = withGranted(result);
+      return this.permissions;
     } catch (error) {
       console.error("Error checking permissions:", error);
       return {
@@ -75,6 +117,12 @@ class BackgroundAlarmService {
     }
   }
 
+  // Permissions as last reported: scheduling reads this instead of asking native code each
+  // time, and native code only re-probes when something may have changed them
+  async currentPermissions() {
+    return this.permissions ?? this.checkPermissions();
+  }
+
   async requestPermissions() {
     if (!this.isAndroid) {
       return { granted: false, reason: "not_android" };
@@ -158,8 +206,8 @@ class BackgroundAlarmService {
     }
 
     try {
-      const permissions = await this.checkPermissions();
-      if (!permissions.granted) {
+      const permissions = await this.currentPermissions();
+      if (!permissions.canSchedule) {
         return {
           success: false,
           reason: "no_permission",
@@ -167,24 +215,16 @@ class BackgroundAlarmService {
         };
       }
 
-      // Calculate next occurrence
-      const nextTime = this.getNextOccurrence(dayKey, task.time);
-      if (!nextTime) {
-        return { success: false, reason: "invalid_time" };
-      }
-
-      // Cancel existing alarm for this task
-      await this.cancelAlarm(task.id);
-
-      // Schedule the background alarm using native AlarmManager
-      await Capacitor.Plugins.AlarmScheduler.scheduleAlarm({
+      // Schedule the background alarm (replaces any pending alarm for this task).
+      // The next occurrence is resolved natively from the day and time.
+      const { triggerTime } = await Capacitor.Plugins.AlarmScheduler.scheduleAlarm({
         taskId: task.id,
         taskTitle: task.title,
         taskTime: task.time,
         dayKey: dayKey,
         hasCustomVoice: task.hasCustomVoice || false,
-        triggerTime: nextTime.getTime(),
       });
+      const nextTime = new Date(triggerTime);
 
       // Store the mapping
       this.scheduledAlarms.set(task.id, {
@@ -225,74 +265,164 @@ class BackgroundAlarmService {
       return { success: false, reason: "not_android" };
     }
 
+    // Cached permission state; no probe per sync, let alone per task. The queue is reconciled
+    // even without notification permission: the native scheduler is the app's only alarm
+    // clock, and it delivers in-app alarms as "fired" events, which need no notification.
+    const permissions = await this.currentPermissions();
+
     const results = [];
+    const alarms = [];
+    const scheduled = new Map();
 
     for (const [dayKey, tasks] of Object.entries(schedule)) {
       for (const task of tasks) {
-        if (task.enabled) {
-          const result = await this.scheduleAlarm(task, dayKey);
-          results.push({ taskId: task.id, dayKey, ...result });
-        }
+        if (!task.enabled) continue;
+
+        alarms.push({
+          taskId: task.id,
+          taskTitle: task.title,
+          taskTime: task.time,
+          dayKey: dayKey,
+          hasCustomVoice: task.hasCustomVoice || false,
+          // Optional richer schedule (every N days, dates, N-th weekday, several
+          // times); when present it replaces the day and time natively
+          ...(task.rule ? { rule: task.rule } : {}),
+        });
+        scheduled.set(task.id, { dayKey, task });
       }
     }
 
-    return { success: true, results };
+    try {
+      // The native side diffs against what it already has armed and only touches
+      // tasks that were added, edited, disabled or deleted
+      const startedAt = performance.now();
+      const delta = await Capacitor.Plugins.AlarmScheduler.reconcile({ alarms });
+      console.log(
+        `✅ Reconciled ${alarms.length} background alarms in ${Math.round(performance.now() - startedAt)}ms: ` +
+          `${delta.added} added, ${delta.updated} updated, ${delta.removed} removed, ${delta.unchanged} unchanged, ` +
+          `${delta.alarmManagerCalls} AlarmManager calls` +
+          (delta.batchToleranceMs ? `, batched within ${delta.batchToleranceMs / 60000} min` : ""),
+      );
+
+      this.scheduledAlarms.clear();
+      for (const alarm of alarms) {
+        const { dayKey, task } = scheduled.get(alarm.taskId);
+        const triggerTime = delta.triggerTimes?.[alarm.taskId];
+        if (triggerTime) {
+          const scheduledAt = new Date(triggerTime);
+          this.scheduledAlarms.set(alarm.taskId, { dayKey, scheduledAt, task });
+          results.push({ taskId: alarm.taskId, dayKey, success: true, scheduledAt });
+        } else {
+          results.push({ taskId: alarm.taskId, dayKey, success: false, reason: "invalid_time" });
+        }
+      }
+
+      // Saved and edited titles get their spoken reminder rendered natively in the
+      // background when spoken reminders are on; tasks with their own recording play that instead
+      this.prepareSpeech(
+        [...scheduled.values()].filter(({ task }) => !task.hasCustomVoice).map(({ task }) => task.title),
+      );
+
+      return { success: true, results, delta, permissions };
+    } catch (error) {
+      console.error("Error scheduling background alarms:", error);
+      return { success: false, reason: "schedule_error", error, results };
+    }
   }
 
-  async clearAllAlarms() {
+  // Next occurrences across every scheduled task, earliest first, from the native
+  // occurrence index (two weeks ahead at most)
+  async getUpcoming(count = 10, after = Date.now()) {
     if (!this.isAndroid) {
-      return;
+      return [];
     }
 
     try {
-      // Cancel all stored alarms
-      for (const taskId of this.scheduledAlarms.keys()) {
-        await this.cancelAlarm(taskId);
-      }
-
-      this.scheduledAlarms.clear();
-      console.log("✅ Cleared all background alarms");
+      const { occurrences } = await Capacitor.Plugins.AlarmScheduler.getUpcoming({ count, after });
+      return occurrences.map((occurrence) => ({
+        ...occurrence,
+        scheduledAt: new Date(occurrence.triggerTime),
+      }));
     } catch (error) {
-      console.error("Error clearing background alarms:", error);
+      console.error("Error reading upcoming alarms:", error);
+      return [];
     }
   }
 
-  getNextOccurrence(dayKey, timeStr) {
-    const dayMap = {
-      sunday: 0,
-      monday: 1,
-      tuesday: 2,
-      wednesday: 3,
-      thursday: 4,
-      friday: 5,
-      saturday: 6,
-    };
+  // Renders each title to an audio clip natively, so the alarm can speak it with the app
+  // closed. Titles already sent this session are skipped; the native cache is keyed by text.
+  async prepareSpeech(titles) {
+    if (!this.isAndroid) {
+      return null;
+    }
 
-    const targetDay = dayMap[dayKey.toLowerCase()];
-    if (targetDay === undefined) return null;
+    const texts = [...new Set(titles.map((title) => (title || "").trim()))].filter(
+      (text) => text && !this.spokenTitles.has(text),
+    );
+    if (texts.length === 0) {
+      return null;
+    }
+    texts.forEach((text) => this.spokenTitles.add(text));
 
-    const [hours, minutes] = timeStr.split(":").map(Number);
-    if (isNaN(hours) || isNaN(minutes)) return null;
+    try {
+      const result = await Capacitor.Plugins.AlarmScheduler.prepareSpeech({ texts });
+      if (result.disabled) {
+        // Spoken reminders are off; send these again once they are turned on
+        texts.forEach((text) => this.spokenTitles.delete(text));
+        return result;
+      }
+      console.log(`🗣️ Prepared ${result.prepared} spoken reminder(s), ${result.failed} failed`);
+      return result;
+    } catch (error) {
+      texts.forEach((text) => this.spokenTitles.delete(text));
+      console.error("Error preparing spoken reminders:", error);
+      return null;
+    }
+  }
 
-    const now = new Date();
-    const target = new Date();
+  // Tasks marked done or skipped from the alarm notification while the app was closed,
+  // as { key, taskId, status: "done" | "skipped", date: "YYYY-MM-DD", triggerTime, at }
+  async getCompletions() {
+    if (!this.isAndroid) {
+      return [];
+    }
 
-    // Set target time
-    target.setHours(hours, minutes, 0, 0);
+    try {
+      const { completions } = await Capacitor.Plugins.AlarmScheduler.getCompletions();
+      return completions;
+    } catch (error) {
+      console.error("Error reading completions:", error);
+      return [];
+    }
+  }
 
-    // Calculate days until target day
-    const currentDay = now.getDay();
-    let daysUntil = targetDay - currentDay;
+  // Call once the merged state has been saved; the native journal then drops the records
+  async acknowledgeCompletions(keys) {
+    if (!this.isAndroid || keys.length === 0) {
+      return;
+    }
+
+    try {
+      await Capacitor.Plugins.AlarmScheduler.acknowledgeCompletions({ keys });
+    } catch (error) {
+      console.error("Error acknowledging completions:", error);
+    }
+  }
 
-    if (daysUntil < 0) {
-      daysUntil += 7; // Next week
-    } else if (daysUntil === 0 && target <= now) {
-      daysUntil = 7; // Same day but time passed, schedule for next week
+  async clearAllAlarms() {
+    if (!this.isAndroid) {
+      return;
     }
 
-    target.setDate(now.getDate() + daysUntil);
+    try {
+      // Reconciling against an empty schedule cancels everything natively armed
+      await Capacitor.Plugins.AlarmScheduler.reconcile({ alarms: [] });
 
-    return target;
+      this.scheduledAlarms.clear();
+      console.log("✅ Cleared all background alarms");
+    } catch (error) {
+      console.error("Error clearing background alarms:", error);
+    }
   }
 
   async playCustomAudio(taskId) {
@@ -327,6 +457,129 @@ class BackgroundAlarmService {
     }
   }
 
+  // Copies a voice recording into native storage so the alarm service can play it
+  // without the WebView. Sent in base64 chunks to keep each bridge message small.
+  async saveVoice(taskId, audioBlob) {
+    if (!this.isAndroid || !audioBlob) {
+      return { success: false, reason: "not_android" };
+    }
+
+    try {
+      const chunkCount = Math.max(1, Math.ceil(audioBlob.size / VOICE_CHUNK_BYTES));
+      for (let index = 0; index < chunkCount; index++) {
+        const chunk = audioBlob.slice(index * VOICE_CHUNK_BYTES, (index + 1) * VOICE_CHUNK_BYTES);
+        await Capacitor.Plugins.AlarmScheduler.saveVoiceChunk({
+          taskId,
+          index,
+          data: await blobToBase64(chunk),
+          last: index === chunkCount - 1,
+        });
+      }
+      console.log(`✅ Stored voice recording for task ${taskId} natively (${audioBlob.size} bytes)`);
+      return { success: true };
+    } catch (error) {
+      console.error("Error storing voice recording natively:", error);
+      return { success: false, reason: "save_error", error };
+    }
+  }
+
+  async deleteVoice(taskId) {
+    if (!this.isAndroid) {
+      return;
+    }
+
+    try {
+      await Capacitor.Plugins.AlarmScheduler.deleteVoice({ taskId });
+    } catch (error) {
+      console.error("Error deleting native voice recording:", error);
+    }
+  }
+
+  // Recordings made before native playback existed live only in IndexedDB
+  async syncVoices() {
+    if (!this.isAndroid || !window.audioStorage) {
+      return;
+    }
+
+    try {
+      const { taskIds } = await Capacitor.Plugins.AlarmScheduler.listVoices();
+      const stored = new Set(taskIds);
+      const { recordings = [] } = await window.audioStorage.getAllRecordings();
+      for (const recording of recordings) {
+        if (!stored.has(recording.taskId)) {
+          await this.saveVoice(recording.taskId, recording.audioBlob);
+        }
+      }
+    } catch (error) {
+      console.error("Error syncing voice recordings:", error);
+    }
+  }
+
+  // Marks the end of app launch for Android's startup metrics; call after the first render
+  reportFullyDrawn() {
+    if (!this.isAndroid) return;
+
+    Capacitor.Plugins.AlarmScheduler.reportFullyDrawn().catch((error) => {
+      console.error("Error reporting fully drawn:", error);
+    });
+  }
+
+  // Snooze length (5, 10 or 15 min) and how long an unanswered alarm rings
+  // batterySaver batches nearby alarms into one wake-up even when exact alarms are
+  // allowed; batchToleranceMinutes (up to 60, at least 10 on Android 12+) bounds how late a
+  // batched alarm may ring.
+  // spokenReminders makes tasks without a recording speak their title instead of ringing
+  // (off by default); titles are rendered on the next scheduleAllTasks.
+  async setAlarmOptions({ snoozeMinutes, autoSilenceMinutes, batterySaver, batchToleranceMinutes, spokenReminders }) {
+    if (!this.isAndroid) {
+      return null;
+    }
+
+    try {
+      return await Capacitor.Plugins.AlarmScheduler.setAlarmOptions({
+        snoozeMinutes,
+        autoSilenceMinutes,
+        batterySaver,
+        batchToleranceMinutes,
+        spokenReminders,
+      });
+    } catch (error) {
+      console.error("Error saving alarm options:", error);
+      return null;
+    }
+  }
+
+  async getAlarmMetrics() {
+    if (!this.isAndroid) {
+      return null;
+    }
+
+    try {
+      // Per-stage delays (ms) from the scheduled trigger time, recorded natively, plus
+      // wake-ups saved and worst lateness in batched mode under "batching"
+      return await Capacitor.Plugins.AlarmScheduler.getAlarmMetrics();
+    } catch (error) {
+      console.error("Error reading alarm metrics:", error);
+      return null;
+    }
+  }
+
+  // Recent native alarm events, kept across restarts, for attaching to a bug report:
+  // [[time, event, subject, value], ...] oldest first, e.g. [t, "received", taskId, triggerTime]
+  async exportTrace() {
+    if (!this.isAndroid) {
+      return [];
+    }
+
+    try {
+      const { trace } = await Capacitor.Plugins.AlarmScheduler.exportTrace();
+      return JSON.parse(trace);
+    } catch (error) {
+      console.error("Error exporting alarm trace:", error);
+      return [];
+    }
+  }
+
   getScheduledAlarms() {
     return Array.from(this.scheduledAlarms.entries()).map(([taskId, data]) => ({
       taskId,
@@ -1,4 +1,5 @@
 // Audio recording utility for custom voice reminders
+import { backgroundAlarms } from "./backgroundAlarms";
 
 class AudioRecorder {
   constructor() {
@@ -185,6 +186,9 @@ class AudioStorage {
       });
 
       db.close();
+
+      // Mirror to native storage so background alarms can play it with the app closed
+      await backgroundAlarms.saveVoice(taskId, audioBlob);
       return { success: true };
     } catch (error) {
       console.error("Failed to save recording:", error);
@@ -231,6 +235,7 @@ class AudioStorage {
       });
 
       db.close();
+      await backgroundAlarms.deleteVoice(taskId);
       return { success: true };
     } catch (error) {
       console.error("Failed to delete recording:", error);
@@ -1,3 +1,5 @@
+import { Capacitor } from "@capacitor/core";
+
 const LS_KEY = "vk7days_state_v1";
 
 export const DAYS = [
@@ -36,45 +38,221 @@ export function sortByTime(list) {
   return [...list].sort((a, b) => (a.time || "").localeCompare(b.time || ""));
 }
 
+// On Android the schedule lives in the native ScheduleStore, one record per task, so a
+// change costs only the tasks it touched instead of a rewrite of the whole state
+export function usesNativeStore() {
+  return Capacitor.getPlatform() === "android" && Capacitor.isPluginAvailable("ScheduleStore");
+}
+
 export function loadState() {
   try {
     const raw = localStorage.getItem(LS_KEY);
     if (!raw) return makeDefaultState();
-    const parsed = JSON.parse(raw);
-    const base = makeDefaultState();
-    const merged = {
-      ...base,
-      ...parsed,
-      settings: { ...base.settings, ...(parsed.settings || {}) },
-      schedule: { ...base.schedule, ...(parsed.schedule || {}) },
-    };
+    return normalizeState(JSON.parse(raw));
+  } catch {
+    return makeDefaultState();
+  }
+}
+
+function normalizeState(parsed) {
+  const base = makeDefaultState();
+  const merged = {
+    ...base,
+    ...parsed,
+    settings: { ...base.settings, ...(parsed.settings || {}) },
+    schedule: { ...base.schedule, ...(parsed.schedule || {}) },
+  };
 
-    // ✅ normalize tasks (migrate from old voice system to new recording system)
-    for (const dayKey of Object.keys(merged.schedule || {})) {
-      const list = Array.isArray(merged.schedule[dayKey])
-        ? merged.schedule[dayKey]
-        : [];
-      merged.schedule[dayKey] = list.map((t) => {
-        const x = { ...(t || {}) };
-        if (typeof x.enabled !== "boolean") x.enabled = true;
+  // ✅ normalize tasks (migrate from old voice system to new recording system)
+  for (const dayKey of Object.keys(merged.schedule || {})) {
+    const list = Array.isArray(merged.schedule[dayKey])
+      ? merged.schedule[dayKey]
+      : [];
+    merged.schedule[dayKey] = list.map((t) => {
+      const x = { ...(t || {}) };
+      if (typeof x.enabled !== "boolean") x.enabled = true;
 
-        // Remove old voice gender properties and migrate to new system
-        delete x.voiceGender;
+      // Remove old voice gender properties and migrate to new system
+      delete x.voiceGender;
 
-        // Set hasCustomVoice to false for existing tasks (they'll need to re-record)
-        if (typeof x.hasCustomVoice !== "boolean") x.hasCustomVoice = false;
+      // Set hasCustomVoice to false for existing tasks (they'll need to re-record)
+      if (typeof x.hasCustomVoice !== "boolean") x.hasCustomVoice = false;
 
-        return x;
+      return x;
+    });
+  }
+
+  // Remove old voice settings
+  delete merged.settings.voiceGender;
+
+  return merged;
+}
+
+/**
+ * Loads the state from the native store. Tasks were normalized when they were first
+ * written, so this is one JSON parse and no migration. The first run after an update
+ * moves the localStorage state across.
+ */
+export async function loadStateAsync() {
+  if (!usesNativeStore()) return loadState();
+
+  try {
+    const snapshot = await Capacitor.Plugins.ScheduleStore.loadSchedule();
+    if (snapshot.empty) {
+      const migrated = loadState();
+      await Capacitor.Plugins.ScheduleStore.apply({
+        ops: diffSchedule(undefined, migrated.schedule),
+        meta: metaOf(migrated),
       });
+      localStorage.removeItem(LS_KEY);
+      return migrated;
     }
 
-    // Remove old voice settings
-    delete merged.settings.voiceGender;
+    const state = makeDefaultState();
+    Object.assign(state, JSON.parse(snapshot.meta || "{}"));
+    state.settings = { ...makeDefaultState().settings, ...(state.settings || {}) };
+    state.schedule = makeDefaultState().schedule;
+    const tasks = JSON.parse(snapshot.tasks);
+    for (const key of Object.keys(tasks)) {
+      const dayKey = key.slice(0, key.indexOf(":"));
+      (state.schedule[dayKey] = state.schedule[dayKey] || []).push(tasks[key]);
+    }
+    for (const dayKey of Object.keys(state.schedule)) {
+      state.schedule[dayKey] = sortByTime(state.schedule[dayKey]);
+    }
+    return state;
+  } catch (error) {
+    console.error("Error loading native schedule, using localStorage:", error);
+    return loadState();
+  }
+}
 
-    return merged;
-  } catch {
-    return makeDefaultState();
+function metaOf(state) {
+  return { activeDay: state.activeDay, settings: state.settings };
+}
+
+const NO_TASKS = [];
+
+/**
+ * Per-task upserts and deletes that turn schedule `prev` into `next`. State
+ * updates are immutable, so unchanged days and tasks are skipped by reference.
+ */
+export function diffSchedule(prev = {}, next = {}) {
+  const ops = [];
+  const days = new Set([...Object.keys(prev), ...Object.keys(next)]);
+  for (const dayKey of days) {
+    const before = prev[dayKey] || NO_TASKS;
+    const after = next[dayKey] || NO_TASKS;
+    if (before === after) continue;
+
+    const removed = new Map(before.map((task) => [task.id, task]));
+    for (const task of after) {
+      if (removed.get(task.id) !== task) {
+        ops.push({ op: "put", key: `${dayKey}:${task.id}`, task });
+      }
+      removed.delete(task.id);
+    }
+    for (const id of removed.keys()) {
+      ops.push({ op: "delete", key: `${dayKey}:${id}` });
+    }
   }
+  return ops;
+}
+
+/**
+ * Persists state changes. With the native store only what changed since the last save is
+ * written; in the browser the whole state still goes to localStorage. `save` resolves to
+ * true once the state is stored, false if writing it failed.
+ */
+export function createStateSaver() {
+  // The last state known to be on disk. It only advances once a write lands, so a failed
+  // write's changes go out again with the next save.
+  let saved = null;
+  // Writes run one at a time, each diffed against what the one before it stored
+  let writing = Promise.resolve();
+
+  function write(state) {
+    if (state === saved) return Promise.resolve(true);
+
+    const ops = diffSchedule(saved?.schedule, state.schedule);
+    const metaChanged =
+      !saved || saved.activeDay !== state.activeDay || saved.settings !== state.settings;
+    if (!ops.length && !metaChanged) {
+      saved = state;
+      return Promise.resolve(true);
+    }
+
+    return Capacitor.Plugins.ScheduleStore.apply({
+      ops,
+      meta: metaChanged ? metaOf(state) : undefined,
+    }).then(
+      () => {
+        saved = state;
+        return true;
+      },
+      (error) => {
+        console.error("Error saving schedule:", error);
+        return false;
+      },
+    );
+  }
+
+  return {
+    // The state just loaded, so the next save only writes what changes from here
+    reset(state) {
+      saved = state;
+    },
+
+    save(state) {
+      if (!usesNativeStore()) {
+        saveState(state);
+        return Promise.resolve(true);
+      }
+      writing = writing.then(() => write(state));
+      return writing;
+    },
+  };
+}
+
+// Days of done/skipped history kept per task
+const HISTORY_DAYS = 30;
+
+export function localDate(date = new Date()) {
+  const pad = (n) => String(n).padStart(2, "0");
+  return `${date.getFullYear()}-${pad(date.getMonth() + 1)}-${pad(date.getDate())}`;
+}
+
+/**
+ * Folds completions recorded natively from the alarm notification into each task's
+ * `history` ({ "YYYY-MM-DD": "done" | "skipped" }). Merging is idempotent, and only
+ * the tasks that changed get new objects, so the saver writes just those.
+ */
+export function mergeCompletions(state, completions) {
+  const byTask = new Map();
+  for (const completion of completions) {
+    if (!byTask.has(completion.taskId)) byTask.set(completion.taskId, []);
+    byTask.get(completion.taskId).push(completion);
+  }
+
+  let schedule = state.schedule;
+  for (const [dayKey, tasks] of Object.entries(state.schedule)) {
+    if (!tasks.some((task) => byTask.has(task.id))) continue;
+
+    schedule = {
+      ...schedule,
+      [dayKey]: tasks.map((task) => {
+        const records = byTask.get(task.id);
+        if (!records) return task;
+
+        const history = { ...(task.history || {}) };
+        for (const { date, status } of records) history[date] = status;
+        const dates = Object.keys(history).sort();
+        for (const date of dates.slice(0, Math.max(0, dates.length - HISTORY_DAYS))) delete history[date];
+        return { ...task, history };
+      }),
+    };
+  }
+  return schedule === state.schedule ? state : { ...state, schedule };
 }
 
 export function saveState(state) {
@@ -87,4 +265,9 @@ export function clearAllState() {
   try {
     localStorage.removeItem(LS_KEY);
   } catch {}
+  if (usesNativeStore()) {
+    Capacitor.Plugins.ScheduleStore.clear().catch((error) =>
+      console.error("Error clearing schedule:", error),
+    );
+  }
 }